@@ -0,0 +1,46 @@
+package com.reedelk.aws.s3.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the benchmarks matching the given regular expression (all of them by default)
+ * at each concurrency level: once measuring the throughput (ops/s) and once sampling
+ * the latency distribution (ms). The GC profiler reports the allocation rate.
+ */
+public class BenchmarkRunner {
+
+    private static final int[] CONCURRENCY_LEVELS = { 1, 8, 32 };
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+
+        for (int threads : CONCURRENCY_LEVELS) {
+            run(include, threads, Mode.Throughput, TimeUnit.SECONDS);
+            run(include, threads, Mode.SampleTime, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void run(String include, int threads, Mode mode, TimeUnit timeUnit) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(include)
+                .threads(threads)
+                .mode(mode)
+                .timeUnit(timeUnit)
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
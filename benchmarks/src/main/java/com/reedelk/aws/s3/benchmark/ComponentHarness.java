@@ -0,0 +1,109 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.runtime.api.component.ProcessorSync;
+import com.reedelk.runtime.api.converter.ConverterService;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.MimeType;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicValue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Runs the components outside of the Reedelk runtime: the services normally injected by the
+ * runtime are replaced by minimal stand-ins. The script engine evaluates literal dynamic values
+ * to their value and any script (e.g. '#[message.payload()]') to the payload of the message.
+ */
+public class ComponentHarness {
+
+    private static final ScriptEngineService SCRIPT_ENGINE = (ScriptEngineService) Proxy.newProxyInstance(
+            ComponentHarness.class.getClassLoader(),
+            new Class<?>[] { ScriptEngineService.class },
+            (proxy, method, args) -> {
+                if ("evaluate".equals(method.getName()) && args != null && args.length == 3 && args[0] instanceof DynamicValue) {
+                    DynamicValue<?> value = (DynamicValue<?>) args[0];
+                    Message message = (Message) args[2];
+                    return value.isScript() ?
+                            Optional.ofNullable(message.payload()) :
+                            Optional.ofNullable(value.value());
+                }
+                return unsupported(proxy, method.getName(), args);
+            });
+
+    private static final ConverterService CONVERTER = (ConverterService) Proxy.newProxyInstance(
+            ComponentHarness.class.getClassLoader(),
+            new Class<?>[] { ConverterService.class },
+            (proxy, method, args) -> {
+                if ("convert".equals(method.getName()) && args != null && args.length == 2 && byte[].class.equals(args[1])) {
+                    Object input = args[0];
+                    if (input instanceof byte[]) return input;
+                    if (input instanceof String) return ((String) input).getBytes(StandardCharsets.UTF_8);
+                }
+                return unsupported(proxy, method.getName(), args);
+            });
+
+    private static final FlowContext FLOW_CONTEXT = (FlowContext) Proxy.newProxyInstance(
+            ComponentHarness.class.getClassLoader(),
+            new Class<?>[] { FlowContext.class },
+            (proxy, method, args) -> unsupported(proxy, method.getName(), args));
+
+    private ComponentHarness() {
+    }
+
+    /**
+     * Injects the stand-in services into the given component and initializes it.
+     */
+    public static <T extends ProcessorSync> T initialize(T component) {
+        for (Class<?> type = component.getClass(); type != null; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (ScriptEngineService.class.equals(field.getType())) set(component, field, SCRIPT_ENGINE);
+                else if (ConverterService.class.equals(field.getType())) set(component, field, CONVERTER);
+            }
+        }
+        component.initialize();
+        return component;
+    }
+
+    public static FlowContext flowContext() {
+        return FLOW_CONTEXT;
+    }
+
+    public static Message binaryMessage(Class<? extends ProcessorSync> source, byte[] payload) {
+        return MessageBuilder.get(source).withBinary(payload, MimeType.APPLICATION_BINARY).build();
+    }
+
+    public static Message javaMessage(Class<? extends ProcessorSync> source, Object payload) {
+        return MessageBuilder.get(source).withJavaObject(payload).build();
+    }
+
+    public static Message emptyMessage(Class<? extends ProcessorSync> source) {
+        return MessageBuilder.get(source).empty().build();
+    }
+
+    private static void set(Object component, Field field, Object value) {
+        try {
+            field.setAccessible(true);
+            field.set(component, value);
+        } catch (IllegalAccessException exception) {
+            throw new IllegalStateException("Could not inject " + field, exception);
+        }
+    }
+
+    private static Object unsupported(Object proxy, String method, Object[] args) {
+        switch (method) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "ComponentHarness stand-in";
+            default:
+                throw new UnsupportedOperationException(method + " is not supported by the benchmark harness");
+        }
+    }
+}
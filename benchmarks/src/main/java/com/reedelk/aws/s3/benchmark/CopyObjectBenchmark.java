@@ -0,0 +1,49 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.CopyObject;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.emptyMessage;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+
+@State(Scope.Benchmark)
+public class CopyObjectBenchmark {
+
+    private static final String SOURCE_KEY = "copy/source";
+
+    @Param({"1024", "1048576", "16777216"})
+    public int payloadSize;
+
+    private S3Environment environment;
+    private CopyObject component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        environment.standIn().putObject(S3Environment.BUCKET, SOURCE_KEY, S3Environment.payload(payloadSize));
+        component = new CopyObject();
+        component.setConfiguration(environment.configuration());
+        component.setSourceBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setSourceKey(DynamicString.from(SOURCE_KEY));
+        component.setDestinationBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setDestinationKey(DynamicString.from("copy/destination"));
+        ComponentHarness.initialize(component);
+        message = emptyMessage(CopyObject.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        component.dispose();
+        environment.close();
+    }
+
+    @Benchmark
+    public Message copy() {
+        return component.apply(flowContext(), message);
+    }
+}
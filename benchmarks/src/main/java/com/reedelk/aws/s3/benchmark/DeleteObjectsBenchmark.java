@@ -0,0 +1,57 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.DeleteObjects;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicObject;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.javaMessage;
+
+/**
+ * S3 reports deleting a missing key as a success: the keys are deleted only by the first
+ * invocation, and the following invocations measure the same requests on missing keys.
+ */
+@State(Scope.Benchmark)
+public class DeleteObjectsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int keyCount;
+
+    private S3Environment environment;
+    private DeleteObjects component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        List<String> keys = new ArrayList<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            String key = String.format("delete/object-%06d", i);
+            environment.standIn().putObject(S3Environment.BUCKET, key, new byte[0]);
+            keys.add(key);
+        }
+        component = new DeleteObjects();
+        component.setConfiguration(environment.configuration());
+        component.setBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setKeys(DynamicObject.from("#[message.payload()]"));
+        ComponentHarness.initialize(component);
+        message = javaMessage(DeleteObjects.class, keys);
+    }
+
+    @TearDown
+    public void tearDown() {
+        component.dispose();
+        environment.close();
+    }
+
+    @Benchmark
+    public Message deleteMany() {
+        return component.apply(flowContext(), message);
+    }
+}
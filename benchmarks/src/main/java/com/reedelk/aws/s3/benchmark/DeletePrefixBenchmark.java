@@ -0,0 +1,66 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.DeletePrefix;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.emptyMessage;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+
+/**
+ * The objects are deleted by each invocation, therefore they are put again before each
+ * invocation: each thread has its own stand-in, so that the threads do not delete each
+ * other's objects. The dry run measures the listing alone.
+ */
+@State(Scope.Thread)
+public class DeletePrefixBenchmark {
+
+    private static final String PREFIX = "prefix/";
+
+    @Param({"10000", "100000"})
+    public int keyCount;
+
+    @Param({"1", "4"})
+    public int batchConcurrency;
+
+    @Param({"false", "true"})
+    public boolean dryRun;
+
+    private S3Environment environment;
+    private DeletePrefix component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        component = new DeletePrefix();
+        component.setConfiguration(environment.configuration());
+        component.setBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setPrefix(DynamicString.from(PREFIX));
+        component.setBatchConcurrency(batchConcurrency);
+        component.setDryRun(dryRun);
+        ComponentHarness.initialize(component);
+        message = emptyMessage(DeletePrefix.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void putObjects() {
+        for (int i = 0; i < keyCount; i++) {
+            environment.standIn().putObject(S3Environment.BUCKET, String.format(PREFIX + "object-%07d", i), new byte[0]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        component.dispose();
+        environment.close();
+    }
+
+    @Benchmark
+    public Message deletePrefix() {
+        return component.apply(flowContext(), message);
+    }
+}
@@ -0,0 +1,57 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.DownloadObject;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.emptyMessage;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+
+@State(Scope.Benchmark)
+public class DownloadObjectBenchmark {
+
+    private static final String KEY = "download/object";
+
+    @Param({"1024", "65536", "1048576", "16777216"})
+    public int payloadSize;
+
+    @Param({"false", "true"})
+    public boolean rangedDownload;
+
+    @Param({"NONE", "TAIL_LATENCY", "THROTTLED"})
+    public FaultProfile faults;
+
+    private S3Environment environment;
+    private DownloadObject component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        environment.standIn().putObject(S3Environment.BUCKET, KEY, S3Environment.payload(payloadSize));
+        component = new DownloadObject();
+        component.setConfiguration(environment.configuration());
+        component.setBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setKey(DynamicString.from(KEY));
+        component.setRangedDownload(rangedDownload);
+        // Objects larger than 1 MB are split in ranges.
+        component.setRangeSize(1);
+        ComponentHarness.initialize(component);
+        environment.standIn().faults(faults.faults());
+        message = emptyMessage(DownloadObject.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        component.dispose();
+        environment.close();
+    }
+
+    @Benchmark
+    public byte[] download() {
+        return component.apply(flowContext(), message).payload();
+    }
+}
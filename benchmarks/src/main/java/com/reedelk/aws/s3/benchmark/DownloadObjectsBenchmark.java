@@ -0,0 +1,65 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.DownloadObjects;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicObject;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.javaMessage;
+
+/**
+ * Downloads many small objects, where the time is dominated by the per request
+ * latency rather than by the transfer: the concurrency hides the latency.
+ */
+@State(Scope.Benchmark)
+public class DownloadObjectsBenchmark {
+
+    @Param({"100", "1000"})
+    public int keyCount;
+
+    @Param({"1", "16"})
+    public int concurrency;
+
+    @Param({"NONE", "TAIL_LATENCY"})
+    public FaultProfile faults;
+
+    private S3Environment environment;
+    private DownloadObjects component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        List<String> keys = new ArrayList<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            String key = String.format("download/object-%06d", i);
+            environment.standIn().putObject(S3Environment.BUCKET, key, S3Environment.payload(4 * 1024));
+            keys.add(key);
+        }
+        component = new DownloadObjects();
+        component.setConfiguration(environment.configuration());
+        component.setBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setKeys(DynamicObject.from("#[message.payload()]"));
+        component.setConcurrency(concurrency);
+        ComponentHarness.initialize(component);
+        environment.standIn().faults(faults.faults());
+        message = javaMessage(DownloadObjects.class, keys);
+    }
+
+    @TearDown
+    public void tearDown() {
+        component.dispose();
+        environment.close();
+    }
+
+    @Benchmark
+    public Message downloadMany() {
+        return component.apply(flowContext(), message);
+    }
+}
@@ -0,0 +1,65 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.DownloadObject;
+import com.reedelk.aws.s3.component.DownloadOutput;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.emptyMessage;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+
+/**
+ * Downloads to a file: compared with {@link DownloadObjectBenchmark}, the allocation
+ * rate reported by the GC profiler should not grow with the payload size.
+ */
+@State(Scope.Benchmark)
+public class DownloadToFileBenchmark {
+
+    private static final String KEY = "download/object";
+
+    @Param({"1048576", "16777216", "134217728"})
+    public int payloadSize;
+
+    @Param({"false", "true"})
+    public boolean rangedDownload;
+
+    private S3Environment environment;
+    private Path directory;
+    private DownloadObject component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        environment.standIn().putObject(S3Environment.BUCKET, KEY, S3Environment.payload(payloadSize));
+        directory = Files.createTempDirectory("s3-benchmark");
+        component = new DownloadObject();
+        component.setConfiguration(environment.configuration());
+        component.setBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setKey(DynamicString.from(KEY));
+        component.setOutput(DownloadOutput.FILE);
+        // Concurrent downloads are written to different temporary files, each atomically renamed to the same path.
+        component.setDestinationPath(DynamicString.from(directory.resolve("object").toString()));
+        component.setRangedDownload(rangedDownload);
+        ComponentHarness.initialize(component);
+        message = emptyMessage(DownloadObject.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        component.dispose();
+        environment.close();
+        Files.deleteIfExists(directory.resolve("object"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Message download() {
+        return component.apply(flowContext(), message);
+    }
+}
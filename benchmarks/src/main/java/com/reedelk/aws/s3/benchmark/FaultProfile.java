@@ -0,0 +1,41 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.benchmark.standin.Faults;
+
+/**
+ * The faults injected by the S3 stand-in in a benchmark, reproducing the conditions of a production incident.
+ */
+public enum FaultProfile {
+
+    NONE {
+        @Override
+        Faults faults() {
+            return Faults.none();
+        }
+    },
+
+    /**
+     * A steady latency with 1% of the requests a hundred times slower.
+     */
+    TAIL_LATENCY {
+        @Override
+        Faults faults() {
+            return Faults.none()
+                    .withLatency(2)
+                    .withTailLatency(200, 0.01);
+        }
+    },
+
+    /**
+     * The partition accepts a fraction of the S3 request rate: the requests above it are throttled with 503 SlowDown.
+     */
+    THROTTLED {
+        @Override
+        Faults faults() {
+            return Faults.none()
+                    .withRequestRateLimit(500);
+        }
+    };
+
+    abstract Faults faults();
+}
@@ -0,0 +1,52 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.ListObjects;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.emptyMessage;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+
+@State(Scope.Benchmark)
+public class ListObjectsBenchmark {
+
+    private static final byte[] OBJECT = new byte[0];
+
+    /**
+     * The number of objects in the listed prefix: a single page holds at most 1000 objects.
+     */
+    @Param({"10", "100", "1000"})
+    public int objectCount;
+
+    private S3Environment environment;
+    private ListObjects component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        for (int i = 0; i < objectCount; i++) {
+            environment.standIn().putObject(S3Environment.BUCKET, String.format("list/object-%06d", i), OBJECT);
+        }
+        component = new ListObjects();
+        component.setConfiguration(environment.configuration());
+        component.setBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setPrefix(DynamicString.from("list/"));
+        ComponentHarness.initialize(component);
+        message = emptyMessage(ListObjects.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        component.dispose();
+        environment.close();
+    }
+
+    @Benchmark
+    public Message list() {
+        return component.apply(flowContext(), message);
+    }
+}
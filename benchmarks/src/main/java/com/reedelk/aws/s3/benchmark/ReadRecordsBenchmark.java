@@ -0,0 +1,81 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.ReadRecords;
+import com.reedelk.aws.s3.component.RecordFormat;
+import com.reedelk.aws.s3.internal.type.RecordBatch;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.emptyMessage;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+
+/**
+ * Reads all the records of an NDJSON object: the allocation rate reported by the
+ * GC profiler depends on the batch size rather than on the size of the object.
+ */
+@State(Scope.Benchmark)
+public class ReadRecordsBenchmark {
+
+    private static final String KEY = "records/events.ndjson";
+
+    @Param({"100000", "1000000"})
+    public int recordCount;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private S3Environment environment;
+    private ReadRecords component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        environment.standIn().putObject(S3Environment.BUCKET, KEY, records(recordCount, compressed));
+        component = new ReadRecords();
+        component.setConfiguration(environment.configuration());
+        component.setBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setKey(DynamicString.from(KEY));
+        component.setFormat(RecordFormat.NDJSON);
+        component.setBatchSize(batchSize);
+        ComponentHarness.initialize(component);
+        message = emptyMessage(ReadRecords.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        component.dispose();
+        environment.close();
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) {
+        Message result = component.apply(flowContext(), message);
+        Publisher<RecordBatch> batches = result.payload();
+        Flux.from(batches).doOnNext(blackhole::consume).blockLast();
+    }
+
+    private static byte[] records(int count, boolean compressed) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (OutputStream records = compressed ? new GZIPOutputStream(output) : output) {
+            for (int i = 0; i < count; i++) {
+                String record = "{\"id\":" + i + ",\"type\":\"click\",\"amount\":" + (i * 7 % 1000) + "}\n";
+                records.write(record.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return output.toByteArray();
+    }
+}
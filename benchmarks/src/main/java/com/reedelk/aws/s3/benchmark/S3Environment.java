@@ -0,0 +1,55 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.benchmark.standin.S3StandIn;
+import com.reedelk.aws.s3.component.AwsConfiguration;
+import com.reedelk.aws.s3.component.AwsRegion;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * A running S3 stand-in and an AWS configuration pointing to it.
+ */
+public class S3Environment implements AutoCloseable {
+
+    public static final String BUCKET = "benchmark";
+
+    private final S3StandIn standIn;
+    private final AwsConfiguration configuration;
+
+    private S3Environment(S3StandIn standIn) {
+        this.standIn = standIn;
+        this.configuration = new AwsConfiguration();
+        this.configuration.setAccessKeyId("benchmark");
+        this.configuration.setSecretKeyId("benchmark");
+        this.configuration.setRegion(AwsRegion.US_EAST_1);
+        this.configuration.setEndpoint(standIn.endpoint());
+        this.configuration.setPathStyleAccess(true);
+        // Enough connections for the highest benchmark concurrency.
+        this.configuration.setMaxConnections(256);
+        standIn.createBucket(BUCKET);
+    }
+
+    public static S3Environment start() throws IOException {
+        return new S3Environment(S3StandIn.start());
+    }
+
+    public S3StandIn standIn() {
+        return standIn;
+    }
+
+    public AwsConfiguration configuration() {
+        return configuration;
+    }
+
+    public static byte[] payload(int size) {
+        byte[] payload = new byte[size];
+        new Random(size).nextBytes(payload);
+        return payload;
+    }
+
+    @Override
+    public void close() {
+        standIn.close();
+    }
+}
@@ -0,0 +1,67 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.SelectObject;
+import com.reedelk.aws.s3.component.SelectOutput;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.emptyMessage;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+
+/**
+ * Selects one record out of ten of a CSV object: compared with {@link DownloadObjectBenchmark}
+ * on a payload of the same size, only the selected records are transferred.
+ */
+@State(Scope.Benchmark)
+public class SelectObjectBenchmark {
+
+    private static final String KEY = "select/records.csv";
+
+    @Param({"10000", "100000", "1000000"})
+    public int recordCount;
+
+    private S3Environment environment;
+    private SelectObject component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        environment.standIn().putObject(S3Environment.BUCKET, KEY, records(recordCount));
+        component = new SelectObject();
+        component.setConfiguration(environment.configuration());
+        component.setBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setKey(DynamicString.from(KEY));
+        component.setExpression(DynamicString.from("SELECT * FROM S3Object s WHERE s.country = 'IT'"));
+        component.setCsvHeader(true);
+        // The records are read in the benchmark method, as a consumer of the stream would.
+        component.setOutput(SelectOutput.BYTE_ARRAY);
+        ComponentHarness.initialize(component);
+        message = emptyMessage(SelectObject.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        component.dispose();
+        environment.close();
+    }
+
+    @Benchmark
+    public Message select() {
+        return component.apply(flowContext(), message);
+    }
+
+    private static byte[] records(int count) {
+        StringBuilder records = new StringBuilder("id,country,amount\n");
+        for (int i = 0; i < count; i++) {
+            records.append(i).append(',')
+                    .append(i % 10 == 0 ? "IT" : "DE").append(',')
+                    .append(i * 7 % 1000).append('\n');
+        }
+        return records.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,65 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.UploadObject;
+import com.reedelk.aws.s3.component.UploadSource;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.emptyMessage;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+
+/**
+ * Uploads from a file: compared with {@link UploadObjectBenchmark}, the payload is never
+ * held in memory as a whole, the parts are read from the file while they are being sent.
+ */
+@State(Scope.Benchmark)
+public class UploadFromFileBenchmark {
+
+    private static final String KEY = "upload/file";
+
+    @Param({"1048576", "16777216", "134217728"})
+    public int payloadSize;
+
+    @Param({"false", "true"})
+    public boolean multipart;
+
+    private S3Environment environment;
+    private Path file;
+    private UploadObject component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        file = Files.createTempFile("s3-benchmark", ".bin");
+        Files.write(file, S3Environment.payload(payloadSize));
+        component = new UploadObject();
+        component.setConfiguration(environment.configuration());
+        component.setBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setKey(DynamicString.from(KEY));
+        component.setSource(UploadSource.FILE);
+        component.setSourcePath(DynamicString.from(file.toString()));
+        component.setMultipart(multipart);
+        component.setMultipartThreshold(5);
+        component.setPartSize(5);
+        ComponentHarness.initialize(component);
+        message = emptyMessage(UploadObject.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        component.dispose();
+        environment.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Message upload() {
+        return component.apply(flowContext(), message);
+    }
+}
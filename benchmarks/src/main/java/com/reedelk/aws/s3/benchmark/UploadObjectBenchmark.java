@@ -0,0 +1,51 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.UploadObject;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.binaryMessage;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+
+@State(Scope.Benchmark)
+public class UploadObjectBenchmark {
+
+    @Param({"1024", "65536", "1048576", "16777216"})
+    public int payloadSize;
+
+    @Param({"false", "true"})
+    public boolean multipart;
+
+    private S3Environment environment;
+    private UploadObject component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        component = new UploadObject();
+        component.setConfiguration(environment.configuration());
+        component.setBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setKey(DynamicString.from("upload/object"));
+        component.setMultipart(multipart);
+        // Objects larger than 5 MB (the minimum part size) are uploaded in parts.
+        component.setMultipartThreshold(5);
+        component.setPartSize(5);
+        ComponentHarness.initialize(component);
+        message = binaryMessage(UploadObject.class, S3Environment.payload(payloadSize));
+    }
+
+    @TearDown
+    public void tearDown() {
+        component.dispose();
+        environment.close();
+    }
+
+    @Benchmark
+    public Message upload() {
+        return component.apply(flowContext(), message);
+    }
+}
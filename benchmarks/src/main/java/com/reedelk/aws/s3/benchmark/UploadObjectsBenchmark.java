@@ -0,0 +1,63 @@
+package com.reedelk.aws.s3.benchmark;
+
+import com.reedelk.aws.s3.component.UploadObjects;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicObject;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.flowContext;
+import static com.reedelk.aws.s3.benchmark.ComponentHarness.javaMessage;
+
+/**
+ * Uploads many small objects, where the time is dominated by the per request
+ * latency rather than by the transfer: the concurrency hides the latency.
+ */
+@State(Scope.Benchmark)
+public class UploadObjectsBenchmark {
+
+    @Param({"100", "1000"})
+    public int keyCount;
+
+    @Param({"1", "16"})
+    public int concurrency;
+
+    @Param({"NONE", "TAIL_LATENCY"})
+    public FaultProfile faults;
+
+    private S3Environment environment;
+    private UploadObjects component;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        environment = S3Environment.start();
+        Map<String, byte[]> objects = new LinkedHashMap<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            objects.put(String.format("upload/object-%06d", i), S3Environment.payload(1024));
+        }
+        component = new UploadObjects();
+        component.setConfiguration(environment.configuration());
+        component.setBucket(DynamicString.from(S3Environment.BUCKET));
+        component.setObjects(DynamicObject.from("#[message.payload()]"));
+        component.setConcurrency(concurrency);
+        ComponentHarness.initialize(component);
+        environment.standIn().faults(faults.faults());
+        message = javaMessage(UploadObjects.class, objects);
+    }
+
+    @TearDown
+    public void tearDown() {
+        component.dispose();
+        environment.close();
+    }
+
+    @Benchmark
+    public Message uploadMany() {
+        return component.apply(flowContext(), message);
+    }
+}
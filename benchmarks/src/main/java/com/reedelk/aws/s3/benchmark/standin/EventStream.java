@@ -0,0 +1,66 @@
+package com.reedelk.aws.s3.benchmark.standin;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Encoding of the binary event stream messages of the S3 Select responses. Each message is
+ * made of a prelude (total length, headers length and prelude CRC), the headers, the payload
+ * and the CRC of the whole message. All the headers are encoded as strings.
+ */
+final class EventStream {
+
+    private static final int PRELUDE_LENGTH = 12;
+    private static final int CRC_LENGTH = 4;
+    private static final byte STRING_HEADER_TYPE = 7;
+
+    private EventStream() {
+    }
+
+    static byte[] event(String eventType, String contentType, byte[] payload) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(":message-type", "event");
+        headers.put(":event-type", eventType);
+        if (contentType != null) headers.put(":content-type", contentType);
+        return message(headers, payload);
+    }
+
+    private static byte[] message(Map<String, String> headers, byte[] payload) {
+        byte[] encodedHeaders = encode(headers);
+        int totalLength = PRELUDE_LENGTH + encodedHeaders.length + payload.length + CRC_LENGTH;
+
+        ByteBuffer message = ByteBuffer.allocate(totalLength);
+        message.putInt(totalLength);
+        message.putInt(encodedHeaders.length);
+        message.putInt((int) crc(message.array(), 0, 8));
+        message.put(encodedHeaders);
+        message.put(payload);
+        message.putInt((int) crc(message.array(), 0, totalLength - CRC_LENGTH));
+        return message.array();
+    }
+
+    private static byte[] encode(Map<String, String> headers) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        headers.forEach((name, value) -> {
+            byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+            byte[] encodedValue = value.getBytes(StandardCharsets.UTF_8);
+            output.write(encodedName.length);
+            output.write(encodedName, 0, encodedName.length);
+            output.write(STRING_HEADER_TYPE);
+            output.write(encodedValue.length >>> 8);
+            output.write(encodedValue.length);
+            output.write(encodedValue, 0, encodedValue.length);
+        });
+        return output.toByteArray();
+    }
+
+    private static long crc(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,93 @@
+package com.reedelk.aws.s3.benchmark.standin;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides the faults injected into each request according to the configured {@link Faults}.
+ */
+class FaultInjector {
+
+    enum Fault {
+        NONE,
+        SLOW_DOWN,
+        INTERNAL_ERROR,
+        CONNECTION_RESET,
+        TRUNCATED_RESPONSE
+    }
+
+    private final Faults faults;
+    private final Random random;
+    private final Map<String, RateWindow> windows = new ConcurrentHashMap<>();
+
+    FaultInjector(Faults faults) {
+        this.faults = faults;
+        this.random = new Random(faults.seed);
+    }
+
+    boolean applies(String key) {
+        return (key == null ? "" : key).startsWith(faults.keyPrefix);
+    }
+
+    long latencyMillis() {
+        long latency = faults.latencyMillis;
+        if (faults.tailLatencyProbability > 0 && draw() < faults.tailLatencyProbability) {
+            latency += faults.tailLatencyMillis;
+        }
+        return latency;
+    }
+
+    Fault fault(String bucket, String key) {
+        if (faults.connectionResetProbability > 0 && draw() < faults.connectionResetProbability) {
+            return Fault.CONNECTION_RESET;
+        }
+        if (faults.requestRateLimit > 0 && !windowOf(bucket, key).admit(faults.requestRateLimit)) {
+            return Fault.SLOW_DOWN;
+        }
+        if (faults.slowDownProbability > 0 && draw() < faults.slowDownProbability) {
+            return Fault.SLOW_DOWN;
+        }
+        if (faults.internalErrorProbability > 0 && draw() < faults.internalErrorProbability) {
+            return Fault.INTERNAL_ERROR;
+        }
+        if (faults.truncatedResponseProbability > 0 && draw() < faults.truncatedResponseProbability) {
+            return Fault.TRUNCATED_RESPONSE;
+        }
+        return Fault.NONE;
+    }
+
+    private double draw() {
+        synchronized (random) {
+            return random.nextDouble();
+        }
+    }
+
+    private RateWindow windowOf(String bucket, String key) {
+        String partition = bucket;
+        if (key != null) {
+            int separator = key.indexOf('/');
+            partition = bucket + '/' + (separator < 0 ? "" : key.substring(0, separator + 1));
+        }
+        return windows.computeIfAbsent(partition, name -> new RateWindow());
+    }
+
+    /**
+     * Counts the requests received in the current second.
+     */
+    static class RateWindow {
+
+        private long second = -1;
+        private int count;
+
+        synchronized boolean admit(int limit) {
+            long now = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+            if (now != second) {
+                second = now;
+                count = 0;
+            }
+            return ++count <= limit;
+        }
+    }
+}
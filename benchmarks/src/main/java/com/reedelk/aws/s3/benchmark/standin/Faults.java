@@ -0,0 +1,138 @@
+package com.reedelk.aws.s3.benchmark.standin;
+
+/**
+ * The faults injected by the stand-in into its responses: added latency, throttling
+ * (503 SlowDown), internal errors (500), connection resets and truncated responses. Faults are immutable:
+ * each method returns a copy with the given fault added. Random faults are drawn from
+ * a generator with a fixed seed, so that a single threaded run is reproducible.
+ * <pre>
+ * standIn.faults(Faults.none()
+ *         .withLatency(20)
+ *         .withTailLatency(500, 0.01)
+ *         .withRequestRateLimit(3500));
+ * </pre>
+ */
+public final class Faults {
+
+    private static final long DEFAULT_SEED = 42;
+    private static final Faults NONE = new Faults(0, 0, 0, 0, 0, 0, 0, 0, DEFAULT_SEED, "");
+
+    final long latencyMillis;
+    final long tailLatencyMillis;
+    final double tailLatencyProbability;
+    final int requestRateLimit;
+    final double slowDownProbability;
+    final double internalErrorProbability;
+    final double connectionResetProbability;
+    final double truncatedResponseProbability;
+    final long seed;
+    final String keyPrefix;
+
+    private Faults(long latencyMillis,
+                   long tailLatencyMillis,
+                   double tailLatencyProbability,
+                   int requestRateLimit,
+                   double slowDownProbability,
+                   double internalErrorProbability,
+                   double connectionResetProbability,
+                   double truncatedResponseProbability,
+                   long seed,
+                   String keyPrefix) {
+        this.latencyMillis = latencyMillis;
+        this.tailLatencyMillis = tailLatencyMillis;
+        this.tailLatencyProbability = tailLatencyProbability;
+        this.requestRateLimit = requestRateLimit;
+        this.slowDownProbability = slowDownProbability;
+        this.internalErrorProbability = internalErrorProbability;
+        this.connectionResetProbability = connectionResetProbability;
+        this.truncatedResponseProbability = truncatedResponseProbability;
+        this.seed = seed;
+        this.keyPrefix = keyPrefix;
+    }
+
+    public static Faults none() {
+        return NONE;
+    }
+
+    /**
+     * Adds the given latency to every response.
+     */
+    public Faults withLatency(long millis) {
+        return new Faults(millis, tailLatencyMillis, tailLatencyProbability, requestRateLimit,
+                slowDownProbability, internalErrorProbability, connectionResetProbability, truncatedResponseProbability, seed, keyPrefix);
+    }
+
+    /**
+     * Adds the given latency (on top of the fixed latency) to the given fraction of the responses.
+     */
+    public Faults withTailLatency(long millis, double probability) {
+        return new Faults(latencyMillis, millis, probability(probability), requestRateLimit,
+                slowDownProbability, internalErrorProbability, connectionResetProbability, truncatedResponseProbability, seed, keyPrefix);
+    }
+
+    /**
+     * Responds with 503 SlowDown to the requests exceeding the given number of requests
+     * per second on the same partition: a partition is the bucket and the first segment of the key,
+     * as S3 scales the request rate per prefix.
+     */
+    public Faults withRequestRateLimit(int requestsPerSecond) {
+        if (requestsPerSecond < 0) throw new IllegalArgumentException("The request rate limit must not be negative");
+        return new Faults(latencyMillis, tailLatencyMillis, tailLatencyProbability, requestsPerSecond,
+                slowDownProbability, internalErrorProbability, connectionResetProbability, truncatedResponseProbability, seed, keyPrefix);
+    }
+
+    /**
+     * Responds with 503 SlowDown to the given fraction of the requests.
+     */
+    public Faults withSlowDown(double probability) {
+        return new Faults(latencyMillis, tailLatencyMillis, tailLatencyProbability, requestRateLimit,
+                probability(probability), internalErrorProbability, connectionResetProbability, truncatedResponseProbability, seed, keyPrefix);
+    }
+
+    /**
+     * Responds with 500 InternalError to the given fraction of the requests.
+     */
+    public Faults withInternalErrors(double probability) {
+        return new Faults(latencyMillis, tailLatencyMillis, tailLatencyProbability, requestRateLimit,
+                slowDownProbability, probability(probability), connectionResetProbability, truncatedResponseProbability, seed, keyPrefix);
+    }
+
+    /**
+     * Closes the connection without a response for the given fraction of the requests.
+     */
+    public Faults withConnectionResets(double probability) {
+        return new Faults(latencyMillis, tailLatencyMillis, tailLatencyProbability, requestRateLimit,
+                slowDownProbability, internalErrorProbability, probability(probability), truncatedResponseProbability, seed, keyPrefix);
+    }
+
+    /**
+     * Closes the connection after sending half of the content for the given fraction of the object GETs,
+     * as when a connection drops while the object is being downloaded.
+     */
+    public Faults withTruncatedResponses(double probability) {
+        return new Faults(latencyMillis, tailLatencyMillis, tailLatencyProbability, requestRateLimit,
+                slowDownProbability, internalErrorProbability, connectionResetProbability, probability(probability), seed, keyPrefix);
+    }
+
+    public Faults withSeed(long seed) {
+        return new Faults(latencyMillis, tailLatencyMillis, tailLatencyProbability, requestRateLimit,
+                slowDownProbability, internalErrorProbability, connectionResetProbability, truncatedResponseProbability, seed, keyPrefix);
+    }
+
+    /**
+     * Restricts the faults to the requests on keys starting with the given prefix.
+     * Requests on buckets (e.g. listing, multi-object delete) match the prefix of their 'prefix' parameter.
+     */
+    public Faults forKeysStartingWith(String prefix) {
+        return new Faults(latencyMillis, tailLatencyMillis, tailLatencyProbability, requestRateLimit,
+                slowDownProbability, internalErrorProbability, connectionResetProbability, truncatedResponseProbability, seed,
+                prefix == null ? "" : prefix);
+    }
+
+    private static double probability(double probability) {
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("The probability must be between 0 and 1, was " + probability);
+        }
+        return probability;
+    }
+}
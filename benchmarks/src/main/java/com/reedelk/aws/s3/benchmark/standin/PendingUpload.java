@@ -0,0 +1,37 @@
+package com.reedelk.aws.s3.benchmark.standin;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A multipart upload initiated and not yet completed or aborted, with the parts uploaded so far.
+ * Uploading a part with the same number again replaces the previous one.
+ */
+class PendingUpload {
+
+    final String bucket;
+    final String key;
+    final String contentType;
+    final Map<String, String> userMetadata;
+    final NavigableMap<Integer, Part> parts = new ConcurrentSkipListMap<>();
+
+    PendingUpload(String bucket, String key, String contentType, Map<String, String> userMetadata) {
+        this.bucket = bucket;
+        this.key = key;
+        this.contentType = contentType;
+        this.userMetadata = Collections.unmodifiableMap(userMetadata);
+    }
+
+    static class Part {
+
+        final byte[] data;
+        final String eTag;
+
+        Part(byte[] data, String eTag) {
+            this.data = data;
+            this.eTag = eTag;
+        }
+    }
+}
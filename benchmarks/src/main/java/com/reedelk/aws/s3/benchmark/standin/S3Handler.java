@@ -0,0 +1,826 @@
+package com.reedelk.aws.s3.benchmark.standin;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispatches the S3 REST requests to the stand-in operations,
+ * after injecting the configured latency and faults.
+ */
+class S3Handler implements HttpHandler {
+
+    private static final String USER_METADATA_PREFIX = "x-amz-meta-";
+    private static final int DEFAULT_MAX_KEYS = 1000;
+    private static final int MAX_PART_NUMBER = 10000;
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final int RECORDS_EVENT_SIZE = 64 * 1024;
+
+    private final S3StandIn standIn;
+    private final AtomicLong requestIds = new AtomicLong(0);
+
+    S3Handler(S3StandIn standIn) {
+        this.standIn = standIn;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            S3Request request = new S3Request(exchange, Long.toHexString(requestIds.incrementAndGet()));
+            exchange.getResponseHeaders().set("x-amz-request-id", request.requestId);
+            standIn.requestReceived();
+            if (!injectFault(request)) dispatch(request);
+        } catch (Exception exception) {
+            sendError(exchange, 500, "InternalError", String.valueOf(exception.getMessage()), "");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @return true if a fault has been injected and the request must not be dispatched.
+     */
+    private boolean injectFault(S3Request request) throws Exception {
+        FaultInjector injector = standIn.faultInjector();
+        String key = request.key != null ? request.key : request.parameter("prefix");
+        if (!injector.applies(key)) return false;
+
+        long latency = injector.latencyMillis();
+        if (latency > 0) Thread.sleep(latency);
+
+        FaultInjector.Fault fault = injector.fault(request.bucket, key);
+        if (fault == FaultInjector.Fault.NONE) return false;
+        if (fault == FaultInjector.Fault.TRUNCATED_RESPONSE) {
+            // Only the content of the objects can be truncated: the request is dispatched as usual.
+            boolean objectGet = "GET".equals(request.method) && request.key != null;
+            if (objectGet) standIn.faultInjected();
+            request.truncateContent = objectGet;
+            return false;
+        }
+
+        standIn.faultInjected();
+        request.discardBody();
+        switch (fault) {
+            case SLOW_DOWN:
+                sendError(request, 503, "SlowDown", "Please reduce your request rate.");
+                break;
+            case INTERNAL_ERROR:
+                sendError(request, 500, "InternalError", "We encountered an internal error. Please try again.");
+                break;
+            default:
+                // Connection reset: closing the exchange before sending
+                // the response headers closes the connection.
+                break;
+        }
+        return true;
+    }
+
+    private void dispatch(S3Request request) throws Exception {
+        String method = request.method;
+        if (request.key == null) {
+            if ("PUT".equals(method)) {
+                standIn.createBucket(request.bucket);
+                send(request.exchange, 200, null);
+            } else if ("HEAD".equals(method)) {
+                if (bucketOrError(request) != null) send(request.exchange, 200, null);
+            } else if ("GET".equals(method) && "2".equals(request.parameter("list-type"))) {
+                listObjectsV2(request);
+            } else if ("POST".equals(method) && request.hasParameter("delete")) {
+                deleteObjects(request);
+            } else {
+                sendError(request, 501, "NotImplemented", "The bucket operation is not implemented by the stand-in.");
+            }
+            return;
+        }
+
+        boolean copy = request.header("x-amz-copy-source") != null;
+        boolean multipart = request.hasParameter("uploadId");
+        switch (method) {
+            case "PUT":
+                if (multipart && copy) uploadPartCopy(request);
+                else if (multipart) uploadPart(request);
+                else if (copy) copyObject(request);
+                else putObject(request);
+                break;
+            case "GET":
+                getObject(request, true);
+                break;
+            case "HEAD":
+                getObject(request, false);
+                break;
+            case "DELETE":
+                if (multipart) abortMultipartUpload(request);
+                else deleteObject(request);
+                break;
+            case "POST":
+                if (request.hasParameter("uploads")) initiateMultipartUpload(request);
+                else if (multipart) completeMultipartUpload(request);
+                else if (request.hasParameter("select")) selectObjectContent(request);
+                else sendError(request, 501, "NotImplemented", "The object operation is not implemented by the stand-in.");
+                break;
+            default:
+                sendError(request, 501, "NotImplemented", "The object operation is not implemented by the stand-in.");
+        }
+    }
+
+    private void putObject(S3Request request) throws IOException {
+        if (bucketOrError(request) == null) return;
+        byte[] data = request.body();
+        StoredObject object = new StoredObject(data, md5Hex(data), request.contentType(), request.userMetadata());
+        standIn.store(request.bucket, request.key, object);
+        request.exchange.getResponseHeaders().set("ETag", quote(object.eTag));
+        send(request.exchange, 200, null);
+    }
+
+    private void getObject(S3Request request, boolean withContent) throws IOException {
+        StoredObject object = objectOrError(request, request.bucket, request.key);
+        if (object == null) return;
+
+        String ifMatch = request.header("If-Match");
+        if (ifMatch != null && !matches(ifMatch, object.eTag)) {
+            sendError(request, 412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+            return;
+        }
+        String ifNoneMatch = request.header("If-None-Match");
+        if (ifNoneMatch != null && matches(ifNoneMatch, object.eTag)) {
+            writeObjectHeaders(request.exchange.getResponseHeaders(), object);
+            request.exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        Headers headers = request.exchange.getResponseHeaders();
+        writeObjectHeaders(headers, object);
+
+        int length = object.data.length;
+        ByteRange range = ByteRange.parse(request.header("Range"), length);
+        if (range != null && !range.satisfiable()) {
+            headers.set("Content-Range", "bytes */" + length);
+            sendError(request, 416, "InvalidRange", "The requested range is not satisfiable");
+            return;
+        }
+
+        int status = range != null ? 206 : 200;
+        byte[] content = object.data;
+        if (range != null) {
+            headers.set("Content-Range", "bytes " + range.first + "-" + range.last + "/" + length);
+            content = Arrays.copyOfRange(object.data, (int) range.first, (int) range.last + 1);
+        }
+        headers.set("Content-Length", String.valueOf(content.length));
+        if (withContent && request.truncateContent && content.length > 1) {
+            sendTruncated(request.exchange, status, content);
+        } else if (withContent) {
+            send(request.exchange, status, content);
+        } else {
+            request.exchange.sendResponseHeaders(status, -1);
+        }
+    }
+
+    private void deleteObject(S3Request request) throws IOException {
+        NavigableMap<String, StoredObject> objects = bucketOrError(request);
+        if (objects == null) return;
+        objects.remove(request.key);
+        request.exchange.sendResponseHeaders(204, -1);
+    }
+
+    private void copyObject(S3Request request) throws IOException {
+        CopySource source = CopySource.parse(request.header("x-amz-copy-source"));
+        StoredObject sourceObject = objectOrError(request, source.bucket, source.key);
+        if (sourceObject == null || bucketOrError(request) == null) return;
+
+        String ifMatch = request.header("x-amz-copy-source-if-match");
+        if (ifMatch != null && !matches(ifMatch, sourceObject.eTag)) {
+            sendError(request, 412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+            return;
+        }
+
+        boolean replace = "REPLACE".equalsIgnoreCase(request.header("x-amz-metadata-directive"));
+        StoredObject copy = new StoredObject(sourceObject.data, sourceObject.eTag,
+                replace ? request.contentType() : sourceObject.contentType,
+                replace ? request.userMetadata() : sourceObject.userMetadata);
+        standIn.store(request.bucket, request.key, copy);
+
+        String response = S3Xml.document("CopyObjectResult")
+                .element("LastModified", S3Xml.date(copy.lastModified))
+                .element("ETag", quote(copy.eTag))
+                .end("CopyObjectResult");
+        sendXml(request.exchange, 200, response);
+    }
+
+    private void initiateMultipartUpload(S3Request request) throws IOException {
+        if (bucketOrError(request) == null) return;
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        standIn.uploads().put(uploadId,
+                new PendingUpload(request.bucket, request.key, request.contentType(), request.userMetadata()));
+
+        String response = S3Xml.document("InitiateMultipartUploadResult")
+                .element("Bucket", request.bucket)
+                .element("Key", request.key)
+                .element("UploadId", uploadId)
+                .end("InitiateMultipartUploadResult");
+        sendXml(request.exchange, 200, response);
+    }
+
+    private void uploadPart(S3Request request) throws IOException {
+        PendingUpload upload = uploadOrError(request);
+        if (upload == null) return;
+        Integer partNumber = partNumberOrError(request);
+        if (partNumber == null) return;
+
+        byte[] data = request.body();
+        PendingUpload.Part part = new PendingUpload.Part(data, md5Hex(data));
+        upload.parts.put(partNumber, part);
+        request.exchange.getResponseHeaders().set("ETag", quote(part.eTag));
+        send(request.exchange, 200, null);
+    }
+
+    private void uploadPartCopy(S3Request request) throws IOException {
+        PendingUpload upload = uploadOrError(request);
+        if (upload == null) return;
+        Integer partNumber = partNumberOrError(request);
+        if (partNumber == null) return;
+
+        CopySource source = CopySource.parse(request.header("x-amz-copy-source"));
+        StoredObject sourceObject = objectOrError(request, source.bucket, source.key);
+        if (sourceObject == null) return;
+
+        String ifMatch = request.header("x-amz-copy-source-if-match");
+        if (ifMatch != null && !matches(ifMatch, sourceObject.eTag)) {
+            sendError(request, 412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+            return;
+        }
+
+        byte[] data = sourceObject.data;
+        String rangeHeader = request.header("x-amz-copy-source-range");
+        if (rangeHeader != null) {
+            ByteRange range = ByteRange.parse(rangeHeader, data.length);
+            if (range == null || !range.satisfiable() || range.last != range.requestedLast) {
+                sendError(request, 400, "InvalidArgument", "The x-amz-copy-source-range value must be of the form " +
+                        "bytes=first-last where first and last are the zero-based offsets of the first and last bytes to copy");
+                return;
+            }
+            data = Arrays.copyOfRange(data, (int) range.first, (int) range.last + 1);
+        }
+
+        PendingUpload.Part part = new PendingUpload.Part(data, md5Hex(data));
+        upload.parts.put(partNumber, part);
+
+        String response = S3Xml.document("CopyPartResult")
+                .element("LastModified", S3Xml.date(System.currentTimeMillis()))
+                .element("ETag", quote(part.eTag))
+                .end("CopyPartResult");
+        sendXml(request.exchange, 200, response);
+    }
+
+    private void completeMultipartUpload(S3Request request) throws Exception {
+        PendingUpload upload = uploadOrError(request);
+        if (upload == null) return;
+
+        Element complete = S3Xml.parse(request.body()).getDocumentElement();
+        NodeList requestedParts = complete.getElementsByTagName("Part");
+        if (requestedParts.getLength() == 0) {
+            sendError(request, 400, "MalformedXML", "The XML you provided was not well-formed or did not validate against our published schema.");
+            return;
+        }
+
+        // The parts not listed in the request are discarded.
+        List<PendingUpload.Part> parts = new ArrayList<>();
+        int previousPartNumber = 0;
+        for (int i = 0; i < requestedParts.getLength(); i++) {
+            Element requestedPart = (Element) requestedParts.item(i);
+            int partNumber = Integer.parseInt(S3Xml.texts(requestedPart, "PartNumber").get(0).trim());
+            String eTag = unquote(S3Xml.texts(requestedPart, "ETag").get(0));
+            if (partNumber <= previousPartNumber) {
+                sendError(request, 400, "InvalidPartOrder", "The list of parts was not in ascending order.");
+                return;
+            }
+            PendingUpload.Part part = upload.parts.get(partNumber);
+            if (part == null || !part.eTag.equals(eTag)) {
+                sendError(request, 400, "InvalidPart", "One or more of the specified parts could not be found.");
+                return;
+            }
+            parts.add(part);
+            previousPartNumber = partNumber;
+        }
+        for (int i = 0; i < parts.size() - 1; i++) {
+            if (parts.get(i).data.length < MIN_PART_SIZE) {
+                sendError(request, 400, "EntityTooSmall", "Your proposed upload is smaller than the minimum allowed object size.");
+                return;
+            }
+        }
+
+        if (!standIn.uploads().remove(request.parameter("uploadId"), upload)) {
+            sendNoSuchUpload(request);
+            return;
+        }
+
+        // The ETag of a multipart object is the MD5 of the concatenated
+        // binary MD5 of the parts, followed by the number of parts.
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        ByteArrayOutputStream digests = new ByteArrayOutputStream();
+        for (PendingUpload.Part part : parts) {
+            data.write(part.data);
+            digests.write(md5(part.data));
+        }
+        String eTag = md5Hex(digests.toByteArray()) + "-" + parts.size();
+        StoredObject object = new StoredObject(data.toByteArray(), eTag, upload.contentType, upload.userMetadata);
+        standIn.store(upload.bucket, upload.key, object);
+
+        String response = S3Xml.document("CompleteMultipartUploadResult")
+                .element("Location", standIn.endpoint() + request.exchange.getRequestURI().getRawPath())
+                .element("Bucket", upload.bucket)
+                .element("Key", upload.key)
+                .element("ETag", quote(eTag))
+                .end("CompleteMultipartUploadResult");
+        sendXml(request.exchange, 200, response);
+    }
+
+    private void abortMultipartUpload(S3Request request) throws IOException {
+        PendingUpload upload = uploadOrError(request);
+        if (upload == null) return;
+        if (!standIn.uploads().remove(request.parameter("uploadId"), upload)) {
+            sendNoSuchUpload(request);
+            return;
+        }
+        request.exchange.sendResponseHeaders(204, -1);
+    }
+
+    /**
+     * The records are sent in events of at most RECORDS_EVENT_SIZE bytes, followed by the
+     * stats and the end events. The response is chunked: events are sent as they are produced.
+     */
+    private void selectObjectContent(S3Request request) throws Exception {
+        StoredObject object = objectOrError(request, request.bucket, request.key);
+        if (object == null) return;
+
+        SelectQuery query;
+        try {
+            query = SelectQuery.parse(S3Xml.parse(request.body()).getDocumentElement());
+        } catch (IllegalArgumentException exception) {
+            sendError(request, 501, "NotImplemented", exception.getMessage());
+            return;
+        }
+
+        request.exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        request.exchange.sendResponseHeaders(200, 0);
+        try (OutputStream output = request.exchange.getResponseBody()) {
+            ByteArrayOutputStream records = new ByteArrayOutputStream(RECORDS_EVENT_SIZE);
+            SelectQuery.Result result = query.execute(object.data, record -> {
+                records.write(record);
+                if (records.size() >= RECORDS_EVENT_SIZE) {
+                    output.write(EventStream.event("Records", "application/octet-stream", records.toByteArray()));
+                    records.reset();
+                }
+            });
+            if (records.size() > 0) {
+                output.write(EventStream.event("Records", "application/octet-stream", records.toByteArray()));
+            }
+            String stats = S3Xml.document("Stats")
+                    .element("BytesScanned", result.bytesScanned)
+                    .element("BytesProcessed", result.bytesProcessed)
+                    .element("BytesReturned", result.bytesReturned)
+                    .end("Stats");
+            output.write(EventStream.event("Stats", "text/xml", stats.getBytes(StandardCharsets.UTF_8)));
+            output.write(EventStream.event("End", null, new byte[0]));
+        }
+    }
+
+    private void deleteObjects(S3Request request) throws Exception {
+        NavigableMap<String, StoredObject> objects = bucketOrError(request);
+        if (objects == null) return;
+
+        Document document = S3Xml.parse(request.body());
+        Element delete = document.getDocumentElement();
+        boolean quiet = S3Xml.texts(delete, "Quiet").stream().anyMatch("true"::equalsIgnoreCase);
+
+        S3Xml response = S3Xml.document("DeleteResult");
+        NodeList keys = delete.getElementsByTagName("Object");
+        for (int i = 0; i < keys.getLength(); i++) {
+            String key = S3Xml.texts((Element) keys.item(i), "Key").get(0);
+            objects.remove(key);
+            if (!quiet) response.open("Deleted").element("Key", key).close("Deleted");
+        }
+        sendXml(request.exchange, 200, response.end("DeleteResult"));
+    }
+
+    private void listObjectsV2(S3Request request) throws IOException {
+        NavigableMap<String, StoredObject> objects = bucketOrError(request);
+        if (objects == null) return;
+
+        String prefix = Optional.ofNullable(request.parameter("prefix")).orElse("");
+        String delimiter = request.parameter("delimiter");
+        String continuationToken = request.parameter("continuation-token");
+        String startAfter = request.parameter("start-after");
+        int maxKeys = Optional.ofNullable(request.parameter("max-keys")).map(Integer::parseInt).orElse(DEFAULT_MAX_KEYS);
+
+        // The continuation token is the last key (or common prefix) returned in the previous page.
+        String after = continuationToken != null ? decodeToken(continuationToken) : startAfter;
+        NavigableMap<String, StoredObject> candidates = after != null && after.compareTo(prefix) >= 0 ?
+                objects.tailMap(after, false) :
+                objects.tailMap(prefix, true);
+
+        List<Map.Entry<String, StoredObject>> contents = new ArrayList<>();
+        Set<String> commonPrefixes = new TreeSet<>();
+        String lastReturned = null;
+        boolean lastReturnedPrefix = false;
+        boolean truncated = false;
+        for (Map.Entry<String, StoredObject> entry : candidates.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(prefix)) break;
+            String commonPrefix = null;
+            if (delimiter != null && !delimiter.isEmpty()) {
+                int index = key.indexOf(delimiter, prefix.length());
+                if (index >= 0) commonPrefix = key.substring(0, index + delimiter.length());
+            }
+            if (commonPrefix != null && commonPrefix.equals(lastReturned)) continue;
+            if (contents.size() + commonPrefixes.size() >= maxKeys) {
+                truncated = true;
+                break;
+            }
+            if (commonPrefix != null) {
+                commonPrefixes.add(commonPrefix);
+                lastReturned = commonPrefix;
+                lastReturnedPrefix = true;
+            } else {
+                contents.add(entry);
+                lastReturned = key;
+                lastReturnedPrefix = false;
+            }
+        }
+
+        S3Xml response = S3Xml.document("ListBucketResult")
+                .element("Name", request.bucket)
+                .element("Prefix", prefix)
+                .element("Delimiter", delimiter)
+                .element("MaxKeys", maxKeys)
+                .element("KeyCount", contents.size() + commonPrefixes.size())
+                .element("IsTruncated", truncated)
+                .element("ContinuationToken", continuationToken)
+                .element("StartAfter", startAfter);
+        if (truncated) {
+            // A common prefix as token skips all the keys under it in the next page.
+            String token = lastReturnedPrefix ? lastReturned + Character.MAX_VALUE : lastReturned;
+            response.element("NextContinuationToken", encodeToken(token));
+        }
+        for (Map.Entry<String, StoredObject> entry : contents) {
+            response.open("Contents")
+                    .element("Key", entry.getKey())
+                    .element("LastModified", S3Xml.date(entry.getValue().lastModified))
+                    .element("ETag", quote(entry.getValue().eTag))
+                    .element("Size", entry.getValue().data.length)
+                    .element("StorageClass", "STANDARD")
+                    .close("Contents");
+        }
+        for (String commonPrefix : commonPrefixes) {
+            response.open("CommonPrefixes").element("Prefix", commonPrefix).close("CommonPrefixes");
+        }
+        sendXml(request.exchange, 200, response.end("ListBucketResult"));
+    }
+
+    private NavigableMap<String, StoredObject> bucketOrError(S3Request request) throws IOException {
+        NavigableMap<String, StoredObject> objects = standIn.bucket(request.bucket);
+        if (objects == null) {
+            sendError(request, 404, "NoSuchBucket", "The specified bucket does not exist");
+        }
+        return objects;
+    }
+
+    private PendingUpload uploadOrError(S3Request request) throws IOException {
+        PendingUpload upload = standIn.uploads().get(request.parameter("uploadId"));
+        if (upload == null || !upload.bucket.equals(request.bucket) || !upload.key.equals(request.key)) {
+            sendNoSuchUpload(request);
+            return null;
+        }
+        return upload;
+    }
+
+    private Integer partNumberOrError(S3Request request) throws IOException {
+        try {
+            int partNumber = Integer.parseInt(request.parameter("partNumber"));
+            if (partNumber >= 1 && partNumber <= MAX_PART_NUMBER) return partNumber;
+        } catch (NumberFormatException exception) {
+            // Handled below
+        }
+        sendError(request, 400, "InvalidArgument", "Part number must be an integer between 1 and " + MAX_PART_NUMBER + ", inclusive");
+        return null;
+    }
+
+    private static void sendNoSuchUpload(S3Request request) throws IOException {
+        sendError(request, 404, "NoSuchUpload", "The specified multipart upload does not exist. " +
+                "The upload ID might be invalid, or the multipart upload might have been aborted or completed.");
+    }
+
+    private StoredObject objectOrError(S3Request request, String bucket, String key) throws IOException {
+        NavigableMap<String, StoredObject> objects = standIn.bucket(bucket);
+        if (objects == null) {
+            sendError(request, 404, "NoSuchBucket", "The specified bucket does not exist");
+            return null;
+        }
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            sendError(request, 404, "NoSuchKey", "The specified key does not exist.");
+        }
+        return object;
+    }
+
+    private static void writeObjectHeaders(Headers headers, StoredObject object) {
+        headers.set("ETag", quote(object.eTag));
+        headers.set("Last-Modified", S3Xml.httpDate(object.lastModified));
+        headers.set("Content-Type", object.contentType);
+        headers.set("Accept-Ranges", "bytes");
+        object.userMetadata.forEach((name, value) -> headers.set(USER_METADATA_PREFIX + name, value));
+    }
+
+    private static void sendError(S3Request request, int status, String code, String message) throws IOException {
+        sendError(request.exchange, status, code, message, request.requestId);
+    }
+
+    static void sendError(HttpExchange exchange, int status, String code, String message, String requestId) throws IOException {
+        String resource = exchange.getRequestURI().getRawPath();
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            // HEAD responses do not have a body: the SDK uses the status code only.
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        sendXml(exchange, status, S3Xml.error(code, message, resource, requestId));
+    }
+
+    static void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        send(exchange, status, xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body == null || body.length == 0) {
+            // -1: no response body (a length of 0 means chunked encoding).
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * Sends the headers of the whole content but only half of the content: closing the exchange
+     * before the announced length has been written closes the connection.
+     */
+    private static void sendTruncated(HttpExchange exchange, int status, byte[] content) throws IOException {
+        exchange.sendResponseHeaders(status, content.length);
+        OutputStream output = exchange.getResponseBody();
+        output.write(content, 0, content.length / 2);
+        output.flush();
+    }
+
+    static String md5Hex(byte[] data) {
+        byte[] digest = md5(data);
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+
+    private static byte[] md5(byte[] data) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(data);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    static String quote(String eTag) {
+        return "\"" + eTag + "\"";
+    }
+
+    /**
+     * @return true if the ETag is in the list of the ETags of a conditional header ('*' matches any ETag).
+     */
+    static boolean matches(String header, String eTag) {
+        for (String candidate : header.split(",")) {
+            String value = unquote(candidate);
+            if ("*".equals(value) || value.equals(eTag)) return true;
+        }
+        return false;
+    }
+
+    static String unquote(String eTag) {
+        String value = eTag.trim();
+        return value.startsWith("\"") && value.endsWith("\"") && value.length() >= 2 ?
+                value.substring(1, value.length() - 1) :
+                value;
+    }
+
+    private static String encodeToken(String key) {
+        return Base64.getUrlEncoder().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeToken(String token) {
+        return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    }
+
+    static String decode(String value) {
+        try {
+            return URLDecoder.decode(value.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * A single byte range of a 'Range' header (e.g. 'bytes=0-99', 'bytes=100-' or 'bytes=-100').
+     */
+    static class ByteRange {
+
+        final long first;
+        final long last;
+        final long requestedLast;
+
+        private ByteRange(long first, long last, long requestedLast) {
+            this.first = first;
+            this.last = last;
+            this.requestedLast = requestedLast;
+        }
+
+        /**
+         * @return the range, an unsatisfiable range if it does not overlap the object, or null if the
+         * header is missing or not a single byte range: as S3 does, the whole object is then returned.
+         */
+        static ByteRange parse(String header, long length) {
+            if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) return null;
+            String spec = header.substring("bytes=".length()).trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) return null;
+            try {
+                String first = spec.substring(0, dash).trim();
+                String last = spec.substring(dash + 1).trim();
+                if (first.isEmpty()) {
+                    // Suffix range: the last n bytes.
+                    long suffix = Long.parseLong(last);
+                    return new ByteRange(Math.max(0, length - suffix), length - 1, length - 1);
+                }
+                long start = Long.parseLong(first);
+                long end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+                if (end < start) return null;
+                return new ByteRange(start, Math.min(end, length - 1), end);
+            } catch (NumberFormatException exception) {
+                return null;
+            }
+        }
+
+        boolean satisfiable() {
+            return first <= last;
+        }
+    }
+
+    /**
+     * The source of a copy request, from the x-amz-copy-source header (e.g. '/bucket/key?versionId=id').
+     */
+    static class CopySource {
+
+        final String bucket;
+        final String key;
+
+        private CopySource(String bucket, String key) {
+            this.bucket = bucket;
+            this.key = key;
+        }
+
+        static CopySource parse(String header) {
+            String source = header;
+            int query = source.indexOf('?');
+            if (query >= 0) source = source.substring(0, query);
+            source = decode(source);
+            if (source.startsWith("/")) source = source.substring(1);
+            int separator = source.indexOf('/');
+            return new CopySource(source.substring(0, separator), source.substring(separator + 1));
+        }
+    }
+
+    /**
+     * A parsed S3 request: path style addressing, the first path segment is the bucket.
+     */
+    static class S3Request {
+
+        final HttpExchange exchange;
+        final String requestId;
+        final String method;
+        final String bucket;
+        final String key;
+        private final Map<String, String> parameters = new HashMap<>();
+
+        boolean truncateContent;
+
+        S3Request(HttpExchange exchange, String requestId) {
+            this.exchange = exchange;
+            this.requestId = requestId;
+            this.method = exchange.getRequestMethod();
+
+            String path = exchange.getRequestURI().getRawPath();
+            if (path.startsWith("/")) path = path.substring(1);
+            int separator = path.indexOf('/');
+            if (separator < 0 || separator == path.length() - 1) {
+                this.bucket = decode(separator < 0 ? path : path.substring(0, separator));
+                this.key = null;
+            } else {
+                this.bucket = decode(path.substring(0, separator));
+                this.key = decode(path.substring(separator + 1));
+            }
+
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query != null) {
+                for (String parameter : query.split("&")) {
+                    int equals = parameter.indexOf('=');
+                    if (equals < 0) parameters.put(decode(parameter), "");
+                    else parameters.put(decode(parameter.substring(0, equals)), decode(parameter.substring(equals + 1)));
+                }
+            }
+        }
+
+        String parameter(String name) {
+            return parameters.get(name);
+        }
+
+        boolean hasParameter(String name) {
+            return parameters.containsKey(name);
+        }
+
+        String header(String name) {
+            return exchange.getRequestHeaders().getFirst(name);
+        }
+
+        String contentType() {
+            return Optional.ofNullable(header("Content-Type")).orElse("application/octet-stream");
+        }
+
+        Map<String, String> userMetadata() {
+            Map<String, String> metadata = new TreeMap<>();
+            exchange.getRequestHeaders().forEach((name, values) -> {
+                if (name.toLowerCase(Locale.ROOT).startsWith(USER_METADATA_PREFIX) && !values.isEmpty()) {
+                    metadata.put(name.substring(USER_METADATA_PREFIX.length()).toLowerCase(Locale.ROOT), values.get(0));
+                }
+            });
+            return metadata;
+        }
+
+        void discardBody() throws IOException {
+            try (InputStream input = exchange.getRequestBody()) {
+                byte[] buffer = new byte[64 * 1024];
+                while (input.read(buffer) != -1) {
+                    // Discarded
+                }
+            }
+        }
+
+        /**
+         * Reads the request body, decoding the 'aws-chunked' content encoding
+         * used by the SDK for signed streaming uploads over HTTP.
+         */
+        byte[] body() throws IOException {
+            try (InputStream input = exchange.getRequestBody()) {
+                byte[] raw = readAll(input);
+                String sha256 = header("x-amz-content-sha256");
+                return sha256 != null && sha256.startsWith("STREAMING-") ? decodeChunked(raw) : raw;
+            }
+        }
+
+        private static byte[] readAll(InputStream input) throws IOException {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) output.write(buffer, 0, read);
+            return output.toByteArray();
+        }
+
+        // Format of each chunk: <hex size>;chunk-signature=<signature>\r\n<data>\r\n
+        private static byte[] decodeChunked(byte[] raw) {
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream(raw.length);
+            int position = 0;
+            while (position < raw.length) {
+                int lineEnd = position;
+                while (lineEnd < raw.length - 1 && !(raw[lineEnd] == '\r' && raw[lineEnd + 1] == '\n')) lineEnd++;
+                String header = new String(raw, position, lineEnd - position, StandardCharsets.US_ASCII);
+                int semicolon = header.indexOf(';');
+                int size = Integer.parseInt(semicolon < 0 ? header.trim() : header.substring(0, semicolon).trim(), 16);
+                if (size == 0) break;
+                int dataStart = lineEnd + 2;
+                decoded.write(raw, dataStart, size);
+                position = dataStart + size + 2;
+            }
+            return decoded.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.reedelk.aws.s3.benchmark.standin;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process S3 compatible HTTP server storing the objects in memory. It implements
+ * the subset of the S3 REST API used by the components of this module, with path style
+ * addressing only (e.g. http://localhost:port/bucket/key). Requests are not authenticated.
+ * Latency, throttling and errors can be injected with {@link #faults(Faults)}.
+ * The components are wired to the stand-in with the endpoint override of the AWS configuration:
+ * <pre>
+ * configuration.setEndpoint(standIn.endpoint());
+ * configuration.setPathStyleAccess(true);
+ * </pre>
+ */
+public class S3StandIn implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, NavigableMap<String, StoredObject>> buckets = new ConcurrentHashMap<>();
+    private final Map<String, PendingUpload> uploads = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder injectedFaults = new LongAdder();
+    private volatile FaultInjector faultInjector = new FaultInjector(Faults.none());
+
+    private S3StandIn(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    public static S3StandIn start() throws IOException {
+        return start(0);
+    }
+
+    public static S3StandIn start(int port) throws IOException {
+        // Without TCP_NODELAY, the response body written after the headers waits for the
+        // delayed ACK of the client (about 40ms), which dominates the latency of small requests.
+        // The property is read once, when the first server of the JVM is created.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "s3-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        S3StandIn standIn = new S3StandIn(server, executor);
+        server.createContext("/", new S3Handler(standIn));
+        server.setExecutor(executor);
+        server.start();
+        return standIn;
+    }
+
+    public String endpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void createBucket(String bucket) {
+        buckets.computeIfAbsent(bucket, name -> new ConcurrentSkipListMap<>());
+    }
+
+    public void putObject(String bucket, String key, byte[] data) {
+        store(bucket, key, new StoredObject(data, S3Handler.md5Hex(data), "application/octet-stream", Collections.emptyMap()));
+    }
+
+    public Optional<byte[]> getObject(String bucket, String key) {
+        return Optional.ofNullable(bucket(bucket))
+                .map(objects -> objects.get(key))
+                .map(object -> object.data);
+    }
+
+    public int objectCount(String bucket) {
+        NavigableMap<String, StoredObject> objects = bucket(bucket);
+        return objects == null ? 0 : objects.size();
+    }
+
+    /**
+     * @return the number of multipart uploads initiated and not yet completed or aborted.
+     */
+    public int pendingUploadCount() {
+        return uploads.size();
+    }
+
+    /**
+     * Replaces the faults injected into the following requests.
+     */
+    public void faults(Faults faults) {
+        this.faultInjector = new FaultInjector(faults);
+    }
+
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return the number of requests which have been answered with an injected fault.
+     */
+    public long injectedFaultCount() {
+        return injectedFaults.sum();
+    }
+
+    /**
+     * Removes all the buckets, objects and pending uploads, and the injected faults.
+     */
+    public void reset() {
+        buckets.clear();
+        uploads.clear();
+        faults(Faults.none());
+        requests.reset();
+        injectedFaults.reset();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    NavigableMap<String, StoredObject> bucket(String bucket) {
+        return buckets.get(bucket);
+    }
+
+    void store(String bucket, String key, StoredObject object) {
+        buckets.computeIfAbsent(bucket, name -> new ConcurrentSkipListMap<>()).put(key, object);
+    }
+
+    Map<String, PendingUpload> uploads() {
+        return uploads;
+    }
+
+    FaultInjector faultInjector() {
+        return faultInjector;
+    }
+
+    void requestReceived() {
+        requests.increment();
+    }
+
+    void faultInjected() {
+        injectedFaults.increment();
+    }
+}
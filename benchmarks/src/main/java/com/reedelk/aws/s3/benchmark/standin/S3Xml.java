@@ -0,0 +1,100 @@
+package com.reedelk.aws.s3.benchmark.standin;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Rendering of the S3 XML responses and parsing of the S3 XML request bodies.
+ */
+class S3Xml {
+
+    private static final String NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+    private final StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+
+    private S3Xml() {
+    }
+
+    static S3Xml document(String root) {
+        S3Xml document = new S3Xml();
+        document.xml.append('<').append(root).append(" xmlns=\"").append(NAMESPACE).append("\">");
+        return document;
+    }
+
+    S3Xml open(String element) {
+        xml.append('<').append(element).append('>');
+        return this;
+    }
+
+    S3Xml close(String element) {
+        xml.append("</").append(element).append('>');
+        return this;
+    }
+
+    S3Xml element(String element, Object value) {
+        if (value == null) return this;
+        return open(element).text(String.valueOf(value)).close(element);
+    }
+
+    String end(String root) {
+        return close(root).xml.toString();
+    }
+
+    private S3Xml text(String value) {
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '<': xml.append("&lt;"); break;
+                case '>': xml.append("&gt;"); break;
+                case '&': xml.append("&amp;"); break;
+                case '"': xml.append("&quot;"); break;
+                default: xml.append(c);
+            }
+        }
+        return this;
+    }
+
+    static String error(String code, String message, String resource, String requestId) {
+        // Error documents do not have a namespace.
+        S3Xml document = new S3Xml();
+        document.xml.append("<Error>");
+        return document.element("Code", code)
+                .element("Message", message)
+                .element("Resource", resource)
+                .element("RequestId", requestId)
+                .end("Error");
+    }
+
+    static String date(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ROOT);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(millis));
+    }
+
+    static String httpDate(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ROOT);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(millis));
+    }
+
+    static Document parse(byte[] body) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(false);
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(body));
+    }
+
+    static List<String> texts(Element parent, String element) {
+        List<String> values = new ArrayList<>();
+        NodeList nodes = parent.getElementsByTagName(element);
+        for (int i = 0; i < nodes.getLength(); i++) {
+            values.add(nodes.item(i).getTextContent());
+        }
+        return values;
+    }
+}
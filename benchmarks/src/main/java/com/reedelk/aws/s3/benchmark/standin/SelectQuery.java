@@ -0,0 +1,191 @@
+package com.reedelk.aws.s3.benchmark.standin;
+
+import org.w3c.dom.Element;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The subset of S3 Select supported by the stand-in: CSV objects, optionally compressed with GZIP,
+ * queried with expressions of the form {@code SELECT * FROM S3Object [alias] [WHERE alias.column = 'value'] [LIMIT n]}.
+ * The column is either a position (_1, _2, ...) or, when the header is used, a column name.
+ * Quoted fields are not supported, and a condition on an unknown column matches no record. The records are returned as CSV or as JSON, one record per line.
+ */
+class SelectQuery {
+
+    private static final Pattern EXPRESSION = Pattern.compile(
+            "\\s*SELECT\\s+\\*\\s+FROM\\s+S3Object(?:\\s+(?!WHERE\\b|LIMIT\\b)\\w+)?" +
+                    "(?:\\s+WHERE\\s+(?:\\w+\\.)?(\\w+)\\s*=\\s*'([^']*)')?" +
+                    "(?:\\s+LIMIT\\s+(\\d+))?\\s*;?\\s*",
+            Pattern.CASE_INSENSITIVE);
+
+    private final String column;
+    private final String value;
+    private final long limit;
+    private final String headerInfo;
+    private final String inputDelimiter;
+    private final boolean gzip;
+    private final boolean jsonOutput;
+    private final String outputDelimiter;
+
+    private SelectQuery(String column, String value, long limit, String headerInfo, String inputDelimiter,
+                        boolean gzip, boolean jsonOutput, String outputDelimiter) {
+        this.column = column;
+        this.value = value;
+        this.limit = limit;
+        this.headerInfo = headerInfo;
+        this.inputDelimiter = inputDelimiter;
+        this.gzip = gzip;
+        this.jsonOutput = jsonOutput;
+        this.outputDelimiter = outputDelimiter;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the request is outside of the subset supported by the stand-in.
+     */
+    static SelectQuery parse(Element request) {
+        String expression = first(request, "Expression", "");
+        Matcher matcher = EXPRESSION.matcher(expression);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("The expression is not supported by the stand-in: " + expression);
+        }
+
+        Element input = element(request, "InputSerialization");
+        if (input == null || element(input, "CSV") == null) {
+            throw new IllegalArgumentException("Only CSV objects are supported by the stand-in.");
+        }
+        String compression = first(input, "CompressionType", "NONE");
+        if (!"NONE".equalsIgnoreCase(compression) && !"GZIP".equalsIgnoreCase(compression)) {
+            throw new IllegalArgumentException("Compression type not supported by the stand-in: " + compression);
+        }
+        Element csvInput = element(input, "CSV");
+
+        Element output = element(request, "OutputSerialization");
+        Element csvOutput = output != null ? element(output, "CSV") : null;
+        boolean jsonOutput = output != null && element(output, "JSON") != null;
+
+        String limit = matcher.group(3);
+        return new SelectQuery(
+                matcher.group(1),
+                matcher.group(2),
+                limit != null ? Long.parseLong(limit) : -1,
+                first(csvInput, "FileHeaderInfo", "NONE").toUpperCase(),
+                first(csvInput, "FieldDelimiter", ","),
+                "GZIP".equalsIgnoreCase(compression),
+                jsonOutput,
+                csvOutput != null ? first(csvOutput, "FieldDelimiter", ",") : ",");
+    }
+
+    /**
+     * Evaluates the query on the object content.
+     */
+    Result execute(byte[] data, RecordsConsumer consumer) throws IOException {
+        byte[] content = gzip ? gunzip(data) : data;
+        String[] lines = new String(content, StandardCharsets.UTF_8).split("\r?\n");
+
+        String[] names = null;
+        int first = 0;
+        if (!"NONE".equals(headerInfo) && lines.length > 0) {
+            if ("USE".equals(headerInfo)) names = split(lines[0]);
+            first = 1;
+        }
+        int columnIndex = column != null ? columnIndex(names) : -1;
+
+        long returned = 0;
+        long selected = 0;
+        for (int i = first; i < lines.length && (limit < 0 || selected < limit); i++) {
+            if (lines[i].isEmpty()) continue;
+            String[] fields = split(lines[i]);
+            if (columnIndex >= 0 && (columnIndex >= fields.length || !fields[columnIndex].equals(value))) continue;
+            byte[] record = format(fields, names).getBytes(StandardCharsets.UTF_8);
+            consumer.accept(record);
+            returned += record.length;
+            selected++;
+        }
+        return new Result(data.length, content.length, returned);
+    }
+
+    private int columnIndex(String[] names) {
+        if (column.startsWith("_")) {
+            try {
+                return Integer.parseInt(column.substring(1)) - 1;
+            } catch (NumberFormatException exception) {
+                // Not a position: looked up by name below.
+            }
+        }
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(column)) return i;
+            }
+        }
+        // Unknown column: no record matches.
+        return Integer.MAX_VALUE;
+    }
+
+    private String[] split(String line) {
+        return line.split(Pattern.quote(inputDelimiter), -1);
+    }
+
+    private String format(String[] fields, String[] names) {
+        StringBuilder record = new StringBuilder();
+        if (jsonOutput) {
+            record.append('{');
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) record.append(',');
+                String name = names != null && i < names.length ? names[i] : "_" + (i + 1);
+                record.append('"').append(name).append("\":\"").append(fields[i].replace("\"", "\\\"")).append('"');
+            }
+            record.append('}');
+        } else {
+            record.append(String.join(outputDelimiter, fields));
+        }
+        return record.append('\n').toString();
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(data));
+             ByteArrayOutputStream output = new ByteArrayOutputStream(data.length * 4)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) output.write(buffer, 0, read);
+            return output.toByteArray();
+        }
+    }
+
+    private static Element element(Element parent, String name) {
+        return parent.getElementsByTagName(name).getLength() > 0 ?
+                (Element) parent.getElementsByTagName(name).item(0) :
+                null;
+    }
+
+    private static String first(Element parent, String name, String defaultValue) {
+        List<String> values = S3Xml.texts(parent, name);
+        return values.isEmpty() ? defaultValue : values.get(0);
+    }
+
+    @FunctionalInterface
+    interface RecordsConsumer {
+
+        void accept(byte[] record) throws IOException;
+    }
+
+    static class Result {
+
+        final long bytesScanned;
+        final long bytesProcessed;
+        final long bytesReturned;
+
+        Result(long bytesScanned, long bytesProcessed, long bytesReturned) {
+            this.bytesScanned = bytesScanned;
+            this.bytesProcessed = bytesProcessed;
+            this.bytesReturned = bytesReturned;
+        }
+    }
+}
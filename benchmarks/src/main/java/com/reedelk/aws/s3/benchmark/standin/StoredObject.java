@@ -0,0 +1,25 @@
+package com.reedelk.aws.s3.benchmark.standin;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An object stored in the stand-in. Stored objects are immutable:
+ * overwriting a key replaces the whole object.
+ */
+class StoredObject {
+
+    final byte[] data;
+    final String eTag;
+    final String contentType;
+    final long lastModified;
+    final Map<String, String> userMetadata;
+
+    StoredObject(byte[] data, String eTag, String contentType, Map<String, String> userMetadata) {
+        this.data = data;
+        this.eTag = eTag;
+        this.contentType = contentType;
+        this.lastModified = System.currentTimeMillis();
+        this.userMetadata = Collections.unmodifiableMap(userMetadata);
+    }
+}
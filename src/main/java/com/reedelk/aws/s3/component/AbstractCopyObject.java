@@ -0,0 +1,287 @@
+package com.reedelk.aws.s3.component;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.*;
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.CopyObjectAttributes;
+import com.reedelk.aws.s3.internal.commons.NamedThreadFactory;
+import com.reedelk.aws.s3.internal.exception.CopyObjectException;
+import com.reedelk.aws.s3.internal.multipart.MultipartUpload;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.Component;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.reedelk.aws.s3.internal.commons.Messages.CopyObject.*;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNullOrBlank;
+import static java.util.Arrays.asList;
+
+/**
+ * The properties and the copy logic shared by {@link CopyObject} and {@link CopyObjectAsync}.
+ */
+public abstract class AbstractCopyObject implements Component {
+
+    private static final long MB = 1024L * 1024L;
+    private static final int MIN_PART_SIZE = 5; // S3 minimum part size is 5 MB.
+    private static final int DEFAULT_PART_SIZE = 64;
+    private static final int DEFAULT_MULTIPART_THRESHOLD = 128;
+    private static final int DEFAULT_COPY_CONCURRENCY = 4;
+    private static final List<String> COPIED_HEADERS = asList(
+            Headers.CONTENT_TYPE,
+            Headers.CONTENT_ENCODING,
+            Headers.CONTENT_LANGUAGE,
+            Headers.CONTENT_DISPOSITION,
+            Headers.CACHE_CONTROL);
+
+    @DialogTitle("AWS S3 Configuration")
+    @Property("Configuration")
+    @Mandatory
+    private AwsConfiguration configuration;
+
+    @Property("Source Bucket")
+    @Mandatory
+    @Hint("source-bucket")
+    @Example("source-bucket")
+    @Description("The name of the bucket containing the source object to copy.")
+    private DynamicString sourceBucket;
+
+    @Property("Source Key")
+    @Hint("source-key")
+    @Example("source-key")
+    @Description("The key in the source bucket under which the source object is stored.")
+    private DynamicString sourceKey;
+
+    @Property("Destination Bucket")
+    @Mandatory
+    @Hint("destination-bucket")
+    @Example("destination-bucket")
+    @Description("The name of the bucket in which the new object will be created. This can be the same name as the source bucket's.")
+    private DynamicString destinationBucket;
+
+    @Property("Destination Key")
+    @Hint("destination-key")
+    @Example("destination-key")
+    @Description("The key in the destination bucket under which the new object will be created.")
+    private DynamicString destinationKey;
+
+    @Group("Multipart")
+    @Property("Multipart Copy")
+    @DefaultValue("false")
+    @Description("If true, the size of the source object is checked before copying it, and source objects " +
+            "larger than the multipart threshold are copied in multiple parts copied in parallel.")
+    private Boolean multipart;
+
+    @Group("Multipart")
+    @Property("Multipart Threshold (MB)")
+    @Hint("128")
+    @Example("512")
+    @DefaultValue("128")
+    @When(propertyName = "multipart", propertyValue = "true")
+    @Description("The size in megabytes above which source objects are copied using multipart copy.")
+    private Integer multipartThreshold;
+
+    @Group("Multipart")
+    @Property("Part Size (MB)")
+    @Hint("64")
+    @Example("128")
+    @DefaultValue("64")
+    @When(propertyName = "multipart", propertyValue = "true")
+    @Description("The size in megabytes of each copied part. The minimum part size allowed by S3 is 5 MB.")
+    private Integer partSize;
+
+    @Group("Multipart")
+    @Property("Copy Concurrency")
+    @Hint("4")
+    @Example("8")
+    @DefaultValue("4")
+    @When(propertyName = "multipart", propertyValue = "true")
+    @Description("The maximum number of parts copied in parallel by this component.")
+    private Integer copyConcurrency;
+
+    private AmazonS3 s3;
+    private ExecutorService executor;
+    private MultipartUpload multipartUpload;
+
+    abstract ScriptEngineService scriptService();
+
+    @Override
+    public void initialize() {
+        requireNotNull(getClass(), configuration, "S3 configuration is missing. Aws configuration must be provided.");
+        requireNotNullOrBlank(getClass(), sourceBucket, "S3 source bucket name is missing. The source bucket name is mandatory.");
+        requireNotNullOrBlank(getClass(), sourceKey, "S3 source key is missing. The source key is mandatory.");
+        requireNotNullOrBlank(getClass(), destinationBucket, "S3 destination bucket name is missing. The destination bucket name is mandatory.");
+        requireNotNullOrBlank(getClass(), destinationKey, "S3 destination key is missing. The destination key is mandatory.");
+
+        s3 = S3ClientFactory.from(configuration, this);
+
+        if (Boolean.TRUE.equals(multipart)) {
+            int concurrency = Optional.ofNullable(copyConcurrency).orElse(DEFAULT_COPY_CONCURRENCY);
+            executor = Executors.newFixedThreadPool(concurrency, new NamedThreadFactory("s3-copy-part"));
+            multipartUpload = new MultipartUpload(s3, executor);
+        }
+    }
+
+    Message execute(FlowContext flowContext, Message message) {
+
+        String evaluatedSourceBucket = scriptService().evaluate(this.sourceBucket, flowContext, message)
+                .orElseThrow(() -> new CopyObjectException(SOURCE_BUCKET_EMPTY.format(sourceBucket.value())));
+
+        String evaluatedSourceKey = scriptService().evaluate(this.sourceKey, flowContext, message)
+                .orElseThrow(() -> new CopyObjectException(SOURCE_KEY_EMPTY.format(sourceKey.value())));
+
+        String evaluatedDestinationBucket = scriptService().evaluate(this.destinationBucket, flowContext, message)
+                .orElseThrow(() -> new CopyObjectException(DESTINATION_BUCKET_EMPTY.format(destinationBucket.value())));
+
+        String evaluatedDestinationKey = scriptService().evaluate(this.destinationKey, flowContext, message)
+                .orElseThrow(() -> new CopyObjectException(DESTINATION_KEY_EMPTY.format(destinationKey.value())));
+
+        CopyObjectAttributes attributes;
+        try {
+            attributes = multipartUpload != null ?
+                    copyMultipartIfLarge(evaluatedSourceBucket, evaluatedSourceKey, evaluatedDestinationBucket, evaluatedDestinationKey) :
+                    copy(evaluatedSourceBucket, evaluatedSourceKey, evaluatedDestinationBucket, evaluatedDestinationKey);
+        } catch (SdkClientException exception) {
+            String error = COPY_ERROR.format(
+                    evaluatedSourceBucket, evaluatedSourceKey,
+                    evaluatedDestinationBucket, evaluatedDestinationKey,
+                    exception.getMessage());
+            throw new CopyObjectException(error, exception);
+        }
+
+        return MessageBuilder.get(getClass())
+                .withTypedContent(message.content())
+                .attributes(attributes)
+                .build();
+    }
+
+    @Override
+    public void dispose() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        S3ClientFactory.release(configuration, this);
+    }
+
+    public void setConfiguration(AwsConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setSourceBucket(DynamicString sourceBucket) {
+        this.sourceBucket = sourceBucket;
+    }
+
+    public void setSourceKey(DynamicString sourceKey) {
+        this.sourceKey = sourceKey;
+    }
+
+    public void setDestinationBucket(DynamicString destinationBucket) {
+        this.destinationBucket = destinationBucket;
+    }
+
+    public void setDestinationKey(DynamicString destinationKey) {
+        this.destinationKey = destinationKey;
+    }
+
+    public void setMultipart(Boolean multipart) {
+        this.multipart = multipart;
+    }
+
+    public void setMultipartThreshold(Integer multipartThreshold) {
+        this.multipartThreshold = multipartThreshold;
+    }
+
+    public void setPartSize(Integer partSize) {
+        this.partSize = partSize;
+    }
+
+    public void setCopyConcurrency(Integer copyConcurrency) {
+        this.copyConcurrency = copyConcurrency;
+    }
+
+    private CopyObjectAttributes copy(String sourceBucket, String sourceKey, String destinationBucket, String destinationKey) {
+        CopyObjectRequest request = new CopyObjectRequest(sourceBucket, sourceKey, destinationBucket, destinationKey);
+        CopyObjectResult result = s3.copyObject(request);
+        return new CopyObjectAttributes(result);
+    }
+
+    private CopyObjectAttributes copyMultipartIfLarge(String sourceBucket, String sourceKey, String destinationBucket, String destinationKey) {
+        ObjectMetadata sourceMetadata = s3.getObjectMetadata(sourceBucket, sourceKey);
+        long sourceSize = sourceMetadata.getContentLength();
+        long threshold = Optional.ofNullable(multipartThreshold).orElse(DEFAULT_MULTIPART_THRESHOLD) * MB;
+        if (sourceSize <= threshold) {
+            return copy(sourceBucket, sourceKey, destinationBucket, destinationKey);
+        }
+
+        InitiateMultipartUploadRequest request =
+                new InitiateMultipartUploadRequest(destinationBucket, destinationKey, destinationMetadataOf(sourceMetadata))
+                        .withStorageClass(sourceMetadata.getStorageClass())
+                        .withTagging(sourceTaggingOf(sourceBucket, sourceKey, sourceMetadata));
+        if (SSEAlgorithm.KMS.getAlgorithm().equals(sourceMetadata.getSSEAlgorithm())) {
+            request.withSSEAwsKeyManagementParams(new SSEAwsKeyManagementParams(sourceMetadata.getSSEAwsKmsKeyId()));
+        }
+
+        String sourceETag = sourceMetadata.getETag();
+        long partSizeBytes = Math.max(MIN_PART_SIZE, Optional.ofNullable(partSize).orElse(DEFAULT_PART_SIZE)) * MB;
+
+        CompleteMultipartUploadResult result = multipartUpload.execute(request, sourceSize, partSizeBytes, part -> {
+            CopyPartRequest partRequest = new CopyPartRequest()
+                    .withSourceBucketName(sourceBucket)
+                    .withSourceKey(sourceKey)
+                    .withDestinationBucketName(destinationBucket)
+                    .withDestinationKey(destinationKey)
+                    .withUploadId(part.uploadId())
+                    .withPartNumber(part.partNumber())
+                    .withFirstByte(part.offset())
+                    .withLastByte(part.lastByte())
+                    .withMatchingETagConstraint(sourceETag);
+            CopyPartResult partResult = s3.copyPart(partRequest);
+            if (partResult == null) {
+                // The SDK returns null when the constraints are not satisfied.
+                throw new SdkClientException("The source object has been modified while being copied (ETag " + sourceETag + " does not match).");
+            }
+            return partResult.getPartETag();
+        });
+
+        // Unlike a single copy request, completing a multipart upload does not return the last modified date.
+        ObjectMetadata destinationMetadata =
+                s3.getObjectMetadata(new GetObjectMetadataRequest(destinationBucket, destinationKey, result.getVersionId()));
+        return new CopyObjectAttributes(result, destinationMetadata.getLastModified());
+    }
+
+    // Tags are read only if the source object has any: the tagging count is returned by the HEAD request.
+    private ObjectTagging sourceTaggingOf(String sourceBucket, String sourceKey, ObjectMetadata sourceMetadata) {
+        Object taggingCount = sourceMetadata.getRawMetadataValue(Headers.S3_TAGGING_COUNT);
+        if (taggingCount == null || "0".equals(taggingCount.toString())) return null;
+        GetObjectTaggingResult tagging = s3.getObjectTagging(new GetObjectTaggingRequest(sourceBucket, sourceKey));
+        return new ObjectTagging(tagging.getTagSet());
+    }
+
+    // A single copy request copies the source metadata, a multipart copy must set it explicitly on the destination.
+    private static ObjectMetadata destinationMetadataOf(ObjectMetadata sourceMetadata) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        // Headers missing on the source must not be set: the SDK rejects null header values.
+        for (String header : COPIED_HEADERS) {
+            Object value = sourceMetadata.getRawMetadataValue(header);
+            if (value != null) metadata.setHeader(header, value);
+        }
+        if (sourceMetadata.getHttpExpiresDate() != null) {
+            metadata.setHttpExpiresDate(sourceMetadata.getHttpExpiresDate());
+        }
+        metadata.setUserMetadata(sourceMetadata.getUserMetadata());
+        if (SSEAlgorithm.AES256.getAlgorithm().equals(sourceMetadata.getSSEAlgorithm())) {
+            metadata.setSSEAlgorithm(SSEAlgorithm.AES256.getAlgorithm());
+        }
+        return metadata;
+    }
+}
@@ -0,0 +1,516 @@
+package com.reedelk.aws.s3.component;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.DownloadObjectAttributes;
+import com.reedelk.aws.s3.internal.cache.CacheKey;
+import com.reedelk.aws.s3.internal.cache.DiskCache;
+import com.reedelk.aws.s3.internal.cache.MemoryCache;
+import com.reedelk.aws.s3.internal.commons.NamedThreadFactory;
+import com.reedelk.aws.s3.internal.commons.SingleFlight;
+import com.reedelk.aws.s3.internal.download.DeferredObjectSource;
+import com.reedelk.aws.s3.internal.download.DownloadKey;
+import com.reedelk.aws.s3.internal.download.DownloadedObject;
+import com.reedelk.aws.s3.internal.download.HedgedDownload;
+import com.reedelk.aws.s3.internal.download.ObjectSource;
+import com.reedelk.aws.s3.internal.download.RangedDownload;
+import com.reedelk.aws.s3.internal.download.SingleObjectSource;
+import com.reedelk.aws.s3.internal.exception.DownloadObjectException;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.Component;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageAttributes;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.MimeType;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.reedelk.aws.s3.internal.commons.Messages.DownloadObject.*;
+import static java.util.Collections.singletonList;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNullOrBlank;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+import static com.reedelk.runtime.api.commons.DynamicValueUtils.isNotNullOrBlank;
+
+/**
+ * The properties and the download logic of {@link DownloadObject} and {@link DownloadObjectAsync}:
+ * the two components only differ in the thread on which the download is executed.
+ */
+public abstract class AbstractDownloadObject implements Component {
+
+    private static final int KB = 1024;
+    private static final long MB = 1024L * 1024L;
+    private static final int DEFAULT_CHUNK_SIZE = 64;
+    private static final int DEFAULT_RANGE_SIZE = 8;
+    private static final int DEFAULT_RANGE_CONCURRENCY = 4;
+    private static final int DEFAULT_CACHE_SIZE = 512;
+    private static final int DEFAULT_HEDGE_DELAY = 100;
+    private static final int HEDGE_THREADS = 32;
+
+    @DialogTitle("AWS S3 Configuration")
+    @Property("Configuration")
+    @Mandatory
+    private AwsConfiguration configuration;
+
+    @Property("Bucket Name")
+    @Hint("my-bucket")
+    @Example("my-bucket")
+    @Mandatory
+    @Description("The name of the bucket containing the desired object.")
+    private DynamicString bucket;
+
+    @Property("Key")
+    @Hint("my-key")
+    @Example("my-key")
+    @Description("The key under which the desired object is stored.")
+    private DynamicString key;
+
+    @Group("Advanced")
+    @Property("Version Id")
+    @Hint("3HL4kqtJlcpXroDTDmJ+rmSpXd3dIbrHY+MTRCxf3vjVBH40Nr8X8gdRQBpUMLUo")
+    @Example("3HL4kqtJlcpXroDTDmJ+rmSpXd3dIbrHY+MTRCxf3vjVBH40Nr8X8gdRQBpUMLUo")
+    @Description("The optional version id of the desired object. If empty, the latest version is downloaded.")
+    private DynamicString versionId;
+
+    @Property("Output")
+    @Example("STREAM")
+    @DefaultValue("BYTE_ARRAY")
+    @Description("Sets how the object data is returned: as a byte array fully loaded in memory, " +
+            "as a stream of byte array chunks read from S3 on demand or written to a file.")
+    private DownloadOutput output;
+
+    @Property("Destination Path")
+    @Hint("/data/downloads/my-object")
+    @Example("/data/downloads/report.csv")
+    @When(propertyName = "output", propertyValue = "FILE")
+    @Description("The path of the file the object is written to. Missing parent directories are created " +
+            "and an existing file is replaced. The file is written under a temporary name and renamed when complete, " +
+            "therefore a partially downloaded object is never visible at the destination path.")
+    private DynamicString destinationPath;
+
+    @Group("Advanced")
+    @Property("Stream Chunk Size (KB)")
+    @Hint("64")
+    @Example("256")
+    @DefaultValue("64")
+    @When(propertyName = "output", propertyValue = "STREAM")
+    @Description("The size in kilobytes of each chunk of the stream. " +
+            "At most one chunk per in-flight download is read ahead of the consumer.")
+    private Integer chunkSize;
+
+    @Group("Advanced")
+    @Property("Coalesce Downloads")
+    @DefaultValue("false")
+    @Description("If true and the output is 'Byte Array', concurrent downloads of the same object " +
+            "(from any component using the same AWS configuration) share a single S3 request. " +
+            "Each message receives its own copy of the downloaded byte array.")
+    private Boolean coalesceDownloads;
+
+    @Group("Ranged Download")
+    @Property("Ranged Download")
+    @DefaultValue("false")
+    @Description("If true, objects larger than the range size are downloaded " +
+            "by fetching multiple byte ranges in parallel.")
+    private Boolean rangedDownload;
+
+    @Group("Ranged Download")
+    @Property("Range Size (MB)")
+    @Hint("8")
+    @Example("16")
+    @DefaultValue("8")
+    @When(propertyName = "rangedDownload", propertyValue = "true")
+    @Description("The size in megabytes of each byte range. When the output is 'Stream', " +
+            "each range is emitted as a single chunk.")
+    private Integer rangeSize;
+
+    @Group("Ranged Download")
+    @Property("Range Concurrency")
+    @Hint("4")
+    @Example("8")
+    @DefaultValue("4")
+    @When(propertyName = "rangedDownload", propertyValue = "true")
+    @Description("The maximum number of byte ranges fetched in parallel by this component.")
+    private Integer rangeConcurrency;
+
+    @Group("Cache")
+    @Property("Disk Cache")
+    @DefaultValue("false")
+    @Description("If true, downloaded objects are cached on the local disk. A cached object is revalidated " +
+            "at each download with a conditional GET on its ETag: if it has not changed, S3 does not send its content again. " +
+            "Objects downloaded by version id are never revalidated, since a version never changes. " +
+            "When the disk cache is enabled, objects are not downloaded in ranges.")
+    private Boolean cache;
+
+    @Group("Cache")
+    @Property("Cache Directory")
+    @Hint("/var/cache/reedelk/s3")
+    @Example("/var/cache/reedelk/s3")
+    @When(propertyName = "cache", propertyValue = "true")
+    @Description("The directory where the cached objects are stored. The directory must be used by this component only. " +
+            "If empty, a temporary directory is used and removed when the component is disposed.")
+    private String cacheDirectory;
+
+    @Group("Cache")
+    @Property("Cache Size (MB)")
+    @Hint("512")
+    @Example("1024")
+    @DefaultValue("512")
+    @When(propertyName = "cache", propertyValue = "true")
+    @Description("The maximum size in megabytes of the cached objects. When the size is exceeded, " +
+            "the least recently used objects are removed. Objects larger than this size are not cached.")
+    private Integer cacheSize;
+
+    @Group("Hedging")
+    @Property("Hedged Requests")
+    @DefaultValue("false")
+    @Description("If true, a duplicate GET request is sent when the response to the first one has not been received " +
+            "within the hedge delay. The first response received is used and the other one is aborted. " +
+            "Hedged requests are not used when ranged download or disk cache are enabled.")
+    private Boolean hedgedRequests;
+
+    @Group("Hedging")
+    @Property("Hedge Delay (ms)")
+    @Hint("100")
+    @Example("50")
+    @DefaultValue("100")
+    @When(propertyName = "hedgedRequests", propertyValue = "true")
+    @Description("The time in milliseconds to wait for the response before sending the duplicate request. " +
+            "If a latency percentile is set, this delay is used only until enough downloads have been measured.")
+    private Integer hedgeDelay;
+
+    @Group("Hedging")
+    @Property("Hedge Latency Percentile")
+    @Hint("95")
+    @Example("99")
+    @When(propertyName = "hedgedRequests", propertyValue = "true")
+    @Description("If set, the hedge delay is the given percentile of the latencies of the most recent downloads, " +
+            "so that only the slowest requests are duplicated. For example, with 95 at most about 5% of the requests are sent twice. " +
+            "The percentile must be greater than 0 and less than 100.")
+    private Integer hedgePercentile;
+
+    private AmazonS3 s3;
+    private ExecutorService executor;
+    private Scheduler scheduler;
+    private RangedDownload ranged;
+    private DiskCache diskCache;
+    private boolean temporaryCacheDirectory;
+    private MemoryCache memoryCache;
+    private SingleFlight<DownloadKey, DownloadedObject> downloads;
+    private HedgedDownload hedged;
+
+    // Services are injected in the concrete components: DS annotations are not inherited.
+    abstract ScriptEngineService scriptService();
+
+    @Override
+    public void initialize() {
+        requireNotNull(getClass(), configuration, "S3 configuration is missing. Aws configuration must be provided.");
+        requireNotNullOrBlank(getClass(), bucket, "S3 bucket name is missing. The bucket name is mandatory.");
+        requireNotNullOrBlank(getClass(), key, "S3 key is missing. The key is mandatory.");
+        if (DownloadOutput.FILE.equals(output)) {
+            requireNotNullOrBlank(getClass(), destinationPath, "Destination path is missing. The destination path is mandatory when the output is 'File'.");
+        }
+
+        s3 = S3ClientFactory.from(configuration, this);
+
+        if (output == null || DownloadOutput.BYTE_ARRAY.equals(output)) {
+            memoryCache = S3ClientFactory.memoryCacheOf(this).orElse(null);
+            if (Boolean.TRUE.equals(coalesceDownloads)) {
+                downloads = S3ClientFactory.downloadsOf(this);
+            }
+        }
+
+        if (Boolean.TRUE.equals(cache)) {
+            diskCache = createDiskCache();
+        } else if (Boolean.TRUE.equals(rangedDownload)) {
+            int concurrency = Optional.ofNullable(rangeConcurrency).orElse(DEFAULT_RANGE_CONCURRENCY);
+            long rangeSizeBytes = Optional.ofNullable(rangeSize).orElse(DEFAULT_RANGE_SIZE) * MB;
+            executor = Executors.newFixedThreadPool(concurrency, new NamedThreadFactory("s3-download-range"));
+            scheduler = Schedulers.fromExecutorService(executor);
+            ranged = new RangedDownload(s3, executor, scheduler, rangeSizeBytes, concurrency);
+        } else if (Boolean.TRUE.equals(hedgedRequests)) {
+            requireTrue(getClass(), hedgePercentile == null || (hedgePercentile > 0 && hedgePercentile < 100),
+                    "Hedge latency percentile must be greater than 0 and less than 100.");
+            int delay = Optional.ofNullable(hedgeDelay).orElse(DEFAULT_HEDGE_DELAY);
+            // Bounded: when all the threads are busy, requests are not hedged (see HedgedDownload).
+            executor = new ThreadPoolExecutor(0, HEDGE_THREADS, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), new NamedThreadFactory("s3-download-hedge"));
+            hedged = new HedgedDownload(s3, executor, delay, hedgePercentile);
+        }
+    }
+
+    Message execute(FlowContext flowContext, Message message) {
+
+        String evaluatedBucket = scriptService().evaluate(this.bucket, flowContext, message)
+                .orElseThrow(() -> new DownloadObjectException(BUCKET_NAME_EMPTY.format(bucket.value())));
+
+        String evaluatedKey = scriptService().evaluate(this.key, flowContext, message)
+                .orElseThrow(() -> new DownloadObjectException(KEY_EMPTY.format(key.value())));
+
+        GetObjectRequest request = new GetObjectRequest(evaluatedBucket, evaluatedKey);
+
+        if (isNotNullOrBlank(versionId)) {
+            scriptService().evaluate(this.versionId, flowContext, message)
+                    .ifPresent(request::withVersionId);
+        }
+
+        CacheKey cacheKey = new CacheKey(evaluatedBucket, evaluatedKey, request.getVersionId());
+
+        if (DownloadOutput.STREAM.equals(output)) {
+            // Only the metadata is requested here: the content is requested when the stream
+            // is consumed, so that a payload never consumed does not hold an open connection.
+            ObjectSource source;
+            try {
+                ObjectMetadata metadata = s3.getObjectMetadata(
+                        new GetObjectMetadataRequest(evaluatedBucket, evaluatedKey, request.getVersionId()));
+                request.withMatchingETagConstraint(metadata.getETag());
+                source = new DeferredObjectSource(metadata, () -> open(cacheKey, request));
+            } catch (SdkClientException exception) {
+                String error = DOWNLOAD_ERROR.format(evaluatedBucket, evaluatedKey, exception.getMessage());
+                throw new DownloadObjectException(error, exception);
+            }
+
+            ObjectMetadata objectMetadata = source.metadata();
+            MimeType mimeType = MimeType.parse(objectMetadata.getContentType(), MimeType.UNKNOWN);
+            MessageAttributes attributes = new DownloadObjectAttributes(objectMetadata);
+            int chunkSizeBytes = Optional.ofNullable(chunkSize).orElse(DEFAULT_CHUNK_SIZE) * KB;
+            return MessageBuilder.get(getClass())
+                    .attributes(attributes)
+                    .withBinary(source.asStream(chunkSizeBytes), mimeType)
+                    .build();
+        }
+
+        if (DownloadOutput.FILE.equals(output)) {
+            String evaluatedPath = scriptService().evaluate(this.destinationPath, flowContext, message)
+                    .orElseThrow(() -> new DownloadObjectException(DESTINATION_PATH_EMPTY.format(destinationPath.value())));
+
+            Path file = Paths.get(evaluatedPath);
+            ObjectMetadata objectMetadata;
+            try {
+                objectMetadata = downloadToFile(cacheKey, request, file);
+            } catch (IOException | SdkClientException exception) {
+                String error = DOWNLOAD_ERROR.format(evaluatedBucket, evaluatedKey, exception.getMessage());
+                throw new DownloadObjectException(error, exception);
+            }
+
+            MessageAttributes attributes = new DownloadObjectAttributes(objectMetadata);
+            return MessageBuilder.get(getClass())
+                    .attributes(attributes)
+                    .withString(file.toString(), MimeType.TEXT_PLAIN)
+                    .build();
+        }
+
+        DownloadedObject downloaded;
+        Optional<MemoryCache.Entry> cached = memoryCache != null ? memoryCache.get(cacheKey) : Optional.empty();
+        if (cached.isPresent()) {
+            downloaded = new DownloadedObject(cached.get().metadata(), cached.get().data());
+        } else {
+            try {
+                downloaded = downloads != null ?
+                        downloads.execute(new DownloadKey(cacheKey, output, request), () -> download(cacheKey, request)) :
+                        download(cacheKey, request);
+            } catch (IOException | SdkClientException exception) {
+                String error = DOWNLOAD_ERROR.format(evaluatedBucket, evaluatedKey, exception.getMessage());
+                throw new DownloadObjectException(error, exception);
+            }
+        }
+
+        ObjectMetadata objectMetadata = downloaded.metadata();
+        MimeType mimeType = MimeType.parse(objectMetadata.getContentType(), MimeType.UNKNOWN);
+        MessageAttributes attributes = new DownloadObjectAttributes(objectMetadata);
+        return MessageBuilder.get(getClass())
+                .attributes(attributes)
+                .withBinary(downloaded.data(), mimeType)
+                .build();
+    }
+
+    @Override
+    public void dispose() {
+        if (scheduler != null) {
+            scheduler.dispose();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (diskCache != null && temporaryCacheDirectory) {
+            diskCache.clear();
+        }
+        S3ClientFactory.release(configuration, this);
+    }
+
+    public void setConfiguration(AwsConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setBucket(DynamicString bucket) {
+        this.bucket = bucket;
+    }
+
+    public void setKey(DynamicString key) {
+        this.key = key;
+    }
+
+    public void setVersionId(DynamicString versionId) {
+        this.versionId = versionId;
+    }
+
+    public void setOutput(DownloadOutput output) {
+        this.output = output;
+    }
+
+    public void setDestinationPath(DynamicString destinationPath) {
+        this.destinationPath = destinationPath;
+    }
+
+    public void setChunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setCoalesceDownloads(Boolean coalesceDownloads) {
+        this.coalesceDownloads = coalesceDownloads;
+    }
+
+    public void setRangedDownload(Boolean rangedDownload) {
+        this.rangedDownload = rangedDownload;
+    }
+
+    public void setRangeSize(Integer rangeSize) {
+        this.rangeSize = rangeSize;
+    }
+
+    public void setRangeConcurrency(Integer rangeConcurrency) {
+        this.rangeConcurrency = rangeConcurrency;
+    }
+
+    public void setHedgedRequests(Boolean hedgedRequests) {
+        this.hedgedRequests = hedgedRequests;
+    }
+
+    public void setHedgeDelay(Integer hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    public void setHedgePercentile(Integer hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public void setCache(Boolean cache) {
+        this.cache = cache;
+    }
+
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public void setCacheSize(Integer cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    private DownloadedObject download(CacheKey cacheKey, GetObjectRequest request) throws IOException {
+        ObjectSource source = open(cacheKey, request);
+        DownloadedObject downloaded = new DownloadedObject(source.metadata(), source.asByteArray());
+        if (memoryCache != null) {
+            memoryCache.put(cacheKey, downloaded.data(), downloaded.metadata());
+        }
+        return downloaded;
+    }
+
+    private ObjectMetadata downloadToFile(CacheKey cacheKey, GetObjectRequest request, Path file) throws IOException {
+        Path target = file.toAbsolutePath();
+        Files.createDirectories(target.getParent());
+
+        // Written next to the target, so that the complete file can be atomically renamed.
+        Path temporary = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".part");
+        try {
+            ObjectSource source = open(cacheKey, request);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                source.writeTo(channel);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return source.metadata();
+        } catch (IOException | RuntimeException exception) {
+            Files.deleteIfExists(temporary);
+            throw exception;
+        }
+    }
+
+    private ObjectSource open(CacheKey cacheKey, GetObjectRequest request) throws IOException {
+        if (diskCache != null) {
+            return openCached(cacheKey, request);
+        } else if (ranged != null) {
+            return ranged.open(request);
+        } else if (hedged != null) {
+            return SingleObjectSource.of(hedged.getObject(request), request);
+        } else {
+            return SingleObjectSource.of(s3.getObject(request), request);
+        }
+    }
+
+    private ObjectSource openCached(CacheKey cacheKey, GetObjectRequest request) throws IOException {
+        Optional<DiskCache.Entry> cached = diskCache.get(cacheKey);
+        if (cached.isPresent()) {
+            String eTag = cached.get().eTag();
+            List<String> matching = request.getMatchingETagConstraints();
+            if (cacheKey.hasVersionId() || matching.contains(eTag)) {
+                // A version of an object never changes, and a matching ETag
+                // constraint already pins the content: no need to revalidate.
+                Optional<ObjectSource> source = diskCache.open(cacheKey, eTag);
+                if (source.isPresent()) return source.get();
+
+            } else if (matching.isEmpty()) {
+                // The request is cloned, so that the revalidation constraint is not added to the original request.
+                GetObjectRequest revalidation = (GetObjectRequest) request.clone();
+                revalidation.setNonmatchingETagConstraints(new ArrayList<>(singletonList(eTag)));
+                S3Object object = s3.getObject(revalidation);
+                if (object != null) return diskCache.put(cacheKey, object);
+
+                // The ETag constraint was not met (304 Not Modified): the cached content is still valid,
+                // unless the entry has been evicted in the meantime.
+                Optional<ObjectSource> source = diskCache.open(cacheKey, eTag);
+                if (source.isPresent()) return source.get();
+            }
+        }
+        return diskCache.put(cacheKey, SingleObjectSource.requireMatching(s3.getObject(request), request));
+    }
+
+    private DiskCache createDiskCache() {
+        long maxBytes = Optional.ofNullable(cacheSize).orElse(DEFAULT_CACHE_SIZE) * MB;
+        Path directory = null;
+        try {
+            if (cacheDirectory != null && !cacheDirectory.trim().isEmpty()) {
+                directory = Paths.get(cacheDirectory);
+            } else {
+                directory = Files.createTempDirectory("reedelk-s3-cache");
+                temporaryCacheDirectory = true;
+            }
+            return new DiskCache(directory, maxBytes);
+        } catch (IOException exception) {
+            String error = CACHE_ERROR.format(directory, exception.getMessage());
+            throw new DownloadObjectException(error, exception);
+        }
+    }
+}
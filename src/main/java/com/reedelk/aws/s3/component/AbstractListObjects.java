@@ -0,0 +1,238 @@
+package com.reedelk.aws.s3.component;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.ListObjectsAttributes;
+import com.reedelk.aws.s3.internal.commons.Messages;
+import com.reedelk.aws.s3.internal.commons.NamedThreadFactory;
+import com.reedelk.aws.s3.internal.exception.ListObjectsException;
+import com.reedelk.aws.s3.internal.exception.UploadObjectException;
+import com.reedelk.aws.s3.internal.list.PagedListing;
+import com.reedelk.aws.s3.internal.list.PartitionedListing;
+import com.reedelk.aws.s3.internal.type.ListOfSummaryObject;
+import com.reedelk.aws.s3.internal.type.SummaryObject;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.Component;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.reedelk.aws.s3.internal.commons.Messages.ListObjects.LIST_ERROR;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNullOrBlank;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+import static com.reedelk.runtime.api.commons.DynamicValueUtils.isNotNullOrBlank;
+
+/**
+ * The properties and the listing logic shared by {@link ListObjects} and {@link ListObjectsAsync}.
+ */
+public abstract class AbstractListObjects implements Component {
+
+    private static final String DEFAULT_DELIMITER = "/";
+    private static final int DEFAULT_LISTING_CONCURRENCY = 8;
+    // Each listing prefetches at most one page at a time: listings running
+    // concurrently above this number wait for a thread to prefetch their next page.
+    private static final int PREFETCH_THREADS = 4;
+
+    @DialogTitle("AWS S3 Configuration")
+    @Property("Configuration")
+    @Mandatory
+    private AwsConfiguration configuration;
+
+    @Property("Bucket Name")
+    @Hint("my-bucket")
+    @Example("my-bucket")
+    @Mandatory
+    @Description("The name of an existing bucket, to which you have Permission.Read permission.")
+    private DynamicString bucket;
+
+    @Property("Prefix")
+    @Hint("my-folder/")
+    @Example("my-folder/")
+    @Description("Sets the optional prefix parameter restricting the response to keys that begin with the specified prefix.")
+    private DynamicString prefix;
+
+    @Property("Listing Mode")
+    @Example("ALL_PAGES")
+    @DefaultValue("SINGLE_PAGE")
+    @Description("If 'Single Page', a single page of results is returned and the 'nextContinuationToken' attribute " +
+            "must be used to fetch the following pages. If 'All Pages', all the pages are fetched and returned as a stream.")
+    private ListingMode mode;
+
+    @Property("Partition Delimiter")
+    @Hint("/")
+    @Example("/")
+    @DefaultValue("/")
+    @When(propertyName = "mode", propertyValue = "PARALLEL")
+    @Description("The delimiter used to discover the common prefixes used as partitions of the parallel listing.")
+    private String delimiter;
+
+    @Property("Listing Concurrency")
+    @Hint("8")
+    @Example("16")
+    @DefaultValue("8")
+    @When(propertyName = "mode", propertyValue = "PARALLEL")
+    @Description("The maximum number of partitions listed in parallel by this component.")
+    private Integer listingConcurrency;
+
+    @Property("Ordered Results")
+    @DefaultValue("false")
+    @When(propertyName = "mode", propertyValue = "PARALLEL")
+    @Description("If true, the objects are returned in the same lexicographical order of a sequential listing. " +
+            "If false, the objects are returned as soon as they are listed, regardless of the partition they belong to.")
+    private Boolean orderedResults;
+
+    @Group("Advanced")
+    @Property("Max Keys")
+    @Hint("20")
+    @Example("50")
+    @Description("Sets the optional maxKeys parameter indicating the maximum number of keys to return. " +
+            "If the listing mode is 'All Pages', it is the maximum number of keys of each page.")
+    private Integer maxKeys;
+
+    @Group("Advanced")
+    @Property("Continuation Token")
+    @Hint("my-continuation-token")
+    @Example("my-continuation-token")
+    @Description("Sets the optional continuation token. " +
+            "The continuation token is returned as attribute in the first call to this component when paging. " +
+            "It cannot be used with the 'Parallel' listing mode.")
+    private DynamicString continuationToken;
+
+    private AmazonS3 s3;
+    private ExecutorService executor;
+
+    abstract ScriptEngineService scriptService();
+
+    @Override
+    public void initialize() {
+        requireNotNull(getClass(), configuration, "S3 configuration is missing. Aws configuration must be provided.");
+        requireNotNullOrBlank(getClass(), bucket, "S3 bucket name is missing. The bucket name is mandatory.");
+        requireTrue(getClass(), !ListingMode.PARALLEL.equals(mode) || !isNotNullOrBlank(continuationToken),
+                "Continuation token is not supported by the 'Parallel' listing mode.");
+
+        s3 = S3ClientFactory.from(configuration, this);
+
+        if (ListingMode.ALL_PAGES.equals(mode)) {
+            executor = Executors.newFixedThreadPool(PREFETCH_THREADS, new NamedThreadFactory("s3-list-prefetch"));
+        } else if (ListingMode.PARALLEL.equals(mode)) {
+            executor = Executors.newFixedThreadPool(listingConcurrency(), new NamedThreadFactory("s3-list-partition"));
+        }
+    }
+
+    Message execute(FlowContext flowContext, Message message) {
+
+        String evaluatedBucket = scriptService().evaluate(this.bucket, flowContext, message)
+                .orElseThrow(() -> new UploadObjectException(Messages.ListObjects.BUCKET_NAME_EMPTY.format(bucket.value())));
+
+        ListObjectsV2Request request = new ListObjectsV2Request();
+        request.withBucketName(evaluatedBucket);
+
+        if (isNotNullOrBlank(continuationToken)) {
+            scriptService().evaluate(this.continuationToken, flowContext, message)
+                    .ifPresent(request::withContinuationToken);
+        }
+
+        if (isNotNullOrBlank(prefix)) {
+            scriptService().evaluate(this.prefix, flowContext, message)
+                    .ifPresent(request::withPrefix);
+        }
+
+        if (maxKeys != null) request.withMaxKeys(maxKeys);
+
+        if (ListingMode.ALL_PAGES.equals(mode) || ListingMode.PARALLEL.equals(mode)) {
+            Flux<S3ObjectSummary> objectSummaries = ListingMode.PARALLEL.equals(mode) ?
+                    PartitionedListing.summaries(s3, request,
+                            Optional.ofNullable(delimiter).orElse(DEFAULT_DELIMITER),
+                            executor,
+                            listingConcurrency(),
+                            Boolean.TRUE.equals(orderedResults)) :
+                    PagedListing.pages(s3, request, executor)
+                            .concatMapIterable(ListObjectsV2Result::getObjectSummaries, 1);
+
+            Flux<SummaryObject> summaries = objectSummaries.map(SummaryObject::new);
+
+            return MessageBuilder.get(getClass())
+                    .withStream(summaries, SummaryObject.class)
+                    .attributes(ListObjectsAttributes.allPages())
+                    .build();
+        }
+
+        ListObjectsV2Result result;
+        try {
+            result = s3.listObjectsV2(request);
+        } catch (SdkClientException exception) {
+            String error = LIST_ERROR.format(evaluatedBucket, exception.getMessage());
+            throw new ListObjectsException(error, exception);
+        }
+
+        List<S3ObjectSummary> objects = result.getObjectSummaries();
+        ListOfSummaryObject summaryObjects = new ListOfSummaryObject(objects);
+        ListObjectsAttributes attributes = new ListObjectsAttributes(result);
+
+        return MessageBuilder.get(getClass())
+                .withJavaObject(summaryObjects)
+                .attributes(attributes)
+                .build();
+    }
+
+    @Override
+    public void dispose() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        S3ClientFactory.release(configuration, this);
+    }
+
+    public void setConfiguration(AwsConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setBucket(DynamicString bucket) {
+        this.bucket = bucket;
+    }
+
+    public void setPrefix(DynamicString prefix) {
+        this.prefix = prefix;
+    }
+
+    public void setMode(ListingMode mode) {
+        this.mode = mode;
+    }
+
+    public void setDelimiter(String delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    public void setListingConcurrency(Integer listingConcurrency) {
+        this.listingConcurrency = listingConcurrency;
+    }
+
+    public void setOrderedResults(Boolean orderedResults) {
+        this.orderedResults = orderedResults;
+    }
+
+    public void setContinuationToken(DynamicString continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
+    public void setMaxKeys(Integer maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    private int listingConcurrency() {
+        return Optional.ofNullable(listingConcurrency).orElse(DEFAULT_LISTING_CONCURRENCY);
+    }
+}
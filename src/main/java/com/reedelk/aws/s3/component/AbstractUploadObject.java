@@ -0,0 +1,368 @@
+package com.reedelk.aws.s3.component;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.UploadObjectAttributes;
+import com.reedelk.aws.s3.internal.commons.NamedThreadFactory;
+import com.reedelk.aws.s3.internal.exception.UploadObjectException;
+import com.reedelk.aws.s3.internal.multipart.FileRangeInputStream;
+import com.reedelk.aws.s3.internal.multipart.MultipartUpload;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.Component;
+import com.reedelk.runtime.api.converter.ConverterService;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.MimeType;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.reedelk.aws.s3.internal.commons.Messages.UploadObject.*;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNullOrBlank;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Input;
+
+/**
+ * The properties and the upload logic shared by {@link UploadObject} and {@link UploadObjectAsync}.
+ */
+public abstract class AbstractUploadObject implements Component {
+
+    private static final long MB = 1024L * 1024L;
+    private static final int MIN_PART_SIZE = 5; // S3 minimum part size is 5 MB.
+    private static final int DEFAULT_PART_SIZE = 8;
+    private static final int DEFAULT_MULTIPART_THRESHOLD = 16;
+    private static final int DEFAULT_UPLOAD_CONCURRENCY = 4;
+
+    @DialogTitle("AWS S3 Configuration")
+    @Property("Configuration")
+    @Mandatory
+    private AwsConfiguration configuration;
+
+    @Property("Bucket Name")
+    @Hint("my-bucket")
+    @Example("my-bucket")
+    @Mandatory
+    @Description("The name of an existing bucket, to which you have Permission.Write permission.")
+    private DynamicString bucket;
+
+    @Property("Key")
+    @Hint("my-key")
+    @Example("my-key")
+    @Description("The key under which to store the specified file.")
+    private DynamicString key;
+
+    @Property("Source")
+    @Example("FILE")
+    @DefaultValue("PAYLOAD")
+    @Description("Sets the data to upload: the message payload (a string or a byte array) or the content of a local file.")
+    private UploadSource source;
+
+    @Property("Source Path")
+    @Hint("/data/backups/backup.tar.gz")
+    @Example("/data/backups/backup.tar.gz")
+    @When(propertyName = "source", propertyValue = "FILE")
+    @Description("The path of the local file to upload. The content type of the object is guessed from the file name.")
+    private DynamicString sourcePath;
+
+    @Group("Multipart")
+    @Property("Multipart Upload")
+    @DefaultValue("false")
+    @Description("If true, objects larger than the multipart threshold are uploaded " +
+            "in multiple parts transferred in parallel. Objects larger than 5 GB must be uploaded using multipart upload.")
+    private Boolean multipart;
+
+    @Group("Multipart")
+    @Property("Multipart Threshold (MB)")
+    @Hint("16")
+    @Example("64")
+    @DefaultValue("16")
+    @When(propertyName = "multipart", propertyValue = "true")
+    @Description("The size in megabytes above which objects are uploaded using multipart upload.")
+    private Integer multipartThreshold;
+
+    @Group("Multipart")
+    @Property("Part Size (MB)")
+    @Hint("8")
+    @Example("16")
+    @DefaultValue("8")
+    @When(propertyName = "multipart", propertyValue = "true")
+    @Description("The size in megabytes of each part. The minimum part size allowed by S3 is 5 MB.")
+    private Integer partSize;
+
+    @Group("Multipart")
+    @Property("Upload Concurrency")
+    @Hint("4")
+    @Example("8")
+    @DefaultValue("4")
+    @When(propertyName = "multipart", propertyValue = "true")
+    @Description("The maximum number of parts uploaded in parallel by this component.")
+    private Integer uploadConcurrency;
+
+    private AmazonS3 s3;
+    private ExecutorService executor;
+    private MultipartUpload multipartUpload;
+
+    abstract ConverterService converterService();
+
+    abstract ScriptEngineService scriptService();
+
+    @Override
+    public void initialize() {
+        requireNotNull(getClass(), configuration, "S3 configuration is missing. Aws configuration must be provided.");
+        requireNotNullOrBlank(getClass(), bucket, "S3 bucket name is missing. The bucket name is mandatory.");
+        requireNotNullOrBlank(getClass(), key, "S3 key is missing. The key is mandatory.");
+        if (UploadSource.FILE.equals(source)) {
+            requireNotNullOrBlank(getClass(), sourcePath, "Source path is missing. The source path is mandatory when the source is 'File'.");
+        }
+
+        s3 = S3ClientFactory.from(configuration, this);
+
+        if (Boolean.TRUE.equals(multipart)) {
+            int concurrency = Optional.ofNullable(uploadConcurrency).orElse(DEFAULT_UPLOAD_CONCURRENCY);
+            executor = Executors.newFixedThreadPool(concurrency, new NamedThreadFactory("s3-upload-part"));
+            multipartUpload = new MultipartUpload(s3, executor);
+        }
+    }
+
+    Message execute(FlowContext flowContext, Message message) {
+
+        if (UploadSource.FILE.equals(source)) {
+            return applyFile(flowContext, message);
+        }
+
+        Object input = message.payload();
+
+        Input.requireTypeMatchesAny(getClass(), input, String.class, byte[].class, Byte[].class);
+
+        byte[] inputAsByteArray = converterService().convert(input, byte[].class);
+
+        String evaluatedBucket = evaluateBucket(flowContext, message);
+
+        String evaluatedKey = evaluateKey(flowContext, message);
+
+        String contentType = message.content().mimeType().toString();
+
+        UploadObjectAttributes attributes;
+        try {
+            attributes = multipartUpload != null && inputAsByteArray.length > multipartThresholdBytes() ?
+                    uploadMultipart(evaluatedBucket, evaluatedKey, inputAsByteArray, contentType) :
+                    upload(evaluatedBucket, evaluatedKey, inputAsByteArray, contentType);
+        } catch (IOException | SdkClientException exception) {
+            String error = UPLOAD_ERROR.format(evaluatedBucket, evaluatedKey, exception.getMessage());
+            throw new UploadObjectException(error, exception);
+        }
+
+        return MessageBuilder.get(getClass())
+                .withTypedContent(message.getContent())
+                .attributes(attributes)
+                .build();
+    }
+
+    private Message applyFile(FlowContext flowContext, Message message) {
+        String evaluatedPath = scriptService().evaluate(this.sourcePath, flowContext, message)
+                .orElseThrow(() -> new UploadObjectException(SOURCE_PATH_EMPTY.format(sourcePath.value())));
+
+        String evaluatedBucket = evaluateBucket(flowContext, message);
+
+        String evaluatedKey = evaluateKey(flowContext, message);
+
+        Path file = Paths.get(evaluatedPath);
+        if (!Files.isRegularFile(file)) {
+            throw new UploadObjectException(SOURCE_FILE_NOT_FOUND.format(evaluatedPath));
+        }
+
+        UploadObjectAttributes attributes;
+        try {
+            long size = Files.size(file);
+            String contentType = Optional.ofNullable(Files.probeContentType(file))
+                    .orElse(MimeType.APPLICATION_BINARY.toString());
+            attributes = multipartUpload != null && size > multipartThresholdBytes() ?
+                    uploadFileMultipart(evaluatedBucket, evaluatedKey, file, size, contentType) :
+                    uploadFile(evaluatedBucket, evaluatedKey, file, contentType);
+        } catch (IOException | SdkClientException exception) {
+            String error = UPLOAD_ERROR.format(evaluatedBucket, evaluatedKey, exception.getMessage());
+            throw new UploadObjectException(error, exception);
+        }
+
+        return MessageBuilder.get(getClass())
+                .withTypedContent(message.getContent())
+                .attributes(attributes)
+                .build();
+    }
+
+    @Override
+    public void dispose() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        S3ClientFactory.release(configuration, this);
+    }
+
+    public AwsConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public void setConfiguration(AwsConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public DynamicString getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(DynamicString bucket) {
+        this.bucket = bucket;
+    }
+
+    public DynamicString getKey() {
+        return key;
+    }
+
+    public void setKey(DynamicString key) {
+        this.key = key;
+    }
+
+    public UploadSource getSource() {
+        return source;
+    }
+
+    public void setSource(UploadSource source) {
+        this.source = source;
+    }
+
+    public DynamicString getSourcePath() {
+        return sourcePath;
+    }
+
+    public void setSourcePath(DynamicString sourcePath) {
+        this.sourcePath = sourcePath;
+    }
+
+    public Boolean getMultipart() {
+        return multipart;
+    }
+
+    public void setMultipart(Boolean multipart) {
+        this.multipart = multipart;
+    }
+
+    public Integer getMultipartThreshold() {
+        return multipartThreshold;
+    }
+
+    public void setMultipartThreshold(Integer multipartThreshold) {
+        this.multipartThreshold = multipartThreshold;
+    }
+
+    public Integer getPartSize() {
+        return partSize;
+    }
+
+    public void setPartSize(Integer partSize) {
+        this.partSize = partSize;
+    }
+
+    public Integer getUploadConcurrency() {
+        return uploadConcurrency;
+    }
+
+    public void setUploadConcurrency(Integer uploadConcurrency) {
+        this.uploadConcurrency = uploadConcurrency;
+    }
+
+    private UploadObjectAttributes upload(String bucket, String key, byte[] data, String contentType) throws IOException {
+        try (InputStream is = new ByteArrayInputStream(data)) {
+            ObjectMetadata objectMetadata = new ObjectMetadata();
+            objectMetadata.setContentType(contentType);
+            objectMetadata.setContentLength(data.length);
+
+            PutObjectResult result = s3.putObject(bucket, key, is, objectMetadata);
+            return new UploadObjectAttributes(result);
+        }
+    }
+
+    private UploadObjectAttributes uploadMultipart(String bucket, String key, byte[] data, String contentType) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentType(contentType);
+
+        InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucket, key, objectMetadata);
+
+        // Each part reads its own slice of the input array: no copies of the data are made.
+        CompleteMultipartUploadResult result = multipartUpload.execute(request, data.length, partSizeBytes(), part -> {
+            UploadPartRequest partRequest = new UploadPartRequest()
+                    .withBucketName(bucket)
+                    .withKey(key)
+                    .withUploadId(part.uploadId())
+                    .withPartNumber(part.partNumber())
+                    .withPartSize(part.size())
+                    .withInputStream(new ByteArrayInputStream(data, (int) part.offset(), (int) part.size()));
+            return s3.uploadPart(partRequest).getPartETag();
+        });
+        return new UploadObjectAttributes(result);
+    }
+
+    private UploadObjectAttributes uploadFile(String bucket, String key, Path file, String contentType) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentType(contentType);
+
+        // The SDK streams the file from disk and reopens it if the request is retried.
+        PutObjectRequest request = new PutObjectRequest(bucket, key, file.toFile()).withMetadata(objectMetadata);
+        PutObjectResult result = s3.putObject(request);
+        return new UploadObjectAttributes(result);
+    }
+
+    private UploadObjectAttributes uploadFileMultipart(String bucket, String key, Path file, long size, String contentType) throws IOException {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentType(contentType);
+
+        InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucket, key, objectMetadata);
+
+        // All the parts share the same channel: each part reads its own range of the file with positional reads.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CompleteMultipartUploadResult result = multipartUpload.execute(request, size, partSizeBytes(), part -> {
+                UploadPartRequest partRequest = new UploadPartRequest()
+                        .withBucketName(bucket)
+                        .withKey(key)
+                        .withUploadId(part.uploadId())
+                        .withPartNumber(part.partNumber())
+                        .withPartSize(part.size())
+                        .withInputStream(new FileRangeInputStream(channel, part.offset(), part.size()));
+                return s3.uploadPart(partRequest).getPartETag();
+            });
+            return new UploadObjectAttributes(result);
+        }
+    }
+
+    private String evaluateBucket(FlowContext flowContext, Message message) {
+        return scriptService().evaluate(this.bucket, flowContext, message)
+                .orElseThrow(() -> new UploadObjectException(BUCKET_NAME_EMPTY.format(bucket.value())));
+    }
+
+    private String evaluateKey(FlowContext flowContext, Message message) {
+        return scriptService().evaluate(this.key, flowContext, message)
+                .orElseThrow(() -> new UploadObjectException(KEY_EMPTY.format(key.value())));
+    }
+
+    private long multipartThresholdBytes() {
+        return Optional.ofNullable(multipartThreshold).orElse(DEFAULT_MULTIPART_THRESHOLD) * MB;
+    }
+
+    private long partSizeBytes() {
+        int partSizeMB = Optional.ofNullable(partSize).orElse(DEFAULT_PART_SIZE);
+        return Math.max(MIN_PART_SIZE, partSizeMB) * MB;
+    }
+}
@@ -32,6 +32,173 @@ public class AwsConfiguration implements Implementor {
             " for requests.")
     private AwsRegion region;
 
+    @Group("Endpoint")
+    @Property("Endpoint Override")
+    @Hint("http://localhost:9000")
+    @Example("https://s3.my-company.internal")
+    @Description("The optional endpoint of an S3 compatible service to be used instead of the AWS S3 endpoint of the region. " +
+            "The region is still used to sign the requests.")
+    private String endpoint;
+
+    @Group("Endpoint")
+    @Property("Path Style Access")
+    @Example("true")
+    @Description("If true, the bucket name is sent in the request path (e.g. http://host/bucket/key) " +
+            "instead of the host name (e.g. http://bucket.host/key). Usually required with an endpoint override. Defaults to false.")
+    private Boolean pathStyleAccess;
+
+    @Group("Transport")
+    @Property("Max Connections")
+    @Hint("50")
+    @Example("200")
+    @Description("The maximum number of open HTTP connections shared by all the components using this configuration. Defaults to 50.")
+    private Integer maxConnections;
+
+    @Group("Transport")
+    @Property("Connection Timeout (ms)")
+    @Hint("10000")
+    @Example("5000")
+    @Description("The amount of time in milliseconds to wait when initially establishing a connection before giving up and timing out. Defaults to 10000 ms.")
+    private Integer connectionTimeout;
+
+    @Group("Transport")
+    @Property("Socket Timeout (ms)")
+    @Hint("50000")
+    @Example("30000")
+    @Description("The amount of time in milliseconds to wait for data to be transferred over an established, open connection before the connection times out. Defaults to 50000 ms.")
+    private Integer socketTimeout;
+
+    @Group("Transport")
+    @Property("Request Timeout (ms)")
+    @Hint("0")
+    @Example("60000")
+    @Description("The amount of time in milliseconds to wait for a request to complete before giving up and timing out. A value of 0 disables the request timeout. Defaults to 0 (disabled).")
+    private Integer requestTimeout;
+
+    @Group("Transport")
+    @Property("Connection TTL (ms)")
+    @Hint("-1")
+    @Example("300000")
+    @Description("The expiration time in milliseconds for a connection in the connection pool. A value of -1 means no expiration. Defaults to -1.")
+    private Long connectionTTL;
+
+    @Group("Transport")
+    @Property("Connection Max Idle (ms)")
+    @Hint("60000")
+    @Example("30000")
+    @Description("The maximum amount of time in milliseconds that an idle connection may sit in the connection pool and still be eligible for reuse. Defaults to 60000 ms.")
+    private Long connectionMaxIdle;
+
+    @Group("Transport")
+    @Property("Idle Connection Reaper")
+    @Example("true")
+    @Description("If true, a background thread periodically closes the connections idle for longer than the connection max idle time. Defaults to true.")
+    private Boolean idleConnectionReaper;
+
+    @Group("Transport")
+    @Property("TCP Keep Alive")
+    @Example("true")
+    @Description("If true, TCP keep-alive is enabled on the connections. Defaults to false.")
+    private Boolean tcpKeepAlive;
+
+    @Group("Transport")
+    @Property("Socket Send Buffer Size (bytes)")
+    @Hint("0")
+    @Example("1048576")
+    @Description("Hint for the size of the socket send buffer in bytes. A value of 0 lets the operating system choose the size.")
+    private Integer socketSendBufferSize;
+
+    @Group("Transport")
+    @Property("Socket Receive Buffer Size (bytes)")
+    @Hint("0")
+    @Example("1048576")
+    @Description("Hint for the size of the socket receive buffer in bytes. A value of 0 lets the operating system choose the size.")
+    private Integer socketReceiveBufferSize;
+
+    @Group("Transport")
+    @Property("Max Error Retry")
+    @Hint("3")
+    @Example("5")
+    @Description("The maximum number of retry attempts for failed retryable requests (e.g. 5xx error responses from S3). Defaults to the retry mode default.")
+    private Integer maxErrorRetry;
+
+    @Group("Transport")
+    @Property("Retry Mode")
+    @Example("STANDARD")
+    @Description("The retry mode used by the client: 'Legacy' or 'Standard'. Defaults to the SDK default retry mode.")
+    private AwsRetryMode retryMode;
+
+    @Group("Transport")
+    @Property("Throttled Retries")
+    @Example("true")
+    @Description("If true, retries are throttled when a large number of consecutive requests fail, so that retries do not overload a service which is already failing. Defaults to true.")
+    private Boolean throttledRetries;
+
+    @Group("Transport")
+    @Property("Async I/O Threads")
+    @Hint("16")
+    @Example("32")
+    @Description("The maximum number of threads executing the S3 requests of the asynchronous components using this configuration. " +
+            "At most 64 requests per thread are queued: further requests fail. Defaults to 16.")
+    private Integer ioThreads;
+
+    @Group("Memory Cache")
+    @Property("Memory Cache")
+    @Example("true")
+    @Description("If true, small objects downloaded with the 'Byte Array' output are cached in memory and shared " +
+            "by all the components using this configuration. Cached objects are not revalidated: " +
+            "an object changed on S3 can be returned until its cache entry expires. Defaults to false.")
+    private Boolean memoryCache;
+
+    @Group("Memory Cache")
+    @Property("Memory Cache Size (MB)")
+    @Hint("64")
+    @Example("256")
+    @When(propertyName = "memoryCache", propertyValue = "true")
+    @Description("The maximum total size in megabytes of the objects held in the memory cache. " +
+            "When the size is exceeded, the least recently used objects are removed. Defaults to 64 MB.")
+    private Integer memoryCacheSize;
+
+    @Group("Memory Cache")
+    @Property("Memory Cache TTL (s)")
+    @Hint("60")
+    @Example("300")
+    @When(propertyName = "memoryCache", propertyValue = "true")
+    @Description("The time in seconds after which a cached object expires and is downloaded again from S3. Defaults to 60 s.")
+    private Integer memoryCacheTtl;
+
+    @Group("Memory Cache")
+    @Property("Memory Cache Max Object Size (KB)")
+    @Hint("256")
+    @Example("1024")
+    @When(propertyName = "memoryCache", propertyValue = "true")
+    @Description("Objects larger than this size in kilobytes are never stored in the memory cache. Defaults to 256 KB.")
+    private Integer memoryCacheMaxObjectSize;
+
+    @Group("Rate Limiting")
+    @Property("Adaptive Rate Limiting")
+    @Example("true")
+    @Description("If true, the requests of all the components using this configuration are rate limited on the client side. " +
+            "Each bucket and first key segment has its own request rate, which is halved when S3 responds with 503 SlowDown " +
+            "and increased again while no SlowDown responses are received. Retries are rate limited as well. Defaults to false.")
+    private Boolean rateLimiting;
+
+    @Group("Rate Limiting")
+    @Property("Initial Request Rate (req/s)")
+    @Hint("500")
+    @Example("1000")
+    @When(propertyName = "rateLimiting", propertyValue = "true")
+    @Description("The initial number of requests per second allowed for each bucket and first key segment. Defaults to 500.")
+    private Integer initialRequestRate;
+
+    @Group("Rate Limiting")
+    @Property("Max Request Rate (req/s)")
+    @Hint("3500")
+    @Example("5500")
+    @When(propertyName = "rateLimiting", propertyValue = "true")
+    @Description("The maximum number of requests per second allowed for each bucket and first key segment. Defaults to 3500.")
+    private Integer maxRequestRate;
+
     public String getAccessKeyId() {
         return accessKeyId;
     }
@@ -56,6 +223,190 @@ public class AwsConfiguration implements Implementor {
         this.region = region;
     }
 
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public Boolean getPathStyleAccess() {
+        return pathStyleAccess;
+    }
+
+    public void setPathStyleAccess(Boolean pathStyleAccess) {
+        this.pathStyleAccess = pathStyleAccess;
+    }
+
+    public Integer getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(Integer maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public Integer getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(Integer connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public Integer getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(Integer socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    public Integer getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(Integer requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public Long getConnectionTTL() {
+        return connectionTTL;
+    }
+
+    public void setConnectionTTL(Long connectionTTL) {
+        this.connectionTTL = connectionTTL;
+    }
+
+    public Long getConnectionMaxIdle() {
+        return connectionMaxIdle;
+    }
+
+    public void setConnectionMaxIdle(Long connectionMaxIdle) {
+        this.connectionMaxIdle = connectionMaxIdle;
+    }
+
+    public Boolean getIdleConnectionReaper() {
+        return idleConnectionReaper;
+    }
+
+    public void setIdleConnectionReaper(Boolean idleConnectionReaper) {
+        this.idleConnectionReaper = idleConnectionReaper;
+    }
+
+    public Boolean getTcpKeepAlive() {
+        return tcpKeepAlive;
+    }
+
+    public void setTcpKeepAlive(Boolean tcpKeepAlive) {
+        this.tcpKeepAlive = tcpKeepAlive;
+    }
+
+    public Integer getSocketSendBufferSize() {
+        return socketSendBufferSize;
+    }
+
+    public void setSocketSendBufferSize(Integer socketSendBufferSize) {
+        this.socketSendBufferSize = socketSendBufferSize;
+    }
+
+    public Integer getSocketReceiveBufferSize() {
+        return socketReceiveBufferSize;
+    }
+
+    public void setSocketReceiveBufferSize(Integer socketReceiveBufferSize) {
+        this.socketReceiveBufferSize = socketReceiveBufferSize;
+    }
+
+    public Integer getMaxErrorRetry() {
+        return maxErrorRetry;
+    }
+
+    public void setMaxErrorRetry(Integer maxErrorRetry) {
+        this.maxErrorRetry = maxErrorRetry;
+    }
+
+    public AwsRetryMode getRetryMode() {
+        return retryMode;
+    }
+
+    public void setRetryMode(AwsRetryMode retryMode) {
+        this.retryMode = retryMode;
+    }
+
+    public Boolean getThrottledRetries() {
+        return throttledRetries;
+    }
+
+    public void setThrottledRetries(Boolean throttledRetries) {
+        this.throttledRetries = throttledRetries;
+    }
+
+    public Integer getIoThreads() {
+        return ioThreads;
+    }
+
+    public void setIoThreads(Integer ioThreads) {
+        this.ioThreads = ioThreads;
+    }
+
+    public Boolean getMemoryCache() {
+        return memoryCache;
+    }
+
+    public void setMemoryCache(Boolean memoryCache) {
+        this.memoryCache = memoryCache;
+    }
+
+    public Integer getMemoryCacheSize() {
+        return memoryCacheSize;
+    }
+
+    public void setMemoryCacheSize(Integer memoryCacheSize) {
+        this.memoryCacheSize = memoryCacheSize;
+    }
+
+    public Integer getMemoryCacheTtl() {
+        return memoryCacheTtl;
+    }
+
+    public void setMemoryCacheTtl(Integer memoryCacheTtl) {
+        this.memoryCacheTtl = memoryCacheTtl;
+    }
+
+    public Integer getMemoryCacheMaxObjectSize() {
+        return memoryCacheMaxObjectSize;
+    }
+
+    public void setMemoryCacheMaxObjectSize(Integer memoryCacheMaxObjectSize) {
+        this.memoryCacheMaxObjectSize = memoryCacheMaxObjectSize;
+    }
+
+    public Boolean getRateLimiting() {
+        return rateLimiting;
+    }
+
+    public void setRateLimiting(Boolean rateLimiting) {
+        this.rateLimiting = rateLimiting;
+    }
+
+    public Integer getInitialRequestRate() {
+        return initialRequestRate;
+    }
+
+    public void setInitialRequestRate(Integer initialRequestRate) {
+        this.initialRequestRate = initialRequestRate;
+    }
+
+    public Integer getMaxRequestRate() {
+        return maxRequestRate;
+    }
+
+    public void setMaxRequestRate(Integer maxRequestRate) {
+        this.maxRequestRate = maxRequestRate;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,22 @@
+package com.reedelk.aws.s3.component;
+
+import com.amazonaws.retry.RetryMode;
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum AwsRetryMode {
+
+    @DisplayName("Legacy")
+    LEGACY(RetryMode.LEGACY),
+    @DisplayName("Standard")
+    STANDARD(RetryMode.STANDARD);
+
+    private final RetryMode retryMode;
+
+    AwsRetryMode(RetryMode retryMode) {
+        this.retryMode = retryMode;
+    }
+
+    public RetryMode get() {
+        return retryMode;
+    }
+}
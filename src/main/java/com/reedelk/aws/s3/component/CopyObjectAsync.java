@@ -0,0 +1,55 @@
+package com.reedelk.aws.s3.component;
+
+import com.amazonaws.services.s3.model.*;
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.CopyObjectAttributes;
+import com.reedelk.aws.s3.internal.commons.AsyncExecution;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.OnResult;
+import com.reedelk.runtime.api.component.ProcessorAsync;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@ModuleComponent("S3 Copy Object (Async)")
+@ComponentOutput(
+        attributes = CopyObjectAttributes.class,
+        payload = ComponentOutput.PreviousComponent.class,
+        description = "The S3 Copy Object Component output is the original input message. " +
+                "The payload is not changed by this component.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The component input is used to evaluate the dynamic " +
+                "values provided for source bucket, source key, destination bucket and destination key.")
+@Description("The S3 Copy Object (Async) Component copies a source object to a new destination in Amazon S3 without blocking the flow thread: " +
+        "it has the same properties and behaviour as the S3 Copy Object Component.")
+@Component(service = CopyObjectAsync.class, scope = PROTOTYPE)
+public class CopyObjectAsync extends AbstractCopyObject implements ProcessorAsync {
+
+    @Reference
+    ScriptEngineService scriptService;
+
+    private ExecutorService executor;
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        executor = S3ClientFactory.ioExecutorOf(this);
+    }
+
+    @Override
+    public void apply(FlowContext flowContext, Message message, OnResult callback) {
+        AsyncExecution.execute(executor, flowContext, callback, () -> execute(flowContext, message));
+    }
+
+    @Override
+    ScriptEngineService scriptService() {
+        return scriptService;
+    }
+}
@@ -2,16 +2,18 @@ package com.reedelk.aws.s3.component;
 
 import com.amazonaws.SdkClientException;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.DeleteObjectsRequest;
-import com.amazonaws.services.s3.model.DeleteObjectsResult;
 import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.DeleteObjectsAttributes;
+import com.reedelk.aws.s3.internal.commons.BatchExecution;
+import com.reedelk.aws.s3.internal.delete.BatchDelete;
 import com.reedelk.aws.s3.internal.exception.DeleteObjectsException;
+import com.reedelk.aws.s3.internal.type.DeletedObject;
+import com.reedelk.aws.s3.internal.type.ListOfDeleteObjectErrors;
 import com.reedelk.aws.s3.internal.type.ListOfDeletedObjects;
 import com.reedelk.runtime.api.annotation.*;
 import com.reedelk.runtime.api.component.ProcessorSync;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
-import com.reedelk.runtime.api.message.MessageAttributes;
 import com.reedelk.runtime.api.message.MessageBuilder;
 import com.reedelk.runtime.api.script.ScriptEngineService;
 import com.reedelk.runtime.api.script.dynamicvalue.DynamicObject;
@@ -19,7 +21,9 @@ import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static com.reedelk.aws.s3.internal.commons.Messages.DeleteObjects.*;
 import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
@@ -29,17 +33,25 @@ import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
 
 @ModuleComponent("S3 Delete Objects")
 @ComponentOutput(
-        attributes = MessageAttributes.class,
+        attributes = DeleteObjectsAttributes.class,
         payload = ListOfDeletedObjects.class,
-        description = "A list of delete objects")
+        description = "A list of deleted objects. The keys which could not be deleted " +
+                "are listed, together with the error code, in the 'errors' attribute.")
 @ComponentInput(
         payload = Object.class,
         description = "The input payload is used to evaluate the bucket name and the list of keys of the objects to be deleted.")
 @Description("The S3 Delete Objects Component deletes multiple objects in a single bucket from S3. " +
-        "The bucket name and the list of keys pointing to the files to be deleted can be expressed as dynamic values.")
+        "The bucket name and the list of keys pointing to the files to be deleted can be expressed as dynamic values. " +
+        "The list of keys can be of any size: keys are split into batches of 1000 keys " +
+        "(the maximum allowed by S3 in a single request) which are deleted in parallel. " +
+        "A failure to delete some of the keys does not fail the component: " +
+        "the keys which could not be deleted are returned in the 'errors' attribute, " +
+        "including all the keys of a batch failing as a whole (e.g. access denied).")
 @Component(service = DeleteObjects.class, scope = PROTOTYPE)
 public class DeleteObjects implements ProcessorSync {
 
+    private static final int DEFAULT_BATCH_CONCURRENCY = 4;
+
     @DialogTitle("AWS S3 Configuration")
     @Property("Configuration")
     @Mandatory
@@ -58,10 +70,20 @@ public class DeleteObjects implements ProcessorSync {
     @Description("A list of keys of the objects to delete.")
     private DynamicObject keys;
 
+    @Group("Advanced")
+    @Property("Batch Concurrency")
+    @Hint("4")
+    @Example("8")
+    @DefaultValue("4")
+    @Description("The maximum number of batches of 1000 keys deleted in parallel by this component.")
+    private Integer batchConcurrency;
+
     @Reference
     ScriptEngineService scriptService;
 
     private AmazonS3 s3;
+    private BatchExecution batches;
+    private BatchDelete batchDelete;
 
     @Override
     public void initialize() {
@@ -70,6 +92,10 @@ public class DeleteObjects implements ProcessorSync {
         requireNotNullOrBlank(DeleteObject.class, keys, "S3 keys are missing. The keys are mandatory.");
 
         s3 = S3ClientFactory.from(configuration, this);
+
+        int concurrency = Optional.ofNullable(batchConcurrency).orElse(DEFAULT_BATCH_CONCURRENCY);
+        batches = new BatchExecution(S3ClientFactory.batchExecutorOf(this), concurrency);
+        batchDelete = new BatchDelete(s3, batches);
     }
 
     @SuppressWarnings("unchecked")
@@ -84,23 +110,29 @@ public class DeleteObjects implements ProcessorSync {
 
         Input.requireTypeMatches(DeleteObjects.class, keysList, List.class);
 
-        String[] allKeys = asStringArray((List<Object>) keysList);
+        List<String> allKeys = asStringList((List<Object>) keysList);
 
-        DeleteObjectsRequest request = new DeleteObjectsRequest(evaluatedBucket)
-                .withKeys(allKeys);
-
-        DeleteObjectsResult result;
+        BatchDelete.Result result;
         try {
-            result = s3.deleteObjects(request);
+            result = batchDelete.delete(evaluatedBucket, allKeys);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            String error = BATCH_DELETE_ERROR.format(allKeys.size(), evaluatedBucket, exception.getMessage());
+            throw new DeleteObjectsException(error, exception);
         } catch (SdkClientException exception) {
-            String error = DELETE_ERROR.format(evaluatedBucket, allKeys, exception.getMessage());
+            String error = BATCH_DELETE_ERROR.format(allKeys.size(), evaluatedBucket, exception.getMessage());
             throw new DeleteObjectsException(error, exception);
         }
 
-        List<DeleteObjectsResult.DeletedObject> deletedObjects = result.getDeletedObjects();
-        ListOfDeletedObjects listOfDeletedObjects = new ListOfDeletedObjects(deletedObjects);
-        return MessageBuilder.get(DeleteObject.class)
+        ListOfDeletedObjects listOfDeletedObjects = new ListOfDeletedObjects();
+        result.deleted().stream().map(DeletedObject::new).forEach(listOfDeletedObjects::add);
+
+        ListOfDeleteObjectErrors errors = new ListOfDeleteObjectErrors(result.errors());
+        DeleteObjectsAttributes attributes = new DeleteObjectsAttributes(listOfDeletedObjects.size(), errors);
+
+        return MessageBuilder.get(DeleteObjects.class)
                 .withJavaObject(listOfDeletedObjects)
+                .attributes(attributes)
                 .build();
     }
 
@@ -121,13 +153,16 @@ public class DeleteObjects implements ProcessorSync {
         this.keys = keys;
     }
 
-    private String[] asStringArray(List<Object> keysList) {
-        String[] allKeys = new String[keysList.size()];
-        for (int i = 0; i < keysList.size(); i++) {
-            Object key = keysList.get(i);
+    public void setBatchConcurrency(Integer batchConcurrency) {
+        this.batchConcurrency = batchConcurrency;
+    }
+
+    private List<String> asStringList(List<Object> keysList) {
+        List<String> allKeys = new ArrayList<>(keysList.size());
+        for (Object key : keysList) {
             // We must make sure that each key is a string type.
             Input.requireTypeMatches(DeleteObjects.class, key, String.class);
-            allKeys[i] = (String) key;
+            allKeys.add((String) key);
         }
         return allKeys;
     }
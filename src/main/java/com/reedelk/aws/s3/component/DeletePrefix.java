@@ -0,0 +1,182 @@
+package com.reedelk.aws.s3.component;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.DeletePrefixAttributes;
+import com.reedelk.aws.s3.internal.commons.BatchExecution;
+import com.reedelk.aws.s3.internal.commons.ManagementBeans;
+import com.reedelk.aws.s3.internal.commons.NamedThreadFactory;
+import com.reedelk.aws.s3.internal.delete.PrefixDelete;
+import com.reedelk.aws.s3.internal.delete.PrefixDeleteProgress;
+import com.reedelk.aws.s3.internal.exception.DeletePrefixException;
+import com.reedelk.aws.s3.internal.type.ListOfDeleteObjectErrors;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.ProcessorSync;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import reactor.core.Exceptions;
+
+import javax.management.ObjectName;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.reedelk.aws.s3.internal.commons.Messages.DeletePrefix.*;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNullOrBlank;
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@ModuleComponent("S3 Delete Prefix")
+@ComponentOutput(
+        attributes = DeletePrefixAttributes.class,
+        payload = ListOfDeleteObjectErrors.class,
+        description = "The keys which could not be deleted, together with the error code (at most the first 1000 errors). " +
+                "The number of listed, deleted and failed objects are returned in the attributes.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The input payload is used to evaluate the bucket name and the prefix of the objects to be deleted.")
+@Description("The S3 Delete Prefix Component deletes all the objects whose key starts with the given prefix. " +
+        "The objects are listed one page of 1000 keys at a time and each page is deleted as a single batch " +
+        "while the next pages are being listed, therefore any number of objects can be deleted with bounded memory. " +
+        "When 'Dry Run' is enabled, the objects are only listed and counted. " +
+        "A failure to delete some of the keys does not fail the component: the number of keys which could not " +
+        "be deleted, including all the keys of a batch failing as a whole (e.g. access denied), " +
+        "is returned in the 'errorCount' attribute. A listing error fails the component instead. " +
+        "The progress of running deletes is exposed as a JMX management bean of type 'DeletePrefix'.")
+@Component(service = DeletePrefix.class, scope = PROTOTYPE)
+public class DeletePrefix implements ProcessorSync {
+
+    private static final int DEFAULT_BATCH_CONCURRENCY = 4;
+    // Each delete prefetches at most one page at a time: deletes running
+    // concurrently above this number wait for a thread to prefetch their next page.
+    private static final int PREFETCH_THREADS = 4;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @DialogTitle("AWS S3 Configuration")
+    @Property("Configuration")
+    @Mandatory
+    private AwsConfiguration configuration;
+
+    @Property("Bucket Name")
+    @Hint("my-bucket")
+    @Example("my-bucket")
+    @Mandatory
+    @Description("The name of the Amazon S3 bucket containing the objects to delete.")
+    private DynamicString bucket;
+
+    @Property("Prefix")
+    @Hint("logs/2020/")
+    @Example("logs/2020/")
+    @Mandatory
+    @Description("The prefix of the keys of the objects to delete. " +
+            "The prefix must not be empty: to delete all the objects of a bucket, use a lifecycle rule.")
+    private DynamicString prefix;
+
+    @Property("Dry Run")
+    @DefaultValue("false")
+    @Description("If true, the objects are only listed and counted, without being deleted.")
+    private Boolean dryRun;
+
+    @Group("Advanced")
+    @Property("Batch Concurrency")
+    @Hint("4")
+    @Example("8")
+    @DefaultValue("4")
+    @Description("The maximum number of batches of 1000 keys deleted in parallel by this component.")
+    private Integer batchConcurrency;
+
+    @Reference
+    ScriptEngineService scriptService;
+
+    private AmazonS3 s3;
+    private ExecutorService listingExecutor;
+    private BatchExecution deletes;
+    private PrefixDelete prefixDelete;
+    private ObjectName progressBean;
+
+    @Override
+    public void initialize() {
+        requireNotNull(DeletePrefix.class, configuration, "S3 configuration is missing. Aws configuration must be provided.");
+        requireNotNullOrBlank(DeletePrefix.class, bucket, "S3 bucket name is missing. The bucket name is mandatory.");
+        requireNotNullOrBlank(DeletePrefix.class, prefix, "S3 prefix is missing. The prefix is mandatory.");
+
+        s3 = S3ClientFactory.from(configuration, this);
+
+        int concurrency = Optional.ofNullable(batchConcurrency).orElse(DEFAULT_BATCH_CONCURRENCY);
+        listingExecutor = Executors.newFixedThreadPool(PREFETCH_THREADS, new NamedThreadFactory("s3-list-prefetch"));
+        deletes = new BatchExecution(S3ClientFactory.batchExecutorOf(this), concurrency);
+
+        PrefixDeleteProgress progress = new PrefixDeleteProgress();
+        progressBean = ManagementBeans.register("DeletePrefix", bucket.value() + "-" + SEQUENCE.incrementAndGet(), progress);
+        prefixDelete = new PrefixDelete(s3, listingExecutor, deletes, MAX_REPORTED_ERRORS, progress);
+    }
+
+    @Override
+    public Message apply(FlowContext flowContext, Message message) {
+
+        String evaluatedBucket = scriptService.evaluate(this.bucket, flowContext, message)
+                .orElseThrow(() -> new DeletePrefixException(BUCKET_NAME_EMPTY.format(bucket.value())));
+
+        // An empty prefix would match, and delete, all the objects of the bucket.
+        String evaluatedPrefix = scriptService.evaluate(this.prefix, flowContext, message)
+                .filter(value -> !value.isEmpty())
+                .orElseThrow(() -> new DeletePrefixException(PREFIX_EMPTY.format(prefix.value())));
+
+        boolean isDryRun = Boolean.TRUE.equals(dryRun);
+
+        PrefixDelete.Result result;
+        try {
+            result = prefixDelete.delete(evaluatedBucket, evaluatedPrefix, isDryRun);
+        } catch (RuntimeException exception) {
+            // A listing error or an interrupt while waiting for the pipeline.
+            Throwable cause = Exceptions.unwrap(exception);
+            if (cause instanceof InterruptedException) Thread.currentThread().interrupt();
+            String error = DELETE_PREFIX_ERROR.format(evaluatedPrefix, evaluatedBucket, cause.getMessage());
+            throw new DeletePrefixException(error, cause);
+        }
+
+        ListOfDeleteObjectErrors errors = new ListOfDeleteObjectErrors(result.errors());
+        DeletePrefixAttributes attributes = new DeletePrefixAttributes(evaluatedBucket, evaluatedPrefix, isDryRun, result);
+
+        return MessageBuilder.get(DeletePrefix.class)
+                .withJavaObject(errors)
+                .attributes(attributes)
+                .build();
+    }
+
+    @Override
+    public void dispose() {
+        if (listingExecutor != null) {
+            listingExecutor.shutdownNow();
+        }
+        ManagementBeans.unregister(progressBean);
+        S3ClientFactory.release(configuration, this);
+    }
+
+    public void setConfiguration(AwsConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setBucket(DynamicString bucket) {
+        this.bucket = bucket;
+    }
+
+    public void setPrefix(DynamicString prefix) {
+        this.prefix = prefix;
+    }
+
+    public void setDryRun(Boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public void setBatchConcurrency(Integer batchConcurrency) {
+        this.batchConcurrency = batchConcurrency;
+    }
+}
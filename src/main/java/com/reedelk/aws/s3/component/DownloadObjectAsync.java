@@ -0,0 +1,56 @@
+package com.reedelk.aws.s3.component;
+
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.DownloadObjectAttributes;
+import com.reedelk.aws.s3.internal.commons.AsyncExecution;
+import com.reedelk.aws.s3.internal.type.StreamOfByteArray;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.OnResult;
+import com.reedelk.runtime.api.component.ProcessorAsync;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@ModuleComponent("S3 Download Object (Async)")
+@ComponentOutput(
+        attributes = DownloadObjectAttributes.class,
+        payload = { byte[].class, StreamOfByteArray.class, String.class },
+        description = "A byte array containing the data of the object downloaded from AWS S3. " +
+                "If the output is 'Stream', the data is emitted as a stream of byte array chunks. " +
+                "If the output is 'File', the path of the file the data has been written to.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The component input is used to evaluate the dynamic " +
+                "values provided for the bucket name and the key of the desired object to be downloaded.")
+@Description("The S3 Download Object (Async) Component downloads an object from Amazon S3 without blocking the flow thread: " +
+        "it has the same properties and behaviour as the S3 Download Object Component.")
+@Component(service = DownloadObjectAsync.class, scope = PROTOTYPE)
+public class DownloadObjectAsync extends AbstractDownloadObject implements ProcessorAsync {
+
+    @Reference
+    ScriptEngineService scriptService;
+
+    private ExecutorService executor;
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        executor = S3ClientFactory.ioExecutorOf(this);
+    }
+
+    @Override
+    public void apply(FlowContext flowContext, Message message, OnResult callback) {
+        AsyncExecution.execute(executor, flowContext, callback, () -> execute(flowContext, message));
+    }
+
+    @Override
+    ScriptEngineService scriptService() {
+        return scriptService;
+    }
+}
@@ -0,0 +1,210 @@
+package com.reedelk.aws.s3.component;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.DownloadObjectsAttributes;
+import com.reedelk.aws.s3.internal.commons.BatchExecution;
+import com.reedelk.aws.s3.internal.download.BatchDownload;
+import com.reedelk.aws.s3.internal.exception.DownloadObjectsException;
+import com.reedelk.aws.s3.internal.type.DownloadObjectResult;
+import com.reedelk.aws.s3.internal.type.ListOfDownloadObjectResults;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.ProcessorSync;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicObject;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.reedelk.aws.s3.internal.commons.Messages.DownloadObjects.*;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNullOrBlank;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Input;
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@ModuleComponent("S3 Download Objects")
+@ComponentOutput(
+        attributes = DownloadObjectsAttributes.class,
+        payload = ListOfDownloadObjectResults.class,
+        description = "A list with the result of each object, in the same order as the keys list. " +
+                "Each result contains the data of the object if the download succeeded ('success' is true), " +
+                "or the code and message of the error otherwise.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The input payload is used to evaluate the bucket name and the list of keys of the objects to be downloaded.")
+@Description("The S3 Download Objects Component downloads multiple objects from S3 concurrently. " +
+        "The keys list can contain keys or S3 Objects returned by the S3 List Objects component: " +
+        "when an S3 Object has a bucket, the object is downloaded from that bucket. " +
+        "At most 'Concurrency' objects are downloaded at the same time; the number of concurrent requests " +
+        "is also limited by the maximum number of connections of the AWS configuration. " +
+        "A failure to download some of the objects (e.g. a missing key) does not fail the component: " +
+        "the error is returned in the result of the object. Objects larger than the maximum object size " +
+        "are not downloaded and are returned with the 'ObjectTooLarge' error code, and objects exceeding the " +
+        "maximum total size are returned with the 'TotalSizeExceeded' error code.")
+@Component(service = DownloadObjects.class, scope = PROTOTYPE)
+public class DownloadObjects implements ProcessorSync {
+
+    private static final long MB = 1024L * 1024L;
+    private static final int DEFAULT_CONCURRENCY = 16;
+    private static final int DEFAULT_MAX_OBJECT_SIZE = 16;
+    private static final int DEFAULT_MAX_TOTAL_SIZE = 256;
+    private static final String KEY = "key";
+    private static final String BUCKET = "bucket";
+
+    @DialogTitle("AWS S3 Configuration")
+    @Property("Configuration")
+    @Mandatory
+    private AwsConfiguration configuration;
+
+    @Property("Bucket Name")
+    @Hint("my-bucket")
+    @Example("my-bucket")
+    @Mandatory
+    @Description("The name of the bucket containing the objects to download.")
+    private DynamicString bucket;
+
+    @Property("Keys List")
+    @Example("#[['key1', 'key2']]")
+    @InitValue("#[['key1', 'key2']]")
+    @Description("A list of keys of the objects to download, or a list of S3 Objects (e.g. the output of S3 List Objects).")
+    private DynamicObject keys;
+
+    @Property("Concurrency")
+    @Hint("16")
+    @Example("32")
+    @DefaultValue("16")
+    @Description("The maximum number of objects downloaded in parallel by this component.")
+    private Integer concurrency;
+
+    @Property("Max Object Size (MB)")
+    @Hint("16")
+    @Example("64")
+    @DefaultValue("16")
+    @Description("The maximum size in megabytes of each object. Since all the downloaded objects are held in memory, " +
+            "larger objects are not downloaded: their result has the 'ObjectTooLarge' error code.")
+    private Integer maxObjectSize;
+
+    @Property("Max Total Size (MB)")
+    @Hint("256")
+    @Example("1024")
+    @DefaultValue("256")
+    @Description("The maximum total size in megabytes of the objects downloaded by a single execution of the component. " +
+            "Objects which would exceed it are not downloaded: their result has the 'TotalSizeExceeded' error code.")
+    private Integer maxTotalSize;
+
+    @Reference
+    ScriptEngineService scriptService;
+
+    private AmazonS3 s3;
+    private BatchExecution downloads;
+    private BatchDownload batchDownload;
+
+    @Override
+    public void initialize() {
+        requireNotNull(DownloadObjects.class, configuration, "S3 configuration is missing. Aws configuration must be provided.");
+        requireNotNullOrBlank(DownloadObjects.class, bucket, "S3 bucket name is missing. The bucket name is mandatory.");
+        requireNotNullOrBlank(DownloadObjects.class, keys, "S3 keys are missing. The keys are mandatory.");
+
+        s3 = S3ClientFactory.from(configuration, this);
+
+        int threads = Optional.ofNullable(concurrency).orElse(DEFAULT_CONCURRENCY);
+        long maxObjectSizeBytes = Optional.ofNullable(maxObjectSize).orElse(DEFAULT_MAX_OBJECT_SIZE) * MB;
+        long maxTotalSizeBytes = Optional.ofNullable(maxTotalSize).orElse(DEFAULT_MAX_TOTAL_SIZE) * MB;
+        downloads = new BatchExecution(S3ClientFactory.batchExecutorOf(this), threads);
+        batchDownload = new BatchDownload(s3, downloads, maxObjectSizeBytes, maxTotalSizeBytes);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Message apply(FlowContext flowContext, Message message) {
+
+        String evaluatedBucket = scriptService.evaluate(this.bucket, flowContext, message)
+                .orElseThrow(() -> new DownloadObjectsException(BUCKET_NAME_EMPTY.format(bucket.value())));
+
+        Object keysList = scriptService.evaluate(this.keys, flowContext, message)
+                .orElseThrow(() -> new DownloadObjectsException(KEYS_EMPTY.format(keys.value())));
+
+        Input.requireTypeMatches(DownloadObjects.class, keysList, List.class);
+
+        List<BatchDownload.ObjectLocation> objects = asObjectLocations(evaluatedBucket, (List<Object>) keysList);
+
+        List<DownloadObjectResult> results;
+        try {
+            results = batchDownload.download(objects);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            String error = BATCH_DOWNLOAD_ERROR.format(objects.size(), evaluatedBucket, exception.getMessage());
+            throw new DownloadObjectsException(error, exception);
+        } catch (SdkClientException exception) {
+            String error = BATCH_DOWNLOAD_ERROR.format(objects.size(), evaluatedBucket, exception.getMessage());
+            throw new DownloadObjectsException(error, exception);
+        }
+
+        ListOfDownloadObjectResults listOfResults = new ListOfDownloadObjectResults(results);
+        int downloadedCount = (int) results.stream().filter(DownloadObjectResult::isSuccess).count();
+        DownloadObjectsAttributes attributes = new DownloadObjectsAttributes(downloadedCount, results.size() - downloadedCount);
+
+        return MessageBuilder.get(DownloadObjects.class)
+                .withJavaObject(listOfResults)
+                .attributes(attributes)
+                .build();
+    }
+
+    @Override
+    public void dispose() {
+        S3ClientFactory.release(configuration, this);
+    }
+
+    public void setConfiguration(AwsConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setBucket(DynamicString bucket) {
+        this.bucket = bucket;
+    }
+
+    public void setKeys(DynamicObject keys) {
+        this.keys = keys;
+    }
+
+    public void setConcurrency(Integer concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public void setMaxObjectSize(Integer maxObjectSize) {
+        this.maxObjectSize = maxObjectSize;
+    }
+
+    public void setMaxTotalSize(Integer maxTotalSize) {
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    private List<BatchDownload.ObjectLocation> asObjectLocations(String defaultBucket, List<Object> keysList) {
+        List<BatchDownload.ObjectLocation> objects = new ArrayList<>(keysList.size());
+        for (Object key : keysList) {
+            // Each entry must be either a key or an S3 Object with a key.
+            Input.requireTypeMatchesAny(DownloadObjects.class, key, String.class, Map.class);
+            if (key instanceof String) {
+                objects.add(new BatchDownload.ObjectLocation(defaultBucket, (String) key));
+            } else {
+                Map<String, Object> summary = (Map<String, Object>) key;
+                Object objectKey = summary.get(KEY);
+                Input.requireTypeMatches(DownloadObjects.class, objectKey, String.class);
+                Object objectBucket = summary.get(BUCKET);
+                objects.add(new BatchDownload.ObjectLocation(
+                        objectBucket instanceof String ? (String) objectBucket : defaultBucket,
+                        (String) objectKey));
+            }
+        }
+        return objects;
+    }
+}
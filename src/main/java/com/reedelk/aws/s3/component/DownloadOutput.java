@@ -0,0 +1,13 @@
+package com.reedelk.aws.s3.component;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum DownloadOutput {
+
+    @DisplayName("Byte Array")
+    BYTE_ARRAY,
+    @DisplayName("Stream")
+    STREAM,
+    @DisplayName("File")
+    FILE
+}
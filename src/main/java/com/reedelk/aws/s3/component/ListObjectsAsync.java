@@ -0,0 +1,56 @@
+package com.reedelk.aws.s3.component;
+
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.ListObjectsAttributes;
+import com.reedelk.aws.s3.internal.commons.AsyncExecution;
+import com.reedelk.aws.s3.internal.type.ListOfSummaryObject;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.OnResult;
+import com.reedelk.runtime.api.component.ProcessorAsync;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@ModuleComponent("S3 List Objects (Async)")
+@ComponentOutput(
+        attributes = ListObjectsAttributes.class,
+        payload = ListOfSummaryObject.class,
+        description = "A list of S3 Objects found in the given bucket. " +
+                "If the listing mode is 'All Pages' or 'All Pages (Parallel)', a stream of S3 Objects found in the given bucket: " +
+                "the 'truncated' attribute is then always false, since the stream contains all the objects, and the 'keyCount' " +
+                "attribute is not set, since the number of objects is known only once the stream has been consumed.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The component input is used to evaluate the dynamic value provided for the bucket name and continuation token.")
+@Description("The S3 List Objects (Async) Component lists the objects in the specified bucket without blocking the flow thread: " +
+        "it has the same properties and behaviour as the S3 List Objects Component.")
+@Component(service = ListObjectsAsync.class, scope = PROTOTYPE)
+public class ListObjectsAsync extends AbstractListObjects implements ProcessorAsync {
+
+    @Reference
+    ScriptEngineService scriptService;
+
+    private ExecutorService executor;
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        executor = S3ClientFactory.ioExecutorOf(this);
+    }
+
+    @Override
+    public void apply(FlowContext flowContext, Message message, OnResult callback) {
+        AsyncExecution.execute(executor, flowContext, callback, () -> execute(flowContext, message));
+    }
+
+    @Override
+    ScriptEngineService scriptService() {
+        return scriptService;
+    }
+}
@@ -0,0 +1,13 @@
+package com.reedelk.aws.s3.component;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum ListingMode {
+
+    @DisplayName("Single Page")
+    SINGLE_PAGE,
+    @DisplayName("All Pages")
+    ALL_PAGES,
+    @DisplayName("All Pages (Parallel)")
+    PARALLEL
+}
@@ -0,0 +1,234 @@
+package com.reedelk.aws.s3.component;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.DownloadObjectAttributes;
+import com.reedelk.aws.s3.internal.download.ResumableObjectStream;
+import com.reedelk.aws.s3.internal.exception.ReadRecordsException;
+import com.reedelk.aws.s3.internal.records.RecordBatches;
+import com.reedelk.aws.s3.internal.type.RecordBatch;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.ProcessorSync;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static com.reedelk.aws.s3.internal.commons.Messages.ReadRecords.*;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNullOrBlank;
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@ModuleComponent("S3 Read Records")
+@ComponentOutput(
+        attributes = DownloadObjectAttributes.class,
+        payload = RecordBatch.class,
+        description = "A stream of batches of records read from the object. Each record is a string for lines and NDJSON, " +
+                "a list of fields for CSV or, for CSV with a header, a map from the column names to the fields.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The component input is used to evaluate the dynamic " +
+                "values provided for the bucket name and the key of the object to be read.")
+@Description("Reads the object stored in Amazon S3 under the specified bucket and key incrementally and " +
+        "emits its records (lines, CSV rows or NDJSON documents) as a stream of batches. " +
+        "The object is requested from S3 when the stream is consumed and parsed while it is read, and GZIP compressed objects " +
+        "are decompressed on the fly: at most one batch is held in memory, whatever the size of the object. " +
+        "If the connection drops while reading, the object is requested again from the first byte not yet read, " +
+        "with a ranged GET which fails if the object has been replaced in the meantime.")
+@Component(service = ReadRecords.class, scope = PROTOTYPE)
+public class ReadRecords implements ProcessorSync {
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int DEFAULT_MAX_RESUMES = 3;
+    private static final String DEFAULT_DELIMITER = ",";
+
+    @DialogTitle("AWS S3 Configuration")
+    @Property("Configuration")
+    @Mandatory
+    private AwsConfiguration configuration;
+
+    @Property("Bucket Name")
+    @Hint("my-bucket")
+    @Example("my-bucket")
+    @Mandatory
+    @Description("The name of the bucket containing the desired object.")
+    private DynamicString bucket;
+
+    @Property("Key")
+    @Hint("my-key")
+    @Example("events/2020-09-01.ndjson.gz")
+    @Description("The key under which the desired object is stored.")
+    private DynamicString key;
+
+    @Property("Format")
+    @Example("NDJSON")
+    @DefaultValue("LINES")
+    @Description("The format of the records: 'Lines' emits each line as a string, 'CSV' emits the fields of each row " +
+            "(quoted fields may contain delimiters and line breaks), 'NDJSON' emits each JSON document as a string, skipping blank lines.")
+    private RecordFormat format;
+
+    @Property("CSV Header")
+    @DefaultValue("false")
+    @When(propertyName = "format", propertyValue = "CSV")
+    @Description("If true, the first row contains the column names and each record is a map from the column names to the fields.")
+    private Boolean csvHeader;
+
+    @Property("Field Delimiter")
+    @Hint(",")
+    @Example(";")
+    @DefaultValue(",")
+    @When(propertyName = "format", propertyValue = "CSV")
+    @Description("The character separating the fields of the CSV rows.")
+    private String fieldDelimiter;
+
+    @Property("Batch Size")
+    @Hint("1000")
+    @Example("500")
+    @DefaultValue("1000")
+    @Description("The maximum number of records in each batch. The last batch may contain fewer records.")
+    private Integer batchSize;
+
+    @Property("Compression")
+    @Example("GZIP")
+    @DefaultValue("AUTO")
+    @Description("The compression of the object content. When 'Auto', GZIP compressed content is detected from its first bytes.")
+    private RecordCompression compression;
+
+    @Group("Advanced")
+    @Property("Charset")
+    @Hint("UTF-8")
+    @Example("ISO-8859-1")
+    @DefaultValue("UTF-8")
+    @Description("The charset of the object content.")
+    private String charset;
+
+    @Group("Advanced")
+    @Property("Max Resume Attempts")
+    @Hint("3")
+    @Example("5")
+    @DefaultValue("3")
+    @Description("The maximum number of times the object is requested again after the connection drops while reading it.")
+    private Integer maxResumes;
+
+    @Reference
+    ScriptEngineService scriptService;
+
+    private AmazonS3 s3;
+    private RecordBatches.Settings settings;
+
+    @Override
+    public void initialize() {
+        requireNotNull(ReadRecords.class, configuration, "S3 configuration is missing. Aws configuration must be provided.");
+        requireNotNullOrBlank(ReadRecords.class, bucket, "S3 bucket name is missing. The bucket name is mandatory.");
+        requireNotNullOrBlank(ReadRecords.class, key, "S3 key is missing. The key is mandatory.");
+
+        String delimiter = fieldDelimiter == null || fieldDelimiter.isEmpty() ? DEFAULT_DELIMITER : fieldDelimiter;
+        settings = new RecordBatches.Settings(
+                Optional.ofNullable(format).orElse(RecordFormat.LINES),
+                Optional.ofNullable(compression).orElse(RecordCompression.AUTO),
+                charset(),
+                delimiter.charAt(0),
+                Boolean.TRUE.equals(csvHeader));
+
+        s3 = S3ClientFactory.from(configuration, this);
+    }
+
+    @Override
+    public Message apply(FlowContext flowContext, Message message) {
+
+        String evaluatedBucket = scriptService.evaluate(this.bucket, flowContext, message)
+                .orElseThrow(() -> new ReadRecordsException(BUCKET_NAME_EMPTY.format(bucket.value())));
+
+        String evaluatedKey = scriptService.evaluate(this.key, flowContext, message)
+                .orElseThrow(() -> new ReadRecordsException(KEY_EMPTY.format(key.value())));
+
+        GetObjectRequest request = new GetObjectRequest(evaluatedBucket, evaluatedKey);
+
+        // Only the metadata is requested here: the content is requested when the stream
+        // is consumed, so that a payload never consumed does not hold an open connection.
+        ObjectMetadata metadata;
+        try {
+            metadata = s3.getObjectMetadata(new GetObjectMetadataRequest(evaluatedBucket, evaluatedKey));
+        } catch (SdkClientException exception) {
+            String error = READ_ERROR.format(evaluatedBucket, evaluatedKey, exception.getMessage());
+            throw new ReadRecordsException(error, exception);
+        }
+
+        int resumes = Optional.ofNullable(maxResumes).orElse(DEFAULT_MAX_RESUMES);
+        int batchSizeRecords = Math.max(1, Optional.ofNullable(batchSize).orElse(DEFAULT_BATCH_SIZE));
+        Flux<RecordBatch> batches = RecordBatches.of(() -> new ResumableObjectStream(s3, request, metadata, resumes), settings, batchSizeRecords)
+                .onErrorMap(exception -> new ReadRecordsException(
+                        READ_ERROR.format(evaluatedBucket, evaluatedKey, exception.getMessage()), exception));
+
+        return MessageBuilder.get(ReadRecords.class)
+                .attributes(new DownloadObjectAttributes(metadata))
+                .withStream(batches, RecordBatch.class)
+                .build();
+    }
+
+    @Override
+    public void dispose() {
+        S3ClientFactory.release(configuration, this);
+    }
+
+    public void setConfiguration(AwsConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setBucket(DynamicString bucket) {
+        this.bucket = bucket;
+    }
+
+    public void setKey(DynamicString key) {
+        this.key = key;
+    }
+
+    public void setFormat(RecordFormat format) {
+        this.format = format;
+    }
+
+    public void setCsvHeader(Boolean csvHeader) {
+        this.csvHeader = csvHeader;
+    }
+
+    public void setFieldDelimiter(String fieldDelimiter) {
+        this.fieldDelimiter = fieldDelimiter;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setCompression(RecordCompression compression) {
+        this.compression = compression;
+    }
+
+    public void setCharset(String charset) {
+        this.charset = charset;
+    }
+
+    public void setMaxResumes(Integer maxResumes) {
+        this.maxResumes = maxResumes;
+    }
+
+    private Charset charset() {
+        if (charset == null || charset.trim().isEmpty()) return StandardCharsets.UTF_8;
+        try {
+            return Charset.forName(charset.trim());
+        } catch (IllegalArgumentException exception) {
+            throw new ReadRecordsException(CHARSET_NOT_SUPPORTED.format(charset), exception);
+        }
+    }
+}
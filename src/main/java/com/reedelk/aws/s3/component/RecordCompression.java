@@ -0,0 +1,13 @@
+package com.reedelk.aws.s3.component;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum RecordCompression {
+
+    @DisplayName("Auto")
+    AUTO,
+    @DisplayName("None")
+    NONE,
+    @DisplayName("GZIP")
+    GZIP
+}
@@ -0,0 +1,13 @@
+package com.reedelk.aws.s3.component;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum RecordFormat {
+
+    @DisplayName("Lines")
+    LINES,
+    @DisplayName("CSV")
+    CSV,
+    @DisplayName("NDJSON")
+    NDJSON
+}
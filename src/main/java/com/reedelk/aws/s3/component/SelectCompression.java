@@ -0,0 +1,13 @@
+package com.reedelk.aws.s3.component;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum SelectCompression {
+
+    @DisplayName("None")
+    NONE,
+    @DisplayName("GZIP")
+    GZIP,
+    @DisplayName("BZIP2")
+    BZIP2
+}
@@ -0,0 +1,296 @@
+package com.reedelk.aws.s3.component;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.SelectObjectAttributes;
+import com.reedelk.aws.s3.internal.exception.SelectObjectException;
+import com.reedelk.aws.s3.internal.select.SelectedRecords;
+import com.reedelk.aws.s3.internal.type.StreamOfByteArray;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.ProcessorSync;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageAttributes;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.MimeType;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.reedelk.aws.s3.internal.commons.Messages.SelectObject.*;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNullOrBlank;
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@ModuleComponent("S3 Select Object")
+@ComponentOutput(
+        attributes = SelectObjectAttributes.class,
+        payload = { byte[].class, StreamOfByteArray.class },
+        description = "A byte array containing the records selected from the object, serialized in the output format. " +
+                "If the output is 'Stream', the records are emitted as a stream of byte array chunks.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The component input is used to evaluate the dynamic " +
+                "values provided for the bucket name, the key and the SQL expression.")
+@Description("Filters the content of an object stored in Amazon S3 with a SQL expression evaluated by S3 (S3 Select): " +
+        "only the selected records are transferred, instead of the whole object. " +
+        "Objects in CSV, JSON or Parquet format are supported; CSV and JSON objects can be compressed with GZIP or BZIP2. " +
+        "The caller must have Permission.Read access to the object. " +
+        "When the output is 'Byte Array', the number of bytes scanned, processed and returned by S3 are reported as attributes.")
+@Component(service = SelectObject.class, scope = PROTOTYPE)
+public class SelectObject implements ProcessorSync {
+
+    private static final int KB = 1024;
+    private static final int DEFAULT_CHUNK_SIZE = 64;
+    private static final String DEFAULT_FIELD_DELIMITER = ",";
+    private static final String JSON_RECORD_DELIMITER = "\n";
+
+    @DialogTitle("AWS S3 Configuration")
+    @Property("Configuration")
+    @Mandatory
+    private AwsConfiguration configuration;
+
+    @Property("Bucket Name")
+    @Hint("my-bucket")
+    @Example("my-bucket")
+    @Mandatory
+    @Description("The name of the bucket containing the desired object.")
+    private DynamicString bucket;
+
+    @Property("Key")
+    @Hint("my-key")
+    @Example("my-key")
+    @Description("The key under which the desired object is stored.")
+    private DynamicString key;
+
+    @Property("SQL Expression")
+    @Hint("SELECT * FROM S3Object s WHERE s.country = 'IT'")
+    @Example("SELECT s.id, s.amount FROM S3Object s WHERE CAST(s.amount AS FLOAT) > 1000")
+    @Mandatory
+    @Description("The SQL expression used to select the records of the object. " +
+            "See the Amazon S3 Select documentation for the supported SQL syntax.")
+    private DynamicString expression;
+
+    @Property("Input Format")
+    @Example("JSON")
+    @DefaultValue("CSV")
+    @Description("The format of the object content.")
+    private SelectInputFormat inputFormat;
+
+    @Property("Compression")
+    @Example("GZIP")
+    @DefaultValue("NONE")
+    @Description("The compression of the object content. Parquet objects must not be compressed " +
+            "as a whole, since their columns are compressed individually.")
+    private SelectCompression compression;
+
+    @Property("CSV Header")
+    @DefaultValue("false")
+    @When(propertyName = "inputFormat", propertyValue = "CSV")
+    @Description("If true, the first line of the object contains the column names, " +
+            "which can be used to refer to the columns in the SQL expression.")
+    private Boolean csvHeader;
+
+    @Property("JSON Lines")
+    @DefaultValue("false")
+    @When(propertyName = "inputFormat", propertyValue = "JSON")
+    @Description("If true, the object contains one JSON document per line, " +
+            "otherwise the object is a single JSON document.")
+    private Boolean jsonLines;
+
+    @Property("Field Delimiter")
+    @Hint(",")
+    @Example(";")
+    @DefaultValue(",")
+    @When(propertyName = "inputFormat", propertyValue = "CSV")
+    @Description("The character separating the fields of the CSV records, both in the object and in the output. " +
+            "For JSON and Parquet objects, CSV output fields are separated by a comma.")
+    private String fieldDelimiter;
+
+    @Property("Output Format")
+    @Example("JSON")
+    @DefaultValue("CSV")
+    @Description("The format of the selected records. JSON records are separated by a new line.")
+    private SelectOutputFormat outputFormat;
+
+    @Property("Output")
+    @Example("STREAM")
+    @DefaultValue("BYTE_ARRAY")
+    @Description("Sets how the selected records are returned: as a byte array fully loaded in memory " +
+            "or as a stream of byte array chunks read from S3 on demand.")
+    private SelectOutput output;
+
+    @Group("Advanced")
+    @Property("Stream Chunk Size (KB)")
+    @Hint("64")
+    @Example("256")
+    @DefaultValue("64")
+    @When(propertyName = "output", propertyValue = "STREAM")
+    @Description("The size in kilobytes of each chunk of the stream. " +
+            "At most one chunk per in-flight request is read ahead of the consumer.")
+    private Integer chunkSize;
+
+    @Reference
+    ScriptEngineService scriptService;
+
+    private AmazonS3 s3;
+
+    @Override
+    public void initialize() {
+        requireNotNull(SelectObject.class, configuration, "S3 configuration is missing. Aws configuration must be provided.");
+        requireNotNullOrBlank(SelectObject.class, bucket, "S3 bucket name is missing. The bucket name is mandatory.");
+        requireNotNullOrBlank(SelectObject.class, key, "S3 key is missing. The key is mandatory.");
+        requireNotNullOrBlank(SelectObject.class, expression, "SQL expression is missing. The SQL expression is mandatory.");
+        s3 = S3ClientFactory.from(configuration, this);
+    }
+
+    @Override
+    public Message apply(FlowContext flowContext, Message message) {
+
+        String evaluatedBucket = scriptService.evaluate(this.bucket, flowContext, message)
+                .orElseThrow(() -> new SelectObjectException(BUCKET_NAME_EMPTY.format(bucket.value())));
+
+        String evaluatedKey = scriptService.evaluate(this.key, flowContext, message)
+                .orElseThrow(() -> new SelectObjectException(KEY_EMPTY.format(key.value())));
+
+        String evaluatedExpression = scriptService.evaluate(this.expression, flowContext, message)
+                .orElseThrow(() -> new SelectObjectException(EXPRESSION_EMPTY.format(expression.value())));
+
+        SelectObjectContentRequest request = new SelectObjectContentRequest()
+                .withBucketName(evaluatedBucket)
+                .withKey(evaluatedKey)
+                .withExpression(evaluatedExpression)
+                .withExpressionType(ExpressionType.SQL)
+                .withInputSerialization(inputSerialization())
+                .withOutputSerialization(outputSerialization());
+
+        MimeType mimeType = SelectOutputFormat.JSON.equals(outputFormat) ? MimeType.APPLICATION_JSON : MimeType.TEXT_CSV;
+        SelectedRecords records = new SelectedRecords(() -> s3.selectObjectContent(request));
+
+        if (SelectOutput.STREAM.equals(output)) {
+            // The request is sent when the stream is consumed: the statistics are not available.
+            int chunkSizeBytes = Optional.ofNullable(chunkSize).orElse(DEFAULT_CHUNK_SIZE) * KB;
+            MessageAttributes attributes = new SelectObjectAttributes(evaluatedBucket, evaluatedKey, null);
+            Flux<byte[]> stream = Flux.from(records.asStream(chunkSizeBytes))
+                    .onErrorMap(exception -> new SelectObjectException(
+                            SELECT_ERROR.format(evaluatedBucket, evaluatedKey, exception.getMessage()), exception));
+            return MessageBuilder.get(SelectObject.class)
+                    .attributes(attributes)
+                    .withBinary(stream, mimeType)
+                    .build();
+        }
+
+        byte[] data;
+        try {
+            data = records.asByteArray();
+        } catch (IOException | SdkClientException exception) {
+            String error = SELECT_ERROR.format(evaluatedBucket, evaluatedKey, exception.getMessage());
+            throw new SelectObjectException(error, exception);
+        }
+
+        MessageAttributes attributes = new SelectObjectAttributes(evaluatedBucket, evaluatedKey, records.stats().orElse(null));
+        return MessageBuilder.get(SelectObject.class)
+                .attributes(attributes)
+                .withBinary(data, mimeType)
+                .build();
+    }
+
+    @Override
+    public void dispose() {
+        S3ClientFactory.release(configuration, this);
+    }
+
+    public void setConfiguration(AwsConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setBucket(DynamicString bucket) {
+        this.bucket = bucket;
+    }
+
+    public void setKey(DynamicString key) {
+        this.key = key;
+    }
+
+    public void setExpression(DynamicString expression) {
+        this.expression = expression;
+    }
+
+    public void setInputFormat(SelectInputFormat inputFormat) {
+        this.inputFormat = inputFormat;
+    }
+
+    public void setCompression(SelectCompression compression) {
+        this.compression = compression;
+    }
+
+    public void setCsvHeader(Boolean csvHeader) {
+        this.csvHeader = csvHeader;
+    }
+
+    public void setJsonLines(Boolean jsonLines) {
+        this.jsonLines = jsonLines;
+    }
+
+    public void setFieldDelimiter(String fieldDelimiter) {
+        this.fieldDelimiter = fieldDelimiter;
+    }
+
+    public void setOutputFormat(SelectOutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
+    public void setOutput(SelectOutput output) {
+        this.output = output;
+    }
+
+    public void setChunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    private InputSerialization inputSerialization() {
+        InputSerialization serialization = new InputSerialization();
+        if (SelectInputFormat.PARQUET.equals(inputFormat)) {
+            return serialization.withParquet(new ParquetInput());
+        }
+
+        if (SelectInputFormat.JSON.equals(inputFormat)) {
+            serialization.withJson(new JSONInput()
+                    .withType(Boolean.TRUE.equals(jsonLines) ? JSONType.LINES : JSONType.DOCUMENT));
+        } else {
+            serialization.withCsv(new CSVInput()
+                    .withFieldDelimiter(fieldDelimiter())
+                    .withFileHeaderInfo(Boolean.TRUE.equals(csvHeader) ? FileHeaderInfo.USE : FileHeaderInfo.NONE));
+        }
+
+        if (SelectCompression.GZIP.equals(compression)) {
+            serialization.withCompressionType(CompressionType.GZIP);
+        } else if (SelectCompression.BZIP2.equals(compression)) {
+            serialization.withCompressionType(CompressionType.BZIP2);
+        } else {
+            serialization.withCompressionType(CompressionType.NONE);
+        }
+        return serialization;
+    }
+
+    private OutputSerialization outputSerialization() {
+        OutputSerialization serialization = new OutputSerialization();
+        if (SelectOutputFormat.JSON.equals(outputFormat)) {
+            return serialization.withJson(new JSONOutput().withRecordDelimiter(JSON_RECORD_DELIMITER));
+        }
+        return serialization.withCsv(new CSVOutput().withFieldDelimiter(fieldDelimiter()));
+    }
+
+    private String fieldDelimiter() {
+        // The delimiter is shown only when the input is CSV (the default input format).
+        boolean csvInput = inputFormat == null || SelectInputFormat.CSV.equals(inputFormat);
+        return !csvInput || fieldDelimiter == null || fieldDelimiter.isEmpty() ? DEFAULT_FIELD_DELIMITER : fieldDelimiter;
+    }
+}
@@ -0,0 +1,61 @@
+package com.reedelk.aws.s3.component;
+
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.UploadObjectAttributes;
+import com.reedelk.aws.s3.internal.commons.AsyncExecution;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.OnResult;
+import com.reedelk.runtime.api.component.ProcessorAsync;
+import com.reedelk.runtime.api.converter.ConverterService;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@ModuleComponent("S3 Upload Object (Async)")
+@ComponentOutput(attributes = UploadObjectAttributes.class,
+        payload = ComponentOutput.PreviousComponent.class,
+        description = "The S3 Upload Object Component output is the original input message. " +
+                "The payload is not changed by this component.")
+@ComponentInput(
+        payload = { String.class, byte[].class },
+        description = "The expected input is a string or a byte array of the data to be uploaded on the S3 bucket. " +
+                "If the source is 'File', the input is only used to evaluate the dynamic values.")
+@Description("The S3 Upload Object (Async) Component uploads an object to the specified AWS S3 bucket without blocking the flow thread: " +
+        "it has the same properties and behaviour as the S3 Upload Object Component.")
+@Component(service = UploadObjectAsync.class, scope = PROTOTYPE)
+public class UploadObjectAsync extends AbstractUploadObject implements ProcessorAsync {
+
+    @Reference
+    ConverterService converterService;
+    @Reference
+    ScriptEngineService scriptService;
+
+    private ExecutorService executor;
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        executor = S3ClientFactory.ioExecutorOf(this);
+    }
+
+    @Override
+    public void apply(FlowContext flowContext, Message message, OnResult callback) {
+        AsyncExecution.execute(executor, flowContext, callback, () -> execute(flowContext, message));
+    }
+
+    @Override
+    ConverterService converterService() {
+        return converterService;
+    }
+
+    @Override
+    ScriptEngineService scriptService() {
+        return scriptService;
+    }
+}
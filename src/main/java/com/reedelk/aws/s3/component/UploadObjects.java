@@ -0,0 +1,196 @@
+package com.reedelk.aws.s3.component;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.reedelk.aws.s3.internal.S3ClientFactory;
+import com.reedelk.aws.s3.internal.attribute.UploadObjectsAttributes;
+import com.reedelk.aws.s3.internal.commons.BatchExecution;
+import com.reedelk.aws.s3.internal.exception.UploadObjectsException;
+import com.reedelk.aws.s3.internal.type.ListOfUploadObjectResults;
+import com.reedelk.aws.s3.internal.type.UploadObjectResult;
+import com.reedelk.aws.s3.internal.upload.BatchUpload;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.ProcessorSync;
+import com.reedelk.runtime.api.converter.ConverterService;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.MimeType;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicObject;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.reedelk.aws.s3.internal.commons.Messages.UploadObjects.*;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNullOrBlank;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Input;
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@ModuleComponent("S3 Upload Objects")
+@ComponentOutput(
+        attributes = UploadObjectsAttributes.class,
+        payload = ListOfUploadObjectResults.class,
+        description = "A list with the result of each object, in the same order as the objects. " +
+                "Each result contains the ETag of the object if the upload succeeded ('success' is true), " +
+                "or the code and message of the error otherwise.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The input payload is used to evaluate the bucket name and the objects to be uploaded.")
+@Description("The S3 Upload Objects Component uploads multiple objects to an S3 bucket concurrently. " +
+        "The objects can be a map of key to content, or a list of maps each one with a 'key', a 'content' " +
+        "and an optional 'contentType'. The content can be a string or a byte array: unless a content type is given, " +
+        "strings are uploaded as 'text/plain' and byte arrays as 'application/octet-stream'. " +
+        "At most 'Concurrency' objects are uploaded at the same time; the number of concurrent requests " +
+        "is also limited by the maximum number of connections of the AWS configuration. " +
+        "A failure to upload some of the objects does not fail the component: " +
+        "the error is returned in the result of the object.")
+@Component(service = UploadObjects.class, scope = PROTOTYPE)
+public class UploadObjects implements ProcessorSync {
+
+    private static final int DEFAULT_CONCURRENCY = 16;
+    private static final String KEY = "key";
+    private static final String CONTENT = "content";
+    private static final String CONTENT_TYPE = "contentType";
+
+    @DialogTitle("AWS S3 Configuration")
+    @Property("Configuration")
+    @Mandatory
+    private AwsConfiguration configuration;
+
+    @Property("Bucket Name")
+    @Hint("my-bucket")
+    @Example("my-bucket")
+    @Mandatory
+    @Description("The name of the bucket the objects are uploaded to.")
+    private DynamicString bucket;
+
+    @Property("Objects")
+    @Example("#[['key1': 'content1', 'key2': 'content2']]")
+    @InitValue("#[message.payload()]")
+    @Description("A map of key to content, or a list of maps with 'key', 'content' and optionally 'contentType'.")
+    private DynamicObject objects;
+
+    @Property("Concurrency")
+    @Hint("16")
+    @Example("32")
+    @DefaultValue("16")
+    @Description("The maximum number of objects uploaded in parallel by this component.")
+    private Integer concurrency;
+
+    @Reference
+    ScriptEngineService scriptService;
+    @Reference
+    ConverterService converterService;
+
+    private AmazonS3 s3;
+    private BatchExecution uploads;
+    private BatchUpload batchUpload;
+
+    @Override
+    public void initialize() {
+        requireNotNull(UploadObjects.class, configuration, "S3 configuration is missing. Aws configuration must be provided.");
+        requireNotNullOrBlank(UploadObjects.class, bucket, "S3 bucket name is missing. The bucket name is mandatory.");
+        requireNotNullOrBlank(UploadObjects.class, objects, "S3 objects are missing. The objects are mandatory.");
+
+        s3 = S3ClientFactory.from(configuration, this);
+
+        int threads = Optional.ofNullable(concurrency).orElse(DEFAULT_CONCURRENCY);
+        uploads = new BatchExecution(S3ClientFactory.batchExecutorOf(this), threads);
+        batchUpload = new BatchUpload(s3, uploads);
+    }
+
+    @Override
+    public Message apply(FlowContext flowContext, Message message) {
+
+        String evaluatedBucket = scriptService.evaluate(this.bucket, flowContext, message)
+                .orElseThrow(() -> new UploadObjectsException(BUCKET_NAME_EMPTY.format(bucket.value())));
+
+        Object objectsToUpload = scriptService.evaluate(this.objects, flowContext, message)
+                .orElseThrow(() -> new UploadObjectsException(OBJECTS_EMPTY.format(objects.value())));
+
+        Input.requireTypeMatchesAny(UploadObjects.class, objectsToUpload, Map.class, List.class);
+
+        List<BatchUpload.ObjectContent> contents = asObjectContents(objectsToUpload);
+
+        List<UploadObjectResult> results;
+        try {
+            results = batchUpload.upload(evaluatedBucket, contents);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            String error = BATCH_UPLOAD_ERROR.format(contents.size(), evaluatedBucket, exception.getMessage());
+            throw new UploadObjectsException(error, exception);
+        } catch (SdkClientException exception) {
+            String error = BATCH_UPLOAD_ERROR.format(contents.size(), evaluatedBucket, exception.getMessage());
+            throw new UploadObjectsException(error, exception);
+        }
+
+        ListOfUploadObjectResults listOfResults = new ListOfUploadObjectResults(results);
+        int uploadedCount = (int) results.stream().filter(UploadObjectResult::isSuccess).count();
+        UploadObjectsAttributes attributes = new UploadObjectsAttributes(uploadedCount, results.size() - uploadedCount);
+
+        return MessageBuilder.get(UploadObjects.class)
+                .withJavaObject(listOfResults)
+                .attributes(attributes)
+                .build();
+    }
+
+    @Override
+    public void dispose() {
+        S3ClientFactory.release(configuration, this);
+    }
+
+    public void setConfiguration(AwsConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setBucket(DynamicString bucket) {
+        this.bucket = bucket;
+    }
+
+    public void setObjects(DynamicObject objects) {
+        this.objects = objects;
+    }
+
+    public void setConcurrency(Integer concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BatchUpload.ObjectContent> asObjectContents(Object objectsToUpload) {
+        List<BatchUpload.ObjectContent> contents = new ArrayList<>();
+        if (objectsToUpload instanceof Map) {
+            // The objects are uploaded in the iteration order of the map.
+            for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) objectsToUpload).entrySet()) {
+                Input.requireTypeMatches(UploadObjects.class, entry.getKey(), String.class);
+                contents.add(asObjectContent((String) entry.getKey(), entry.getValue(), null));
+            }
+        } else {
+            for (Object object : (List<Object>) objectsToUpload) {
+                // Each entry must be a map with a key and a content.
+                Input.requireTypeMatches(UploadObjects.class, object, Map.class);
+                Map<String, Object> entry = (Map<String, Object>) object;
+                Object key = entry.get(KEY);
+                Input.requireTypeMatches(UploadObjects.class, key, String.class);
+                Object contentType = entry.get(CONTENT_TYPE);
+                contents.add(asObjectContent((String) key, entry.get(CONTENT),
+                        contentType instanceof String ? (String) contentType : null));
+            }
+        }
+        return contents;
+    }
+
+    private BatchUpload.ObjectContent asObjectContent(String key, Object content, String contentType) {
+        Input.requireTypeMatchesAny(UploadObjects.class, content, String.class, byte[].class, Byte[].class);
+        byte[] data = converterService.convert(content, byte[].class);
+        String actualContentType = contentType != null ? contentType :
+                content instanceof String ? MimeType.TEXT_PLAIN.toString() : MimeType.APPLICATION_BINARY.toString();
+        return new BatchUpload.ObjectContent(key, data, actualContentType);
+    }
+}
@@ -0,0 +1,11 @@
+package com.reedelk.aws.s3.component;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum UploadSource {
+
+    @DisplayName("Payload")
+    PAYLOAD,
+    @DisplayName("File")
+    FILE
+}
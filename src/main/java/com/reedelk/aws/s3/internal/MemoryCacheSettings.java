@@ -0,0 +1,60 @@
+package com.reedelk.aws.s3.internal;
+
+import com.reedelk.aws.s3.component.AwsConfiguration;
+import com.reedelk.aws.s3.internal.cache.MemoryCache;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable snapshot of the memory cache settings of an AWS configuration.
+ */
+class MemoryCacheSettings {
+
+    private static final long KB = 1024L;
+    private static final long MB = 1024L * 1024L;
+    private static final int DEFAULT_SIZE = 64;
+    private static final int DEFAULT_TTL = 60;
+    private static final int DEFAULT_MAX_OBJECT_SIZE = 256;
+
+    private final boolean enabled;
+    private final int size;
+    private final int ttl;
+    private final int maxObjectSize;
+
+    private MemoryCacheSettings(AwsConfiguration configuration) {
+        this.enabled = Boolean.TRUE.equals(configuration.getMemoryCache());
+        this.size = Optional.ofNullable(configuration.getMemoryCacheSize()).orElse(DEFAULT_SIZE);
+        this.ttl = Optional.ofNullable(configuration.getMemoryCacheTtl()).orElse(DEFAULT_TTL);
+        this.maxObjectSize = Optional.ofNullable(configuration.getMemoryCacheMaxObjectSize()).orElse(DEFAULT_MAX_OBJECT_SIZE);
+    }
+
+    static MemoryCacheSettings of(AwsConfiguration configuration) {
+        return new MemoryCacheSettings(configuration);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    MemoryCache toMemoryCache() {
+        return new MemoryCache(size * MB, TimeUnit.SECONDS.toMillis(ttl), maxObjectSize * KB);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MemoryCacheSettings that = (MemoryCacheSettings) o;
+        return enabled == that.enabled &&
+                size == that.size &&
+                ttl == that.ttl &&
+                maxObjectSize == that.maxObjectSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, size, ttl, maxObjectSize);
+    }
+}
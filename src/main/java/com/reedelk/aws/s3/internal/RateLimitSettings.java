@@ -0,0 +1,53 @@
+package com.reedelk.aws.s3.internal;
+
+import com.reedelk.aws.s3.component.AwsConfiguration;
+import com.reedelk.aws.s3.internal.throttle.AdaptiveRateLimiter;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Immutable snapshot of the rate limiting settings of an AWS configuration.
+ */
+class RateLimitSettings {
+
+    private static final int DEFAULT_INITIAL_RATE = 500;
+    private static final int DEFAULT_MAX_RATE = 3500;
+
+    private final boolean enabled;
+    private final int initialRate;
+    private final int maxRate;
+
+    private RateLimitSettings(AwsConfiguration configuration) {
+        this.enabled = Boolean.TRUE.equals(configuration.getRateLimiting());
+        this.initialRate = Optional.ofNullable(configuration.getInitialRequestRate()).orElse(DEFAULT_INITIAL_RATE);
+        this.maxRate = Optional.ofNullable(configuration.getMaxRequestRate()).orElse(DEFAULT_MAX_RATE);
+    }
+
+    static RateLimitSettings of(AwsConfiguration configuration) {
+        return new RateLimitSettings(configuration);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    AdaptiveRateLimiter toRateLimiter() {
+        return new AdaptiveRateLimiter(initialRate, maxRate);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RateLimitSettings that = (RateLimitSettings) o;
+        return enabled == that.enabled &&
+                initialRate == that.initialRate &&
+                maxRate == that.maxRate;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, initialRate, maxRate);
+    }
+}
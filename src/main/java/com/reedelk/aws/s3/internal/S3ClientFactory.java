@@ -1,66 +1,451 @@
 package com.reedelk.aws.s3.internal;
 
+import com.amazonaws.Request;
+import com.amazonaws.Response;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
+import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.reedelk.aws.s3.component.AwsConfiguration;
 import com.reedelk.aws.s3.component.AwsRegion;
-import com.reedelk.runtime.api.component.ProcessorSync;
+import com.reedelk.aws.s3.internal.cache.MemoryCache;
+import com.reedelk.aws.s3.internal.commons.ManagementBeans;
+import com.reedelk.aws.s3.internal.commons.NamedThreadFactory;
+import com.reedelk.aws.s3.internal.commons.SingleFlight;
+import com.reedelk.aws.s3.internal.download.DownloadKey;
+import com.reedelk.aws.s3.internal.download.DownloadedObject;
+import com.reedelk.aws.s3.internal.metrics.RequestMetrics;
+import com.reedelk.aws.s3.internal.throttle.AdaptiveRateLimiter;
+import com.reedelk.runtime.api.component.Implementor;
 
+import javax.management.ObjectName;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Registry of the S3 clients shared by the components using the same configuration.
+ * Clients are keyed by an immutable snapshot of the configuration and reference counted:
+ * acquiring and releasing a client never takes a global lock, and a client is built by its
+ * first user outside of the registry. When the last user releases a client, the client is
+ * shut down in the background once all its in-flight requests have completed, including the
+ * object contents still being read, or once the drain timeout has expired. Clients released
+ * together are drained concurrently: each of them is shut down at most after the drain timeout.
+ * Each client also owns a bounded I/O executor, created on first use, on which the
+ * asynchronous components execute their requests, optionally a memory cache of small objects
+ * and optionally an adaptive rate limiter applied to all the requests issued with the client.
+ * The metrics of the requests of each client are published as MBeans in the 'com.reedelk.aws.s3' domain.
+ */
 public class S3ClientFactory {
 
-    private static final Map<AwsConfiguration, ClientHolder> CONFIG_CLIENT_MAP = new HashMap<>();
+    private static final long DRAIN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final long DRAIN_POLL_MILLIS = 50;
+    private static final int DEFAULT_IO_THREADS = 16;
+    private static final int IO_QUEUED_REQUESTS_PER_THREAD = 64;
+    private static final int MAX_BATCH_THREADS = 64;
 
-    public static synchronized AmazonS3 from(AwsConfiguration configuration, ProcessorSync user) {
-        if (CONFIG_CLIENT_MAP.containsKey(configuration)) {
-            ClientHolder clientHolder = CONFIG_CLIENT_MAP.get(configuration);
-            clientHolder.users.add(user);
-            return clientHolder.s3;
+    // Management names in use: clients which would have the same name get a numeric suffix.
+    private static final Set<String> MANAGEMENT_NAMES = new HashSet<>();
+
+    private static final Map<ClientKey, ClientHolder> CLIENTS = new ConcurrentHashMap<>();
+    private static final Map<Implementor, ClientHolder> USERS = new ConcurrentHashMap<>();
+
+    // Created when a client is released and shut down once all the released clients have been drained.
+    private static ScheduledExecutorService shutdownExecutor;
+    private static int drainingClients;
+
+    private S3ClientFactory() {
+    }
+
+    public static AmazonS3 from(AwsConfiguration configuration, Implementor user) {
+        ClientKey key = ClientKey.of(configuration);
+        while (true) {
+            // The holder is cheap to create: the client is built by the first
+            // user acquiring it, outside of the lock held by computeIfAbsent.
+            ClientHolder holder = CLIENTS.computeIfAbsent(key, ClientHolder::new);
+            if (holder.retain()) {
+                AmazonS3 s3;
+                try {
+                    s3 = holder.client();
+                } catch (RuntimeException exception) {
+                    release(holder);
+                    throw exception;
+                }
+                ClientHolder previous = USERS.put(user, holder);
+                // The same user acquired a client again without releasing it first.
+                if (previous != null) release(previous);
+                return s3;
+            }
+            // The client is shutting down: it is removed (if still
+            // registered) so that a new one is created at the next attempt.
+            CLIENTS.remove(key, holder);
         }
+    }
 
+    public static void release(AwsConfiguration configuration, Implementor user) {
+        // Users are tracked by identity: the configuration might have been
+        // changed after the client was acquired, therefore it is not used as lookup key.
+        ClientHolder holder = USERS.remove(user);
+        if (holder != null) release(holder);
+    }
 
-        String accessKeyId = configuration.getAccessKeyId();
-        String secretKeyId = configuration.getSecretKeyId();
-        AwsRegion region = configuration.getRegion();
+    /**
+     * Returns the I/O executor of the client acquired by the given user.
+     * The executor is shared by all the users of the same client.
+     */
+    public static ExecutorService ioExecutorOf(Implementor user) {
+        return holderOf(user).ioExecutor();
+    }
 
-        BasicAWSCredentials credentials = new BasicAWSCredentials(accessKeyId, secretKeyId);
-        AmazonS3 s3 = AmazonS3ClientBuilder.standard()
-                .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                .withRegion(region.get())
-                .build();
+    /**
+     * Returns the memory cache of the client acquired by the given user,
+     * or an empty optional if the memory cache is not enabled in the configuration.
+     */
+    /**
+     * Returns the executor running the batches of the components using the same client: each
+     * component bounds the number of its tasks in flight, and the executor is shut down with the client.
+     */
+    public static ExecutorService batchExecutorOf(Implementor user) {
+        return holderOf(user).batchExecutor();
+    }
 
-        ClientHolder holder = new ClientHolder(s3, user);
-        CONFIG_CLIENT_MAP.put(configuration, holder);
-        return s3;
+    public static Optional<MemoryCache> memoryCacheOf(Implementor user) {
+        return Optional.ofNullable(holderOf(user).memoryCache);
     }
 
-    public static synchronized void release(AwsConfiguration configuration, ProcessorSync processorSync) {
-        if (CONFIG_CLIENT_MAP.containsKey(configuration)) {
-            ClientHolder clientHolder = CONFIG_CLIENT_MAP.get(configuration);
-            clientHolder.users.remove(processorSync);
-            // If there are no more processors using it, we must shutdown the s3 client
-            // and remove the config from the map.
-            if (clientHolder.users.isEmpty()) {
-                clientHolder.s3.shutdown();
-                CONFIG_CLIENT_MAP.remove(configuration);
+    /**
+     * Returns the registry of the downloads in flight on the client acquired by the given user,
+     * used to coalesce concurrent downloads of the same object.
+     */
+    public static SingleFlight<DownloadKey, DownloadedObject> downloadsOf(Implementor user) {
+        return holderOf(user).downloads;
+    }
+
+    private static ClientHolder holderOf(Implementor user) {
+        ClientHolder holder = USERS.get(user);
+        if (holder == null) {
+            throw new IllegalStateException("The S3 client has not been acquired by the component " + user.getClass().getName());
+        }
+        return holder;
+    }
+
+    private static void release(ClientHolder holder) {
+        if (holder.release()) {
+            CLIENTS.remove(holder.key, holder);
+            long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+            synchronized (S3ClientFactory.class) {
+                if (shutdownExecutor == null) {
+                    shutdownExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("s3-client-shutdown"));
+                }
+                drainingClients++;
+                ScheduledExecutorService executor = shutdownExecutor;
+                executor.execute(() -> drain(holder, deadline, executor));
+            }
+        }
+    }
+
+    // Draining never blocks the shutdown thread: clients still having requests
+    // in flight are checked again later, while the other clients are drained.
+    private static void drain(ClientHolder holder, long deadline, ScheduledExecutorService executor) {
+        if (holder.inFlightRequests.count() > 0 && System.currentTimeMillis() < deadline) {
+            executor.schedule(() -> drain(holder, deadline, executor), DRAIN_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        try {
+            holder.shutdown();
+        } finally {
+            synchronized (S3ClientFactory.class) {
+                if (--drainingClients == 0) {
+                    shutdownExecutor.shutdown();
+                    shutdownExecutor = null;
+                }
             }
         }
     }
 
     static class ClientHolder {
 
-        private final AmazonS3 s3;
-        private final List<ProcessorSync> users = new ArrayList<>();
+        private static final int CLOSED = -1;
+
+        private final ClientKey key;
+        private final InFlightRequests inFlightRequests = new InFlightRequests();
+        private final AtomicInteger references = new AtomicInteger(0);
+        private final List<ObjectName> managementBeans = new ArrayList<>();
+        private final SingleFlight<DownloadKey, DownloadedObject> downloads = new SingleFlight<>(DownloadedObject::copy);
+        private volatile AmazonS3 s3;
+        private volatile MemoryCache memoryCache;
+        private volatile ExecutorService ioExecutor;
+        private volatile ExecutorService batchExecutor;
+        private String managementName;
+
+        ClientHolder(ClientKey key) {
+            this.key = key;
+        }
+
+        AmazonS3 client() {
+            AmazonS3 client = s3;
+            if (client == null) {
+                synchronized (this) {
+                    client = s3;
+                    if (client == null) {
+                        client = build();
+                        s3 = client;
+                    }
+                }
+            }
+            return client;
+        }
+
+        private AmazonS3 build() {
+            String name = acquireManagementName(key);
+            managementName = name;
+
+            if (key.memoryCache.isEnabled()) {
+                MemoryCache cache = key.memoryCache.toMemoryCache();
+                managementBeans.add(ManagementBeans.register("MemoryCache", name, cache));
+                memoryCache = cache;
+            }
+
+            RequestMetrics metrics = new RequestMetrics(inFlightRequests::count, key.transport.maxConnections());
+            managementBeans.add(ManagementBeans.register("Client", name, metrics));
+            metrics.operations().forEach((operation, operationMetrics) ->
+                    managementBeans.add(ManagementBeans.register("Operation", name, operation, operationMetrics)));
+
+            List<RequestHandler2> requestHandlers = new ArrayList<>();
+            requestHandlers.add(inFlightRequests);
+            requestHandlers.add(metrics);
+            if (key.rateLimit.isEnabled()) {
+                AdaptiveRateLimiter rateLimiter = key.rateLimit.toRateLimiter();
+                requestHandlers.add(rateLimiter);
+                managementBeans.add(ManagementBeans.register("RateLimiter", name, rateLimiter));
+            }
+
+            BasicAWSCredentials credentials = new BasicAWSCredentials(key.accessKeyId, key.secretKeyId);
+            AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
+                    .withCredentials(new AWSStaticCredentialsProvider(credentials))
+                    .withClientConfiguration(key.transport.toClientConfiguration())
+                    .withPathStyleAccessEnabled(key.pathStyleAccess)
+                    .withRequestHandlers(requestHandlers.toArray(new RequestHandler2[0]));
+            if (key.endpoint != null) {
+                builder.withEndpointConfiguration(new EndpointConfiguration(key.endpoint, key.region.get().getName()));
+            } else {
+                builder.withRegion(key.region.get());
+            }
+            return builder.build();
+        }
+
+        ExecutorService ioExecutor() {
+            ExecutorService executor = ioExecutor;
+            if (executor == null) {
+                synchronized (this) {
+                    executor = ioExecutor;
+                    if (executor == null) {
+                        // A bounded queue: requests above its capacity are rejected and fail the
+                        // flow, instead of piling up in memory when S3 is slower than the flows.
+                        executor = new ThreadPoolExecutor(key.ioThreads, key.ioThreads, 0L, TimeUnit.MILLISECONDS,
+                                new ArrayBlockingQueue<>(key.ioThreads * IO_QUEUED_REQUESTS_PER_THREAD),
+                                new NamedThreadFactory("s3-io"));
+                        ioExecutor = executor;
+                    }
+                }
+            }
+            return executor;
+        }
+
+        ExecutorService batchExecutor() {
+            ExecutorService executor = batchExecutor;
+            if (executor == null) {
+                synchronized (this) {
+                    executor = batchExecutor;
+                    if (executor == null) {
+                        // Idle threads are released. Above the maximum number of threads,
+                        // the tasks are executed by the submitting thread instead.
+                        executor = new ThreadPoolExecutor(0, MAX_BATCH_THREADS, 60L, TimeUnit.SECONDS,
+                                new SynchronousQueue<>(), new NamedThreadFactory("s3-batch"),
+                                new ThreadPoolExecutor.CallerRunsPolicy());
+                        batchExecutor = executor;
+                    }
+                }
+            }
+            return executor;
+        }
+
+        boolean retain() {
+            while (true) {
+                int current = references.get();
+                if (current == CLOSED) return false;
+                if (references.compareAndSet(current, current + 1)) return true;
+            }
+        }
+
+        /**
+         * @return true if this was the last reference and the client must be shut down.
+         */
+        boolean release() {
+            // If a concurrent retain happens after the decrement, the
+            // compare and set fails and the client stays open.
+            return references.decrementAndGet() == 0 &&
+                    references.compareAndSet(0, CLOSED);
+        }
+
+        synchronized void shutdown() {
+            if (ioExecutor != null) ioExecutor.shutdown();
+            if (batchExecutor != null) batchExecutor.shutdown();
+            managementBeans.forEach(ManagementBeans::unregister);
+            if (managementName != null) releaseManagementName(managementName);
+            if (s3 != null) s3.shutdown();
+        }
+    }
+
+    /**
+     * The management beans of a client are named after its region, endpoint and access key id,
+     * so that monitoring keeps finding them when the client is recreated (e.g. on redeploy).
+     * The access key id is hashed, and its hash is stable across restarts.
+     */
+    private static String acquireManagementName(ClientKey key) {
+        StringBuilder base = new StringBuilder(key.region.get().getName());
+        if (key.endpoint != null) base.append('-').append(key.endpoint);
+        base.append('-').append(Integer.toHexString(Objects.hashCode(key.accessKeyId)));
+        synchronized (MANAGEMENT_NAMES) {
+            String name = base.toString();
+            for (int suffix = 2; !MANAGEMENT_NAMES.add(name); suffix++) {
+                name = base + "-" + suffix;
+            }
+            return name;
+        }
+    }
+
+    private static void releaseManagementName(String name) {
+        synchronized (MANAGEMENT_NAMES) {
+            MANAGEMENT_NAMES.remove(name);
+        }
+    }
+
+    /**
+     * Counts the requests in flight. The response of a GetObject request is still in flight
+     * until its content has been closed or aborted: the connection is released only then.
+     */
+    static class InFlightRequests extends RequestHandler2 {
+
+        private final AtomicInteger count = new AtomicInteger(0);
+
+        int count() {
+            return count.get();
+        }
+
+        @Override
+        public void beforeRequest(Request<?> request) {
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void afterResponse(Request<?> request, Response<?> response) {
+            Object awsResponse = response == null ? null : response.getAwsResponse();
+            if (awsResponse instanceof S3Object && ((S3Object) awsResponse).getObjectContent() != null) {
+                S3Object object = (S3Object) awsResponse;
+                S3ObjectInputStream content = object.getObjectContent();
+                InputStream releasing = new ReleasingInputStream(content, count::decrementAndGet);
+                object.setObjectContent(new S3ObjectInputStream(releasing, content.getHttpRequest()));
+            } else {
+                count.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void afterError(Request<?> request, Response<?> response, Exception exception) {
+            count.decrementAndGet();
+        }
+    }
+
+    static class ReleasingInputStream extends FilterInputStream {
+
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private final Runnable release;
+
+        ReleasingInputStream(InputStream in, Runnable release) {
+            super(in);
+            this.release = release;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) release.run();
+            }
+        }
+    }
+
+    static class ClientKey {
+
+        private final String accessKeyId;
+        private final String secretKeyId;
+        private final AwsRegion region;
+        private final String endpoint;
+        private final boolean pathStyleAccess;
+        private final TransportSettings transport;
+        private final int ioThreads;
+        private final MemoryCacheSettings memoryCache;
+        private final RateLimitSettings rateLimit;
+
+        private ClientKey(AwsConfiguration configuration) {
+            this.accessKeyId = configuration.getAccessKeyId();
+            this.secretKeyId = configuration.getSecretKeyId();
+            this.region = configuration.getRegion();
+            String endpoint = configuration.getEndpoint();
+            this.endpoint = endpoint == null || endpoint.trim().isEmpty() ? null : endpoint.trim();
+            this.pathStyleAccess = Boolean.TRUE.equals(configuration.getPathStyleAccess());
+            this.transport = TransportSettings.of(configuration);
+            this.ioThreads = Optional.ofNullable(configuration.getIoThreads()).orElse(DEFAULT_IO_THREADS);
+            this.memoryCache = MemoryCacheSettings.of(configuration);
+            this.rateLimit = RateLimitSettings.of(configuration);
+        }
+
+        static ClientKey of(AwsConfiguration configuration) {
+            return new ClientKey(configuration);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ClientKey that = (ClientKey) o;
+            return Objects.equals(accessKeyId, that.accessKeyId) &&
+                    Objects.equals(secretKeyId, that.secretKeyId) &&
+                    region == that.region &&
+                    Objects.equals(endpoint, that.endpoint) &&
+                    pathStyleAccess == that.pathStyleAccess &&
+                    Objects.equals(transport, that.transport) &&
+                    ioThreads == that.ioThreads &&
+                    Objects.equals(memoryCache, that.memoryCache) &&
+                    Objects.equals(rateLimit, that.rateLimit);
+        }
 
-        public ClientHolder(AmazonS3 s3, ProcessorSync user) {
-            this.s3 = s3;
-            this.users.add(user);
+        @Override
+        public int hashCode() {
+            return Objects.hash(accessKeyId, secretKeyId, region, endpoint, pathStyleAccess, transport, ioThreads, memoryCache, rateLimit);
         }
     }
 }
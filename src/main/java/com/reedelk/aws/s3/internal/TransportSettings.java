@@ -0,0 +1,101 @@
+package com.reedelk.aws.s3.internal;
+
+import com.amazonaws.ClientConfiguration;
+import com.reedelk.aws.s3.component.AwsConfiguration;
+import com.reedelk.aws.s3.component.AwsRetryMode;
+
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of the transport settings of an AWS configuration.
+ * Settings which are not set keep the SDK default value.
+ */
+class TransportSettings {
+
+    private final Integer maxConnections;
+    private final Integer connectionTimeout;
+    private final Integer socketTimeout;
+    private final Integer requestTimeout;
+    private final Long connectionTTL;
+    private final Long connectionMaxIdle;
+    private final Boolean idleConnectionReaper;
+    private final Boolean tcpKeepAlive;
+    private final Integer socketSendBufferSize;
+    private final Integer socketReceiveBufferSize;
+    private final Integer maxErrorRetry;
+    private final AwsRetryMode retryMode;
+    private final Boolean throttledRetries;
+
+    private TransportSettings(AwsConfiguration configuration) {
+        this.maxConnections = configuration.getMaxConnections();
+        this.connectionTimeout = configuration.getConnectionTimeout();
+        this.socketTimeout = configuration.getSocketTimeout();
+        this.requestTimeout = configuration.getRequestTimeout();
+        this.connectionTTL = configuration.getConnectionTTL();
+        this.connectionMaxIdle = configuration.getConnectionMaxIdle();
+        this.idleConnectionReaper = configuration.getIdleConnectionReaper();
+        this.tcpKeepAlive = configuration.getTcpKeepAlive();
+        this.socketSendBufferSize = configuration.getSocketSendBufferSize();
+        this.socketReceiveBufferSize = configuration.getSocketReceiveBufferSize();
+        this.maxErrorRetry = configuration.getMaxErrorRetry();
+        this.retryMode = configuration.getRetryMode();
+        this.throttledRetries = configuration.getThrottledRetries();
+    }
+
+    static TransportSettings of(AwsConfiguration configuration) {
+        return new TransportSettings(configuration);
+    }
+
+    int maxConnections() {
+        return maxConnections != null ? maxConnections : ClientConfiguration.DEFAULT_MAX_CONNECTIONS;
+    }
+
+    ClientConfiguration toClientConfiguration() {
+        ClientConfiguration clientConfiguration = new ClientConfiguration();
+        if (maxConnections != null) clientConfiguration.setMaxConnections(maxConnections);
+        if (connectionTimeout != null) clientConfiguration.setConnectionTimeout(connectionTimeout);
+        if (socketTimeout != null) clientConfiguration.setSocketTimeout(socketTimeout);
+        if (requestTimeout != null) clientConfiguration.setRequestTimeout(requestTimeout);
+        if (connectionTTL != null) clientConfiguration.setConnectionTTL(connectionTTL);
+        if (connectionMaxIdle != null) clientConfiguration.setConnectionMaxIdleMillis(connectionMaxIdle);
+        if (idleConnectionReaper != null) clientConfiguration.setUseReaper(idleConnectionReaper);
+        if (tcpKeepAlive != null) clientConfiguration.setUseTcpKeepAlive(tcpKeepAlive);
+        if (socketSendBufferSize != null || socketReceiveBufferSize != null) {
+            // Zero means that the size is chosen by the operating system.
+            clientConfiguration.setSocketBufferSizeHints(
+                    socketSendBufferSize != null ? socketSendBufferSize : 0,
+                    socketReceiveBufferSize != null ? socketReceiveBufferSize : 0);
+        }
+        if (maxErrorRetry != null) clientConfiguration.setMaxErrorRetry(maxErrorRetry);
+        if (retryMode != null) clientConfiguration.setRetryMode(retryMode.get());
+        if (throttledRetries != null) clientConfiguration.setUseThrottleRetries(throttledRetries);
+        return clientConfiguration;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TransportSettings that = (TransportSettings) o;
+        return Objects.equals(maxConnections, that.maxConnections) &&
+                Objects.equals(connectionTimeout, that.connectionTimeout) &&
+                Objects.equals(socketTimeout, that.socketTimeout) &&
+                Objects.equals(requestTimeout, that.requestTimeout) &&
+                Objects.equals(connectionTTL, that.connectionTTL) &&
+                Objects.equals(connectionMaxIdle, that.connectionMaxIdle) &&
+                Objects.equals(idleConnectionReaper, that.idleConnectionReaper) &&
+                Objects.equals(tcpKeepAlive, that.tcpKeepAlive) &&
+                Objects.equals(socketSendBufferSize, that.socketSendBufferSize) &&
+                Objects.equals(socketReceiveBufferSize, that.socketReceiveBufferSize) &&
+                Objects.equals(maxErrorRetry, that.maxErrorRetry) &&
+                retryMode == that.retryMode &&
+                Objects.equals(throttledRetries, that.throttledRetries);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxConnections, connectionTimeout, socketTimeout, requestTimeout,
+                connectionTTL, connectionMaxIdle, idleConnectionReaper, tcpKeepAlive,
+                socketSendBufferSize, socketReceiveBufferSize, maxErrorRetry, retryMode, throttledRetries);
+    }
+}
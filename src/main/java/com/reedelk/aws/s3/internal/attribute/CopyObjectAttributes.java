@@ -1,5 +1,6 @@
 package com.reedelk.aws.s3.internal.attribute;
 
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.CopyObjectResult;
 import com.reedelk.runtime.api.annotation.Type;
 import com.reedelk.runtime.api.annotation.TypeProperty;
@@ -25,4 +26,11 @@ public class CopyObjectAttributes extends MessageAttributes {
         put(LAST_MODIFIED, result.getLastModifiedDate());
         put(EXPIRATION_TIME, result.getExpirationTime());
     }
+
+    public CopyObjectAttributes(CompleteMultipartUploadResult result, Date lastModified) {
+        put(ETAG, result.getETag());
+        put(VERSION_ID, result.getVersionId());
+        put(LAST_MODIFIED, lastModified);
+        put(EXPIRATION_TIME, result.getExpirationTime());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.reedelk.aws.s3.internal.attribute;
+
+import com.reedelk.aws.s3.internal.type.ListOfDeleteObjectErrors;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+import com.reedelk.runtime.api.message.MessageAttributes;
+
+@Type
+@TypeProperty(name = DeleteObjectsAttributes.DELETED_COUNT, type = int.class)
+@TypeProperty(name = DeleteObjectsAttributes.ERROR_COUNT, type = int.class)
+@TypeProperty(name = DeleteObjectsAttributes.ERRORS, type = ListOfDeleteObjectErrors.class)
+public class DeleteObjectsAttributes extends MessageAttributes {
+
+    static final String DELETED_COUNT = "deletedCount";
+    static final String ERROR_COUNT = "errorCount";
+    static final String ERRORS = "errors";
+
+    public DeleteObjectsAttributes(int deletedCount, ListOfDeleteObjectErrors errors) {
+        put(DELETED_COUNT, deletedCount);
+        put(ERROR_COUNT, errors.size());
+        put(ERRORS, errors);
+    }
+}
@@ -0,0 +1,35 @@
+package com.reedelk.aws.s3.internal.attribute;
+
+import com.reedelk.aws.s3.internal.delete.PrefixDelete;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+import com.reedelk.runtime.api.message.MessageAttributes;
+
+@Type
+@TypeProperty(name = DeletePrefixAttributes.BUCKET, type = String.class)
+@TypeProperty(name = DeletePrefixAttributes.PREFIX, type = String.class)
+@TypeProperty(name = DeletePrefixAttributes.DRY_RUN, type = boolean.class)
+@TypeProperty(name = DeletePrefixAttributes.LISTED_COUNT, type = long.class)
+@TypeProperty(name = DeletePrefixAttributes.LISTED_BYTES, type = long.class)
+@TypeProperty(name = DeletePrefixAttributes.DELETED_COUNT, type = long.class)
+@TypeProperty(name = DeletePrefixAttributes.ERROR_COUNT, type = long.class)
+public class DeletePrefixAttributes extends MessageAttributes {
+
+    static final String BUCKET = "bucket";
+    static final String PREFIX = "prefix";
+    static final String DRY_RUN = "dryRun";
+    static final String LISTED_COUNT = "listedCount";
+    static final String LISTED_BYTES = "listedBytes";
+    static final String DELETED_COUNT = "deletedCount";
+    static final String ERROR_COUNT = "errorCount";
+
+    public DeletePrefixAttributes(String bucket, String prefix, boolean dryRun, PrefixDelete.Result result) {
+        put(BUCKET, bucket);
+        put(PREFIX, prefix);
+        put(DRY_RUN, dryRun);
+        put(LISTED_COUNT, result.listedCount());
+        put(LISTED_BYTES, result.listedBytes());
+        put(DELETED_COUNT, result.deletedCount());
+        put(ERROR_COUNT, result.errorCount());
+    }
+}
@@ -0,0 +1,19 @@
+package com.reedelk.aws.s3.internal.attribute;
+
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+import com.reedelk.runtime.api.message.MessageAttributes;
+
+@Type
+@TypeProperty(name = DownloadObjectsAttributes.DOWNLOADED_COUNT, type = int.class)
+@TypeProperty(name = DownloadObjectsAttributes.ERROR_COUNT, type = int.class)
+public class DownloadObjectsAttributes extends MessageAttributes {
+
+    static final String DOWNLOADED_COUNT = "downloadedCount";
+    static final String ERROR_COUNT = "errorCount";
+
+    public DownloadObjectsAttributes(int downloadedCount, int errorCount) {
+        put(DOWNLOADED_COUNT, downloadedCount);
+        put(ERROR_COUNT, errorCount);
+    }
+}
@@ -20,4 +20,18 @@ public class ListObjectsAttributes extends MessageAttributes {
         put(KEY_COUNT, result.getKeyCount());
         put(NEXT_CONTINUATION_TOKEN, result.getNextContinuationToken());
     }
+
+    private ListObjectsAttributes() {
+    }
+
+    /**
+     * The attributes of a listing of all the pages: it is never truncated and its
+     * key count is not known until the stream of objects has been consumed.
+     */
+    public static ListObjectsAttributes allPages() {
+        ListObjectsAttributes attributes = new ListObjectsAttributes();
+        attributes.put(TRUNCATED, false);
+        attributes.put(NEXT_CONTINUATION_TOKEN, null);
+        return attributes;
+    }
 }
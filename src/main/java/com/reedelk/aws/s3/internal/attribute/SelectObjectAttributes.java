@@ -0,0 +1,33 @@
+package com.reedelk.aws.s3.internal.attribute;
+
+import com.amazonaws.services.s3.model.Stats;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+import com.reedelk.runtime.api.message.MessageAttributes;
+
+@Type
+@TypeProperty(name = SelectObjectAttributes.BUCKET, type = String.class)
+@TypeProperty(name = SelectObjectAttributes.KEY, type = String.class)
+@TypeProperty(name = SelectObjectAttributes.BYTES_SCANNED, type = Long.class)
+@TypeProperty(name = SelectObjectAttributes.BYTES_PROCESSED, type = Long.class)
+@TypeProperty(name = SelectObjectAttributes.BYTES_RETURNED, type = Long.class)
+public class SelectObjectAttributes extends MessageAttributes {
+
+    static final String BUCKET = "bucket";
+    static final String KEY = "key";
+    static final String BYTES_SCANNED = "bytesScanned";
+    static final String BYTES_PROCESSED = "bytesProcessed";
+    static final String BYTES_RETURNED = "bytesReturned";
+
+    /**
+     * The statistics are known only after all the records have been received:
+     * when the records are streamed, they are not available.
+     */
+    public SelectObjectAttributes(String bucket, String key, Stats stats) {
+        put(BUCKET, bucket);
+        put(KEY, key);
+        put(BYTES_SCANNED, stats != null ? stats.getBytesScanned() : null);
+        put(BYTES_PROCESSED, stats != null ? stats.getBytesProcessed() : null);
+        put(BYTES_RETURNED, stats != null ? stats.getBytesReturned() : null);
+    }
+}
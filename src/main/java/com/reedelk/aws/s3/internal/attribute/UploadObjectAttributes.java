@@ -1,6 +1,7 @@
 package com.reedelk.aws.s3.internal.attribute;
 
 
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.reedelk.runtime.api.annotation.Type;
 import com.reedelk.runtime.api.annotation.TypeProperty;
@@ -26,4 +27,12 @@ public class UploadObjectAttributes extends MessageAttributes {
         put(CONTENT_MD5, result.getContentMd5());
         put(EXPIRATION_TIME, result.getExpirationTime());
     }
+
+    public UploadObjectAttributes(CompleteMultipartUploadResult result) {
+        // The ETag of a multipart object is not the MD5 of its content,
+        // therefore the content MD5 is not available.
+        put(ETAG, result.getETag());
+        put(VERSION_ID, result.getVersionId());
+        put(EXPIRATION_TIME, result.getExpirationTime());
+    }
 }
@@ -0,0 +1,19 @@
+package com.reedelk.aws.s3.internal.attribute;
+
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+import com.reedelk.runtime.api.message.MessageAttributes;
+
+@Type
+@TypeProperty(name = UploadObjectsAttributes.UPLOADED_COUNT, type = int.class)
+@TypeProperty(name = UploadObjectsAttributes.ERROR_COUNT, type = int.class)
+public class UploadObjectsAttributes extends MessageAttributes {
+
+    static final String UPLOADED_COUNT = "uploadedCount";
+    static final String ERROR_COUNT = "errorCount";
+
+    public UploadObjectsAttributes(int uploadedCount, int errorCount) {
+        put(UPLOADED_COUNT, uploadedCount);
+        put(ERROR_COUNT, errorCount);
+    }
+}
@@ -0,0 +1,75 @@
+package com.reedelk.aws.s3.internal.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+/**
+ * Identifies a cached object by bucket, key and (optional) version id.
+ */
+public class CacheKey {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String bucket;
+    private final String key;
+    private final String versionId;
+
+    public CacheKey(String bucket, String key, String versionId) {
+        this.bucket = bucket;
+        this.key = key;
+        this.versionId = versionId;
+    }
+
+    String bucket() {
+        return bucket;
+    }
+
+    String key() {
+        return key;
+    }
+
+    String versionId() {
+        return versionId;
+    }
+
+    public boolean hasVersionId() {
+        return versionId != null;
+    }
+
+    /**
+     * The name of the cache files: S3 keys can contain characters
+     * which are not valid in a file name, therefore a digest is used.
+     */
+    String fileName() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((bucket + '\n' + key + '\n' + versionId).getBytes(StandardCharsets.UTF_8));
+            char[] name = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                name[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+                name[i * 2 + 1] = HEX[hash[i] & 0xF];
+            }
+            return new String(name);
+        } catch (NoSuchAlgorithmException exception) {
+            // SHA-256 is available on every Java platform.
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CacheKey cacheKey = (CacheKey) o;
+        return Objects.equals(bucket, cacheKey.bucket) &&
+                Objects.equals(key, cacheKey.key) &&
+                Objects.equals(versionId, cacheKey.versionId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bucket, key, versionId);
+    }
+}
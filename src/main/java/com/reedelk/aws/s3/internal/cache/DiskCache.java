@@ -0,0 +1,315 @@
+package com.reedelk.aws.s3.internal.cache;
+
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.reedelk.aws.s3.internal.download.CachedObjectSource;
+import com.reedelk.aws.s3.internal.download.CachingObjectSource;
+import com.reedelk.aws.s3.internal.download.ObjectSource;
+import com.reedelk.aws.s3.internal.download.SingleObjectSource;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Size bounded LRU cache of S3 objects stored on the local disk. The content of each
+ * object is stored in a data file, and its metadata (including the ETag used for
+ * revalidation and the name of the data file) in a properties file named after the key:
+ * metadata files are parsed as plain text, never deserialized into arbitrary classes.
+ * Each content is written to a new data file: an entry is committed by atomically replacing
+ * its metadata file, therefore a crash never leaves a metadata file describing another content.
+ * Entries found in the cache directory are loaded at startup, therefore the cache survives
+ * restarts when the directory is persistent.
+ */
+public class DiskCache {
+
+    private static final String DATA_SUFFIX = ".data";
+    private static final String METADATA_SUFFIX = ".meta";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final String BUCKET = "bucket";
+    private static final String KEY = "key";
+    private static final String VERSION_ID = "versionId";
+    private static final String DATA_FILE = "dataFile";
+    private static final String EXPIRATION_TIME = "expirationTime";
+    private static final String EXPIRATION_TIME_RULE_ID = "expirationTimeRuleId";
+    private static final String HTTP_EXPIRES_DATE = "httpExpiresDate";
+    private static final String HEADER_PREFIX = "header.";
+    private static final String DATE_HEADER_PREFIX = "dateHeader.";
+    private static final String USER_METADATA_PREFIX = "userMetadata.";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Access ordered: the eldest entry is the least recently used one.
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public DiskCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        load();
+    }
+
+    public synchronized Optional<Entry> get(CacheKey key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    /**
+     * Returns a source reading the cached content of the given key, if the content is still cached
+     * with the given ETag. The data file is opened while holding the cache lock, so that the source
+     * keeps reading it even if the entry is evicted or replaced before the content is consumed.
+     */
+    public synchronized Optional<ObjectSource> open(CacheKey key, String eTag) throws IOException {
+        Entry entry = entries.get(key);
+        if (entry == null || !Objects.equals(entry.eTag(), eTag)) return Optional.empty();
+        try {
+            return Optional.of(new CachedObjectSource(FileChannel.open(entry.data, StandardOpenOption.READ), entry.metadata));
+        } catch (NoSuchFileException exception) {
+            // The data file has been deleted from outside the cache.
+            remove(key, entry);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns a source which stores the content of the given object in the cache while it is consumed.
+     * Objects which do not fit in the cache are not stored and are returned as they are.
+     */
+    public ObjectSource put(CacheKey key, S3Object object) throws IOException {
+        ObjectMetadata metadata = object.getObjectMetadata();
+        long size = metadata.getContentLength();
+        if (size < 0 || size > maxBytes) {
+            return new SingleObjectSource(object);
+        }
+        Path temporary = Files.createTempFile(directory, key.fileName(), TEMP_SUFFIX);
+        return new CachingObjectSource(object, temporary, (file, length) -> commit(key, file, metadata, length));
+    }
+
+    /**
+     * Removes all the cached objects from the cache directory.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(DiskCache::deleteQuietly);
+        } catch (IOException exception) {
+            // Best effort: the directory might not exist anymore.
+        }
+    }
+
+    private void commit(CacheKey key, Path file, ObjectMetadata metadata, long size) throws IOException {
+        String fileName = key.fileName();
+        Path data = directory.resolve(fileName + "-" + UUID.randomUUID() + DATA_SUFFIX);
+        Files.move(file, data, StandardCopyOption.ATOMIC_MOVE);
+
+        Path temporaryMetadata = Files.createTempFile(directory, fileName, TEMP_SUFFIX);
+        try {
+            writeMetadata(temporaryMetadata, key, metadata, data.getFileName().toString());
+            synchronized (this) {
+                Files.move(temporaryMetadata, metadataFileOf(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Entry previous = entries.put(key, new Entry(data, metadata, size));
+                if (previous != null) {
+                    totalBytes -= previous.size;
+                    // Sources reading the previous content keep their file open.
+                    deleteQuietly(previous.data);
+                }
+                totalBytes += size;
+                evict(key);
+            }
+        } catch (IOException exception) {
+            deleteQuietly(data);
+            throw exception;
+        } finally {
+            Files.deleteIfExists(temporaryMetadata);
+        }
+    }
+
+    private void evict(CacheKey justAdded) {
+        Iterator<Map.Entry<CacheKey, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<CacheKey, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(justAdded)) continue;
+            iterator.remove();
+            totalBytes -= eldest.getValue().size;
+            deleteQuietly(metadataFileOf(eldest.getKey()));
+            deleteQuietly(eldest.getValue().data);
+        }
+    }
+
+    private void remove(CacheKey key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            totalBytes -= entry.size;
+            deleteQuietly(metadataFileOf(key));
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> metadataFiles = new ArrayList<>();
+        List<Path> dataFiles = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.endsWith(METADATA_SUFFIX)) metadataFiles.add(file);
+                else if (name.endsWith(DATA_SUFFIX)) dataFiles.add(file);
+                else if (name.endsWith(TEMP_SUFFIX)) deleteQuietly(file);
+            });
+        }
+
+        // The least recently written entries are loaded first, so that they are evicted first.
+        metadataFiles.sort(Comparator.comparingLong(DiskCache::lastModified));
+
+        for (Path metadataFile : metadataFiles) {
+            try {
+                Properties properties = new Properties();
+                try (Reader reader = Files.newBufferedReader(metadataFile, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                }
+                CacheKey key = new CacheKey(required(properties, BUCKET), required(properties, KEY), properties.getProperty(VERSION_ID));
+                if (!metadataFile.getFileName().toString().equals(key.fileName() + METADATA_SUFFIX)) {
+                    throw new IOException("Metadata file does not belong to its key");
+                }
+                Path data = dataFileOf(required(properties, DATA_FILE));
+                ObjectMetadata metadata = metadataOf(properties);
+                long size = Files.size(data);
+                if (size != metadata.getContentLength()) throw new IOException("Size mismatch");
+                entries.put(key, new Entry(data, metadata, size));
+                totalBytes += size;
+            } catch (IOException | IllegalArgumentException exception) {
+                // Incomplete or corrupted entry: it is discarded.
+                deleteQuietly(metadataFile);
+            }
+        }
+
+        // Data files not referenced by any entry were replaced or never committed.
+        Set<Path> referenced = new HashSet<>();
+        entries.values().forEach(entry -> referenced.add(entry.data));
+        dataFiles.stream().filter(data -> !referenced.contains(data)).forEach(DiskCache::deleteQuietly);
+
+        evict(null);
+    }
+
+    private static void writeMetadata(Path metadataFile, CacheKey key, ObjectMetadata metadata, String dataFileName) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(BUCKET, key.bucket());
+        properties.setProperty(KEY, key.key());
+        if (key.versionId() != null) properties.setProperty(VERSION_ID, key.versionId());
+        properties.setProperty(DATA_FILE, dataFileName);
+
+        // Response headers are either dates (e.g. Last-Modified) or values restored from their text.
+        metadata.getRawMetadata().forEach((name, value) -> {
+            if (value instanceof Date) {
+                properties.setProperty(DATE_HEADER_PREFIX + name, String.valueOf(((Date) value).getTime()));
+            } else if (value != null) {
+                properties.setProperty(HEADER_PREFIX + name, String.valueOf(value));
+            }
+        });
+        metadata.getUserMetadata().forEach((name, value) -> properties.setProperty(USER_METADATA_PREFIX + name, value));
+        if (metadata.getExpirationTime() != null) {
+            properties.setProperty(EXPIRATION_TIME, String.valueOf(metadata.getExpirationTime().getTime()));
+        }
+        if (metadata.getExpirationTimeRuleId() != null) {
+            properties.setProperty(EXPIRATION_TIME_RULE_ID, metadata.getExpirationTimeRuleId());
+        }
+        if (metadata.getHttpExpiresDate() != null) {
+            properties.setProperty(HTTP_EXPIRES_DATE, String.valueOf(metadata.getHttpExpiresDate().getTime()));
+        }
+
+        try (Writer writer = Files.newBufferedWriter(metadataFile, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+    }
+
+    private static ObjectMetadata metadataOf(Properties properties) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        for (String name : properties.stringPropertyNames()) {
+            String value = properties.getProperty(name);
+            if (name.startsWith(DATE_HEADER_PREFIX)) {
+                metadata.setHeader(name.substring(DATE_HEADER_PREFIX.length()), new Date(Long.parseLong(value)));
+            } else if (name.startsWith(HEADER_PREFIX)) {
+                setHeader(metadata, name.substring(HEADER_PREFIX.length()), value);
+            } else if (name.startsWith(USER_METADATA_PREFIX)) {
+                metadata.addUserMetadata(name.substring(USER_METADATA_PREFIX.length()), value);
+            }
+        }
+        Optional.ofNullable(properties.getProperty(EXPIRATION_TIME))
+                .ifPresent(value -> metadata.setExpirationTime(new Date(Long.parseLong(value))));
+        metadata.setExpirationTimeRuleId(properties.getProperty(EXPIRATION_TIME_RULE_ID));
+        Optional.ofNullable(properties.getProperty(HTTP_EXPIRES_DATE))
+                .ifPresent(value -> metadata.setHttpExpiresDate(new Date(Long.parseLong(value))));
+        if (metadata.getRawMetadataValue(Headers.CONTENT_LENGTH) == null) {
+            throw new IllegalArgumentException("Content length is missing");
+        }
+        return metadata;
+    }
+
+    // The SDK stores the numeric headers as numbers, and the getters of ObjectMetadata cast
+    // them. Header names are case insensitive, as they are in ObjectMetadata.
+    private static void setHeader(ObjectMetadata metadata, String name, String value) {
+        if (Headers.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            metadata.setHeader(name, Long.parseLong(value));
+        } else if (Headers.S3_PARTS_COUNT.equalsIgnoreCase(name)) {
+            metadata.setHeader(name, Integer.parseInt(value));
+        } else {
+            metadata.setHeader(name, value);
+        }
+    }
+
+    // The data file name is read from disk: it must not point outside of the cache directory.
+    private Path dataFileOf(String fileName) throws IOException {
+        Path data = directory.resolve(fileName);
+        if (!directory.normalize().equals(data.normalize().getParent()) || !fileName.endsWith(DATA_SUFFIX)) {
+            throw new IOException("Data file is not in the cache directory: " + fileName);
+        }
+        return data;
+    }
+
+    private static String required(Properties properties, String name) throws IOException {
+        String value = properties.getProperty(name);
+        if (value == null) throw new IOException("Metadata property '" + name + "' is missing");
+        return value;
+    }
+
+    private Path metadataFileOf(CacheKey key) {
+        return directory.resolve(key.fileName() + METADATA_SUFFIX);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException exception) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException exception) {
+            // Best effort: the file will be discarded at the next startup.
+        }
+    }
+
+    public static class Entry {
+
+        private final Path data;
+        private final ObjectMetadata metadata;
+        private final long size;
+
+        Entry(Path data, ObjectMetadata metadata, long size) {
+            this.data = data;
+            this.metadata = metadata;
+            this.size = size;
+        }
+
+        public String eTag() {
+            return metadata.getETag();
+        }
+    }
+}
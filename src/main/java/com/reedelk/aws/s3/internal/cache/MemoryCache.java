@@ -0,0 +1,145 @@
+package com.reedelk.aws.s3.internal.cache;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-heap LRU cache of small S3 objects, bounded by the total size of the cached
+ * content rather than by the number of entries. Entries expire after the given time to live.
+ * The cached byte arrays are returned as they are, without copying them: they must not be modified.
+ */
+public class MemoryCache implements MemoryCacheMXBean {
+
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final long maxObjectBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    // Access ordered: the eldest entry is the least recently used one.
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public MemoryCache(long maxBytes, long ttlMillis, long maxObjectBytes) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.maxObjectBytes = Math.min(maxObjectBytes, maxBytes);
+    }
+
+    public synchronized Optional<Entry> get(CacheKey key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            totalBytes -= entry.data.length;
+            expirations.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry);
+    }
+
+    /**
+     * @return true if an object of the given size can be stored in this cache.
+     */
+    public boolean accepts(long size) {
+        return size >= 0 && size <= maxObjectBytes;
+    }
+
+    public synchronized void put(CacheKey key, byte[] data, ObjectMetadata metadata) {
+        if (!accepts(data.length)) return;
+
+        Entry previous = entries.put(key, new Entry(data, metadata, System.currentTimeMillis() + ttlMillis));
+        if (previous != null) totalBytes -= previous.data.length;
+        totalBytes += data.length;
+
+        Iterator<Map.Entry<CacheKey, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<CacheKey, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(key)) continue;
+            iterator.remove();
+            totalBytes -= eldest.getValue().data.length;
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    @Override
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long getSizeBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public long getMaxSizeBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public static class Entry {
+
+        private final byte[] data;
+        private final ObjectMetadata metadata;
+        private final long expiresAt;
+
+        Entry(byte[] data, ObjectMetadata metadata, long expiresAt) {
+            this.data = data;
+            this.metadata = metadata;
+            this.expiresAt = expiresAt;
+        }
+
+        public byte[] data() {
+            return data;
+        }
+
+        public ObjectMetadata metadata() {
+            return metadata;
+        }
+    }
+}
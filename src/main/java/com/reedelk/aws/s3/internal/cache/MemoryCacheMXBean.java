@@ -0,0 +1,25 @@
+package com.reedelk.aws.s3.internal.cache;
+
+/**
+ * Management interface exposing the statistics of a memory cache.
+ */
+public interface MemoryCacheMXBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRatio();
+
+    long getEvictionCount();
+
+    long getExpirationCount();
+
+    int getEntryCount();
+
+    long getSizeBytes();
+
+    long getMaxSizeBytes();
+
+    void clear();
+}
@@ -0,0 +1,37 @@
+package com.reedelk.aws.s3.internal.commons;
+
+import com.reedelk.runtime.api.component.OnResult;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+public class AsyncExecution {
+
+    private AsyncExecution() {
+    }
+
+    /**
+     * Executes the given operation on the executor and completes the
+     * flow with the callback, either with the result or with the error.
+     */
+    public static void execute(ExecutorService executor, FlowContext flowContext, OnResult callback, Supplier<Message> operation) {
+        try {
+            executor.execute(() -> {
+                Message result;
+                try {
+                    result = operation.get();
+                } catch (Throwable exception) {
+                    callback.onError(flowContext, exception);
+                    return;
+                }
+                callback.onResult(flowContext, result);
+            });
+        } catch (RejectedExecutionException exception) {
+            // The executor has been shut down (e.g. the component is being disposed) or its queue is full.
+            callback.onError(flowContext, exception);
+        }
+    }
+}
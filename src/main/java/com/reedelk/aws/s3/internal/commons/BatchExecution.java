@@ -0,0 +1,75 @@
+package com.reedelk.aws.s3.internal.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Executes the tasks of a batch concurrently on the given executor and returns their results
+ * in the order of the tasks. At most 'concurrency' tasks are submitted at a time, therefore a
+ * large batch never queues all its tasks at once, and the executor can be shared by many
+ * components each having its own concurrency. A batch of a single task is
+ * executed on the calling thread. A task throwing an exception fails the whole batch:
+ * no more tasks are submitted and the tasks not yet completed are cancelled.
+ */
+public class BatchExecution {
+
+    private final int concurrency;
+    private final ExecutorService executor;
+
+    public BatchExecution(ExecutorService executor, int concurrency) {
+        this.executor = executor;
+        this.concurrency = concurrency;
+    }
+
+    public int concurrency() {
+        return concurrency;
+    }
+
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    public <T, R> List<R> execute(List<T> items, Function<T, R> task) throws InterruptedException {
+        List<R> results = new ArrayList<>(items.size());
+        if (items.size() == 1) {
+            results.add(task.apply(items.get(0)));
+            return results;
+        }
+
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        List<Future<R>> tasks = new ArrayList<>(items.size());
+        try {
+            for (T item : items) {
+                permits.acquire();
+                if (failed.get()) break;
+                tasks.add(executor.submit(() -> {
+                    try {
+                        return task.apply(item);
+                    } catch (RuntimeException | Error exception) {
+                        failed.set(true);
+                        throw exception;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<R> submitted : tasks) {
+                results.add(submitted.get());
+            }
+        } catch (InterruptedException exception) {
+            tasks.forEach(submitted -> submitted.cancel(true));
+            throw exception;
+        } catch (ExecutionException exception) {
+            tasks.forEach(submitted -> submitted.cancel(true));
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,47 @@
+package com.reedelk.aws.s3.internal.commons;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the management beans of this module on the platform MBean server.
+ * Registration is best effort: monitoring must never prevent a component from working.
+ */
+public class ManagementBeans {
+
+    private static final String DOMAIN = "com.reedelk.aws.s3";
+
+    private ManagementBeans() {
+    }
+
+    public static ObjectName register(String type, String name, Object bean) {
+        return register(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name), bean);
+    }
+
+    public static ObjectName register(String type, String name, String operation, Object bean) {
+        return register(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name) + ",operation=" + operation, bean);
+    }
+
+    private static ObjectName register(String name, Object bean) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(name);
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+            server.registerMBean(bean, objectName);
+            return objectName;
+        } catch (JMException exception) {
+            return null;
+        }
+    }
+
+    public static void unregister(ObjectName objectName) {
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException exception) {
+            // Already unregistered.
+        }
+    }
+}
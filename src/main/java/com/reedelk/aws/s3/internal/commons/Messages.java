@@ -9,6 +9,9 @@ public class Messages {
 
     public enum UploadObject implements FormattedMessage {
 
+        UPLOAD_ERROR("An error occurred while uploading object to bucket=[%s], key=[%s], cause=[%s]."),
+        SOURCE_PATH_EMPTY("The source path is empty. The source path must not be empty (DynamicValue=[%s])."),
+        SOURCE_FILE_NOT_FOUND("The source file does not exist or it is not a regular file (path=[%s])."),
         BUCKET_NAME_EMPTY("The bucket name is empty. The bucket name must not be empty (DynamicValue=[%s])."),
         KEY_EMPTY("The key is empty. The key must not be empty (DynamicValue=[%s]).");
 
@@ -65,7 +68,7 @@ public class Messages {
 
     public enum DeleteObjects implements FormattedMessage {
 
-        DELETE_ERROR("An error occurred while deleting objects from bucket=[%s], with keys=[%s], cause=[%s]."),
+        BATCH_DELETE_ERROR("An error occurred while deleting %d objects from bucket=[%s], cause=[%s]."),
         BUCKET_NAME_EMPTY("The bucket name is empty. The bucket name must not be empty (DynamicValue=[%s])."),
         KEYS_EMPTY("The keys are empty. The keys must not be empty (DynamicValue=[%s]).");
 
@@ -85,6 +88,8 @@ public class Messages {
     public enum DownloadObject implements FormattedMessage {
 
         DOWNLOAD_ERROR("An error occurred while downloading object from bucket=[%s], key=[%s], cause=[%s]."),
+        CACHE_ERROR("The download cache could not be created in directory=[%s], cause=[%s]."),
+        DESTINATION_PATH_EMPTY("The destination path is empty. The destination path must not be empty (DynamicValue=[%s])."),
         BUCKET_NAME_EMPTY("The bucket name is empty. The bucket name must not be empty (DynamicValue=[%s])."),
         KEY_EMPTY("The key is empty. The key must not be empty (DynamicValue=[%s]).");
 
@@ -100,6 +105,98 @@ public class Messages {
         }
     }
 
+    public enum SelectObject implements FormattedMessage {
+
+        SELECT_ERROR("An error occurred while selecting object content from bucket=[%s], key=[%s], cause=[%s]."),
+        BUCKET_NAME_EMPTY("The bucket name is empty. The bucket name must not be empty (DynamicValue=[%s])."),
+        KEY_EMPTY("The key is empty. The key must not be empty (DynamicValue=[%s])."),
+        EXPRESSION_EMPTY("The SQL expression is empty. The SQL expression must not be empty (DynamicValue=[%s]).");
+
+        private final String message;
+
+        SelectObject(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
+    public enum ReadRecords implements FormattedMessage {
+
+        READ_ERROR("An error occurred while reading records from bucket=[%s], key=[%s], cause=[%s]."),
+        CHARSET_NOT_SUPPORTED("The charset=[%s] is not supported."),
+        BUCKET_NAME_EMPTY("The bucket name is empty. The bucket name must not be empty (DynamicValue=[%s])."),
+        KEY_EMPTY("The key is empty. The key must not be empty (DynamicValue=[%s]).");
+
+        private final String message;
+
+        ReadRecords(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
+    public enum DeletePrefix implements FormattedMessage {
+
+        DELETE_PREFIX_ERROR("An error occurred while deleting the objects with prefix=[%s] from bucket=[%s], cause=[%s]."),
+        BUCKET_NAME_EMPTY("The bucket name is empty. The bucket name must not be empty (DynamicValue=[%s])."),
+        PREFIX_EMPTY("The prefix is empty. The prefix must not be empty, since an empty prefix matches all the objects of the bucket (DynamicValue=[%s]).");
+
+        private final String message;
+
+        DeletePrefix(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
+    public enum DownloadObjects implements FormattedMessage {
+
+        BATCH_DOWNLOAD_ERROR("An error occurred while downloading %d objects from bucket=[%s], cause=[%s]."),
+        BUCKET_NAME_EMPTY("The bucket name is empty. The bucket name must not be empty (DynamicValue=[%s])."),
+        KEYS_EMPTY("The keys are empty. The keys must not be empty (DynamicValue=[%s]).");
+
+        private final String message;
+
+        DownloadObjects(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
+    public enum UploadObjects implements FormattedMessage {
+
+        BATCH_UPLOAD_ERROR("An error occurred while uploading %d objects to bucket=[%s], cause=[%s]."),
+        BUCKET_NAME_EMPTY("The bucket name is empty. The bucket name must not be empty (DynamicValue=[%s])."),
+        OBJECTS_EMPTY("The objects are empty. The objects must not be empty (DynamicValue=[%s]).");
+
+        private final String message;
+
+        UploadObjects(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
     public enum ListObjects implements FormattedMessage {
 
         LIST_ERROR("An error occurred while listing objects from bucket=[%s], cause=[%s]."),
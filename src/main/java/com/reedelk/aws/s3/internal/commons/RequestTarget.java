@@ -0,0 +1,78 @@
+package com.reedelk.aws.s3.internal.commons;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.services.s3.model.*;
+
+/**
+ * The bucket and the key (or key prefix) targeted by an S3 request.
+ */
+public class RequestTarget {
+
+    private final String bucket;
+    private final String key;
+
+    private RequestTarget(String bucket, String key) {
+        this.bucket = bucket;
+        this.key = key;
+    }
+
+    public String bucket() {
+        return bucket;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    /**
+     * @return the target of the given request or null if the request is not one of
+     * the object level requests issued by this module (e.g. list buckets).
+     */
+    public static RequestTarget of(AmazonWebServiceRequest request) {
+        if (request instanceof GetObjectRequest) {
+            GetObjectRequest get = (GetObjectRequest) request;
+            return new RequestTarget(get.getBucketName(), get.getKey());
+        } else if (request instanceof GetObjectMetadataRequest) {
+            GetObjectMetadataRequest head = (GetObjectMetadataRequest) request;
+            return new RequestTarget(head.getBucketName(), head.getKey());
+        } else if (request instanceof PutObjectRequest) {
+            PutObjectRequest put = (PutObjectRequest) request;
+            return new RequestTarget(put.getBucketName(), put.getKey());
+        } else if (request instanceof CopyObjectRequest) {
+            CopyObjectRequest copy = (CopyObjectRequest) request;
+            return new RequestTarget(copy.getDestinationBucketName(), copy.getDestinationKey());
+        } else if (request instanceof DeleteObjectRequest) {
+            DeleteObjectRequest delete = (DeleteObjectRequest) request;
+            return new RequestTarget(delete.getBucketName(), delete.getKey());
+        } else if (request instanceof DeleteObjectsRequest) {
+            DeleteObjectsRequest delete = (DeleteObjectsRequest) request;
+            String firstKey = delete.getKeys() == null || delete.getKeys().isEmpty() ? null : delete.getKeys().get(0).getKey();
+            return new RequestTarget(delete.getBucketName(), firstKey);
+        } else if (request instanceof ListObjectsV2Request) {
+            ListObjectsV2Request list = (ListObjectsV2Request) request;
+            return new RequestTarget(list.getBucketName(), list.getPrefix());
+        } else if (request instanceof ListObjectsRequest) {
+            ListObjectsRequest list = (ListObjectsRequest) request;
+            return new RequestTarget(list.getBucketName(), list.getPrefix());
+        } else if (request instanceof InitiateMultipartUploadRequest) {
+            InitiateMultipartUploadRequest initiate = (InitiateMultipartUploadRequest) request;
+            return new RequestTarget(initiate.getBucketName(), initiate.getKey());
+        } else if (request instanceof UploadPartRequest) {
+            UploadPartRequest part = (UploadPartRequest) request;
+            return new RequestTarget(part.getBucketName(), part.getKey());
+        } else if (request instanceof CopyPartRequest) {
+            CopyPartRequest part = (CopyPartRequest) request;
+            return new RequestTarget(part.getDestinationBucketName(), part.getDestinationKey());
+        } else if (request instanceof CompleteMultipartUploadRequest) {
+            CompleteMultipartUploadRequest complete = (CompleteMultipartUploadRequest) request;
+            return new RequestTarget(complete.getBucketName(), complete.getKey());
+        } else if (request instanceof AbortMultipartUploadRequest) {
+            AbortMultipartUploadRequest abort = (AbortMultipartUploadRequest) request;
+            return new RequestTarget(abort.getBucketName(), abort.getKey());
+        } else if (request instanceof SelectObjectContentRequest) {
+            SelectObjectContentRequest select = (SelectObjectContentRequest) request;
+            return new RequestTarget(select.getBucketName(), select.getKey());
+        }
+        return null;
+    }
+}
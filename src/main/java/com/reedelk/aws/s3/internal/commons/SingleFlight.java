@@ -0,0 +1,69 @@
+package com.reedelk.aws.s3.internal.commons;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent executions of the same call: while a call for a given key is in flight,
+ * the callers asking for the same key wait for it and share its result (or its error)
+ * instead of executing the call again. Results are not retained once the call has completed.
+ * Each waiting caller receives its own copy of the result, made by the given share function,
+ * therefore a caller modifying its result does not affect the others.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> share;
+
+    public SingleFlight(UnaryOperator<V> share) {
+        this.share = share;
+    }
+
+    public V execute(K key, Call<V> call) throws IOException {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return share.apply(await(existing));
+        }
+
+        try {
+            V value = call.execute();
+            created.complete(value);
+            return value;
+        } catch (IOException | RuntimeException | Error exception) {
+            created.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted while waiting for a coalesced call");
+            interrupted.initCause(exception);
+            throw interrupted;
+        } catch (ExecutionException exception) {
+            // The same error of the executing caller is thrown to all the waiting callers.
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Call<V> {
+
+        V execute() throws IOException;
+    }
+}
@@ -0,0 +1,99 @@
+package com.reedelk.aws.s3.internal.delete;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.reedelk.aws.s3.internal.commons.BatchExecution;
+import com.reedelk.aws.s3.internal.type.DeleteObjectError;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deletes an arbitrary number of keys by splitting them into batches of at most
+ * 1000 keys (the maximum number of keys allowed by S3 in a single delete request).
+ * Batches are sent in quiet mode, therefore S3 only returns the keys which could not
+ * be deleted: these are reported as per-key errors and do not abort the whole delete.
+ * A batch failing as a whole (e.g. access denied or a connection error) is reported as
+ * an error for each one of its keys, and the other batches are still deleted.
+ */
+public class BatchDelete {
+
+    public static final int MAX_KEYS_PER_BATCH = 1000;
+
+    static final String CLIENT_ERROR_CODE = "ClientError";
+
+    private final AmazonS3 s3;
+    private final BatchExecution batches;
+
+    public BatchDelete(AmazonS3 s3, BatchExecution batches) {
+        this.s3 = s3;
+        this.batches = batches;
+    }
+
+    public Result delete(String bucket, List<String> keys) throws InterruptedException {
+        List<List<String>> keyBatches = new ArrayList<>();
+        for (int start = 0; start < keys.size(); start += MAX_KEYS_PER_BATCH) {
+            keyBatches.add(keys.subList(start, Math.min(start + MAX_KEYS_PER_BATCH, keys.size())));
+        }
+
+        Result result = new Result();
+        batches.execute(keyBatches, batch -> deleteBatch(bucket, batch)).forEach(result::merge);
+        return result;
+    }
+
+    public Result deleteBatch(String bucket, List<String> keys) {
+        DeleteObjectsRequest request = new DeleteObjectsRequest(bucket)
+                .withKeys(keys.toArray(new String[0]))
+                .withQuiet(true);
+
+        Result result = new Result();
+        try {
+            s3.deleteObjects(request);
+            result.deleted.addAll(keys);
+
+        } catch (MultiObjectDeleteException exception) {
+            Set<String> failedKeys = new HashSet<>();
+            for (MultiObjectDeleteException.DeleteError error : exception.getErrors()) {
+                failedKeys.add(error.getKey());
+                result.errors.add(new DeleteObjectError(error.getKey(), error.getVersionId(), error.getCode(), error.getMessage()));
+            }
+            // In quiet mode S3 does not return the deleted keys: all the keys without an error were deleted.
+            keys.stream().filter(key -> !failedKeys.contains(key)).forEach(result.deleted::add);
+
+        } catch (AmazonServiceException exception) {
+            failed(keys, exception.getErrorCode(), exception.getErrorMessage(), result);
+
+        } catch (SdkClientException exception) {
+            failed(keys, CLIENT_ERROR_CODE, exception.getMessage(), result);
+        }
+        return result;
+    }
+
+    private static void failed(List<String> keys, String code, String message, Result result) {
+        keys.forEach(key -> result.errors.add(new DeleteObjectError(key, null, code, message)));
+    }
+
+    public static class Result {
+
+        private final List<String> deleted = new ArrayList<>();
+        private final List<DeleteObjectError> errors = new ArrayList<>();
+
+        public List<String> deleted() {
+            return deleted;
+        }
+
+        public List<DeleteObjectError> errors() {
+            return errors;
+        }
+
+        void merge(Result other) {
+            deleted.addAll(other.deleted);
+            errors.addAll(other.errors);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.reedelk.aws.s3.internal.delete;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.reedelk.aws.s3.internal.commons.BatchExecution;
+import com.reedelk.aws.s3.internal.list.PagedListing;
+import com.reedelk.aws.s3.internal.type.DeleteObjectError;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Deletes all the objects with a given prefix by pipelining the listing into the deletes:
+ * each listed page (at most 1000 keys) is deleted as one quiet batch while the following
+ * pages are being listed, with at most 'concurrency' batches in flight. Pages are listed
+ * only when a batch can be sent, therefore at most 'concurrency' + 2 pages are held in
+ * memory whatever the number of objects. Listing while deleting is safe since S3
+ * continuation tokens are positions in the key order, not offsets.
+ */
+public class PrefixDelete {
+
+    private final AmazonS3 s3;
+    private final BatchDelete batchDelete;
+    private final ExecutorService listingExecutor;
+    private final Scheduler deleteScheduler;
+    private final int concurrency;
+    private final int maxReportedErrors;
+    private final PrefixDeleteProgress progress;
+
+    public PrefixDelete(AmazonS3 s3,
+                        ExecutorService listingExecutor,
+                        BatchExecution deletes,
+                        int maxReportedErrors,
+                        PrefixDeleteProgress progress) {
+        this.s3 = s3;
+        // Only single batches are deleted: the batches are scheduled by this pipeline.
+        this.batchDelete = new BatchDelete(s3, deletes);
+        this.listingExecutor = listingExecutor;
+        this.deleteScheduler = Schedulers.fromExecutorService(deletes.executor());
+        this.concurrency = deletes.concurrency();
+        this.maxReportedErrors = maxReportedErrors;
+        this.progress = progress;
+    }
+
+    /**
+     * When dry run is true the objects are only listed and counted. A batch failing as a whole
+     * is counted as failed keys, while a listing error fails the delete with its SdkClientException.
+     */
+    public Result delete(String bucket, String prefix, boolean dryRun) {
+        ListObjectsV2Request request = new ListObjectsV2Request()
+                .withBucketName(bucket)
+                .withPrefix(prefix)
+                .withMaxKeys(BatchDelete.MAX_KEYS_PER_BATCH);
+
+        Result result = new Result(maxReportedErrors);
+        Flux<ListObjectsV2Result> pages = PagedListing.pages(s3, request, listingExecutor)
+                .doOnNext(page -> result.listed(page.getObjectSummaries(), progress));
+
+        progress.started();
+        try {
+            if (dryRun) {
+                pages.then().block();
+            } else {
+                pages.map(PrefixDelete::keysOf)
+                        .filter(keys -> !keys.isEmpty())
+                        .flatMap(keys -> Mono.fromCallable(() -> batchDelete.deleteBatch(bucket, keys))
+                                .subscribeOn(deleteScheduler), concurrency, 1)
+                        .doOnNext(batch -> result.deleted(batch, progress))
+                        .then()
+                        .block();
+            }
+        } finally {
+            progress.completed();
+        }
+        return result;
+    }
+
+    private static List<String> keysOf(ListObjectsV2Result page) {
+        return page.getObjectSummaries().stream()
+                .map(S3ObjectSummary::getKey)
+                .collect(toList());
+    }
+
+    public static class Result {
+
+        private final AtomicLong listedCount = new AtomicLong();
+        private final AtomicLong listedBytes = new AtomicLong();
+        private final AtomicLong deletedCount = new AtomicLong();
+        private final AtomicLong errorCount = new AtomicLong();
+        private final List<DeleteObjectError> errors = new ArrayList<>();
+        private final int maxReportedErrors;
+
+        Result(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        public long listedCount() {
+            return listedCount.get();
+        }
+
+        public long listedBytes() {
+            return listedBytes.get();
+        }
+
+        public long deletedCount() {
+            return deletedCount.get();
+        }
+
+        public long errorCount() {
+            return errorCount.get();
+        }
+
+        /**
+         * The first errors, at most 'maxReportedErrors': all the errors are counted,
+         * but only the first ones are kept to bound the memory of large deletes.
+         */
+        public synchronized List<DeleteObjectError> errors() {
+            return new ArrayList<>(errors);
+        }
+
+        void listed(List<S3ObjectSummary> summaries, PrefixDeleteProgress progress) {
+            long bytes = summaries.stream().mapToLong(S3ObjectSummary::getSize).sum();
+            listedCount.addAndGet(summaries.size());
+            listedBytes.addAndGet(bytes);
+            progress.listed(summaries.size(), bytes);
+        }
+
+        void deleted(BatchDelete.Result batch, PrefixDeleteProgress progress) {
+            deletedCount.addAndGet(batch.deleted().size());
+            errorCount.addAndGet(batch.errors().size());
+            synchronized (this) {
+                for (DeleteObjectError error : batch.errors()) {
+                    if (errors.size() >= maxReportedErrors) break;
+                    errors.add(error);
+                }
+            }
+            progress.deleted(batch.deleted().size(), batch.errors().size());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.reedelk.aws.s3.internal.delete;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PrefixDeleteProgress implements PrefixDeleteProgressMXBean {
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder listed = new LongAdder();
+    private final LongAdder listedBytes = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    void started() {
+        running.incrementAndGet();
+    }
+
+    void completed() {
+        running.decrementAndGet();
+    }
+
+    void listed(int count, long bytes) {
+        listed.add(count);
+        listedBytes.add(bytes);
+    }
+
+    void deleted(int count, int errorCount) {
+        batches.increment();
+        deleted.add(count);
+        errors.add(errorCount);
+    }
+
+    @Override
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    @Override
+    public long getListedCount() {
+        return listed.sum();
+    }
+
+    @Override
+    public long getListedBytes() {
+        return listedBytes.sum();
+    }
+
+    @Override
+    public long getDeletedCount() {
+        return deleted.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getBatchCount() {
+        return batches.sum();
+    }
+}
@@ -0,0 +1,21 @@
+package com.reedelk.aws.s3.internal.delete;
+
+/**
+ * Management interface exposing the progress of the prefix deletes of a component:
+ * the counters are updated while the deletes are running, after each listed page
+ * and each deleted batch, and they are cumulative across all the deletes.
+ */
+public interface PrefixDeleteProgressMXBean {
+
+    int getRunningCount();
+
+    long getListedCount();
+
+    long getListedBytes();
+
+    long getDeletedCount();
+
+    long getErrorCount();
+
+    long getBatchCount();
+}
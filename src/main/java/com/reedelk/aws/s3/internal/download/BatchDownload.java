@@ -0,0 +1,104 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.reedelk.aws.s3.internal.commons.BatchExecution;
+import com.reedelk.aws.s3.internal.type.DownloadObjectResult;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads many objects concurrently. Failures never abort the whole download: each object
+ * is returned, in the order of the requested objects, either with its content or with the
+ * error code and message of its failure. All the downloaded objects are held in memory,
+ * therefore their size is bounded: objects larger than the maximum object size, and objects
+ * which would make the total size of a download exceed the maximum total size, are not
+ * downloaded. The size of each object is known from the response headers, before reading the content.
+ */
+public class BatchDownload {
+
+    public static final String OBJECT_TOO_LARGE_CODE = "ObjectTooLarge";
+    public static final String TOTAL_SIZE_EXCEEDED_CODE = "TotalSizeExceeded";
+
+    private static final String CLIENT_ERROR_CODE = "ClientError";
+
+    private final AmazonS3 s3;
+    private final BatchExecution downloads;
+    private final long maxObjectSize;
+    private final long maxTotalSize;
+
+    public BatchDownload(AmazonS3 s3, BatchExecution downloads, long maxObjectSize, long maxTotalSize) {
+        this.s3 = s3;
+        this.downloads = downloads;
+        this.maxObjectSize = maxObjectSize;
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    public List<DownloadObjectResult> download(List<ObjectLocation> objects) throws InterruptedException {
+        AtomicLong remainingSize = new AtomicLong(maxTotalSize);
+        return downloads.execute(objects, object -> download(object, remainingSize));
+    }
+
+    private DownloadObjectResult download(ObjectLocation location, AtomicLong remainingSize) {
+        try {
+            S3Object object = s3.getObject(location.bucket, location.key);
+            ObjectMetadata metadata = object.getObjectMetadata();
+            long size = metadata.getContentLength();
+            if (size > maxObjectSize) {
+                abort(object);
+                return DownloadObjectResult.error(location.bucket, location.key, OBJECT_TOO_LARGE_CODE,
+                        "The object size (" + size + " bytes) exceeds the maximum object size (" + maxObjectSize + " bytes).");
+            }
+            if (!reserve(remainingSize, size)) {
+                abort(object);
+                return DownloadObjectResult.error(location.bucket, location.key, TOTAL_SIZE_EXCEEDED_CODE,
+                        "The object size (" + size + " bytes) exceeds the remaining total size of the download (" + remainingSize.get() + " bytes).");
+            }
+            byte[] data;
+            try {
+                data = new SingleObjectSource(object).asByteArray();
+            } catch (IOException | RuntimeException exception) {
+                // Not downloaded: its size is available again to the other objects.
+                remainingSize.addAndGet(size);
+                throw exception;
+            }
+            return DownloadObjectResult.success(location.bucket, location.key, metadata, data);
+
+        } catch (AmazonServiceException exception) {
+            return DownloadObjectResult.error(location.bucket, location.key, exception.getErrorCode(), exception.getErrorMessage());
+        } catch (SdkClientException | IOException exception) {
+            return DownloadObjectResult.error(location.bucket, location.key, CLIENT_ERROR_CODE, exception.getMessage());
+        }
+    }
+
+    private static boolean reserve(AtomicLong remainingSize, long size) {
+        long remaining;
+        do {
+            remaining = remainingSize.get();
+            if (size > remaining) return false;
+        } while (!remainingSize.compareAndSet(remaining, remaining - size));
+        return true;
+    }
+
+    private static void abort(S3Object object) throws IOException {
+        // Not read: aborting is cheaper than reading the content.
+        object.getObjectContent().abort();
+        object.close();
+    }
+
+    public static class ObjectLocation {
+
+        private final String bucket;
+        private final String key;
+
+        public ObjectLocation(String bucket, String key) {
+            this.bucket = bucket;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Object source backed by the content of an object stored in the local disk cache.
+ * The cached file is opened by the cache when the source is created, therefore the source
+ * keeps reading it even if the entry is evicted or replaced in the meantime. The content can
+ * be consumed only once: the file is closed once it has been read.
+ */
+public class CachedObjectSource implements ObjectSource {
+
+    private final FileChannel file;
+    private final ObjectMetadata metadata;
+
+    public CachedObjectSource(FileChannel file, ObjectMetadata metadata) {
+        this.file = file;
+        this.metadata = metadata;
+    }
+
+    @Override
+    public ObjectMetadata metadata() {
+        return metadata;
+    }
+
+    @Override
+    public byte[] asByteArray() throws IOException {
+        try (FileChannel source = file) {
+            ByteBuffer data = ByteBuffer.allocate((int) source.size());
+            while (data.hasRemaining() && source.read(data) != -1) {
+                // Keep reading until the whole file has been read.
+            }
+            if (data.hasRemaining()) {
+                throw new IOException("Premature end of cached file, expected " + data.capacity() + " bytes, read " + data.position() + " bytes.");
+            }
+            return data.array();
+        }
+    }
+
+    /**
+     * The cached file is copied with {@link FileChannel#transferTo}, which lets
+     * the operating system copy the data without moving it through the heap.
+     */
+    @Override
+    public long writeTo(FileChannel channel) throws IOException {
+        try (FileChannel source = file) {
+            long size = source.size();
+            long transferred = 0;
+            while (transferred < size) {
+                transferred += source.transferTo(transferred, size - transferred, channel);
+            }
+            return transferred;
+        }
+    }
+
+    @Override
+    public Publisher<byte[]> asStream(int chunkSize) {
+        return Flux.generate(
+                () -> file,
+                (channel, sink) -> {
+                    try {
+                        ByteBuffer chunk = ByteBuffer.allocate(chunkSize);
+                        while (chunk.hasRemaining() && channel.read(chunk) != -1) {
+                            // Keep reading until the chunk is full or the end of the file is reached.
+                        }
+                        if (chunk.position() == 0) sink.complete();
+                        else sink.next(chunk.hasRemaining() ?
+                                Arrays.copyOf(chunk.array(), chunk.position()) :
+                                chunk.array());
+                    } catch (IOException exception) {
+                        sink.error(exception);
+                    }
+                    return channel;
+                },
+                channel -> {
+                    try {
+                        channel.close();
+                    } catch (IOException exception) {
+                        // Nothing to do, the file was only read.
+                    }
+                });
+    }
+}
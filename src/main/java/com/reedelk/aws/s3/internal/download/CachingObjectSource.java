@@ -0,0 +1,145 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Object source backed by the content of a single S3 GET request, which writes the content
+ * to a temporary file while it is consumed. Once the content has been fully read, the file
+ * is handed over to the cache: a content consumed only partially (e.g. a cancelled stream)
+ * is discarded. As for {@link SingleObjectSource}, the content can be consumed only once.
+ */
+public class CachingObjectSource implements ObjectSource {
+
+    private final S3Object object;
+    private final Path temporary;
+    private final Cache cache;
+
+    public CachingObjectSource(S3Object object, Path temporary, Cache cache) {
+        this.object = object;
+        this.temporary = temporary;
+        this.cache = cache;
+    }
+
+    @Override
+    public ObjectMetadata metadata() {
+        return object.getObjectMetadata();
+    }
+
+    @Override
+    public byte[] asByteArray() throws IOException {
+        try {
+            byte[] data;
+            try (S3ObjectInputStream content = object.getObjectContent()) {
+                data = SingleObjectSource.readFully(content, object.getObjectMetadata().getContentLength());
+            }
+            try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    file.write(buffer);
+                }
+            }
+            cache.commit(temporary, data.length);
+            return data;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * The content is first written to the temporary file, which is then copied to the given channel
+     * with {@link FileChannel#transferTo}. The temporary file stays open while it is moved into the cache,
+     * therefore it is copied even if the cached entry is evicted in the meantime.
+     */
+    @Override
+    public long writeTo(FileChannel channel) throws IOException {
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = new SingleObjectSource(object).writeTo(file);
+            cache.commit(temporary, size);
+            long transferred = 0;
+            while (transferred < size) {
+                transferred += file.transferTo(transferred, size - transferred, channel);
+            }
+            return transferred;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public Publisher<byte[]> asStream(int chunkSize) {
+        return Flux.generate(
+                () -> new TeeReader(new SingleObjectSource.ChunkReader(object.getObjectContent(), chunkSize),
+                        FileChannel.open(temporary, StandardOpenOption.WRITE)),
+                (reader, sink) -> {
+                    try {
+                        byte[] chunk = reader.next();
+                        if (chunk == null) sink.complete();
+                        else sink.next(chunk);
+                    } catch (IOException exception) {
+                        sink.error(exception);
+                    }
+                    return reader;
+                },
+                TeeReader::close);
+    }
+
+    /**
+     * The cache the content is handed over to once it has been fully read.
+     */
+    public interface Cache {
+
+        void commit(Path file, long size) throws IOException;
+    }
+
+    class TeeReader {
+
+        private final SingleObjectSource.ChunkReader content;
+        private final FileChannel file;
+        private long written;
+
+        TeeReader(SingleObjectSource.ChunkReader content, FileChannel file) {
+            this.content = content;
+            this.file = file;
+        }
+
+        byte[] next() throws IOException {
+            byte[] chunk = content.next();
+            if (chunk == null) {
+                long contentLength = object.getObjectMetadata().getContentLength();
+                if (contentLength >= 0 && written < contentLength) {
+                    throw new IOException("Premature end of content, expected " + contentLength + " bytes, read " + written + " bytes.");
+                }
+                file.close();
+                cache.commit(temporary, written);
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            while (buffer.hasRemaining()) {
+                written += file.write(buffer);
+            }
+            return chunk;
+        }
+
+        void close() {
+            content.close();
+            try {
+                file.close();
+                // Once committed the file has been moved into the cache: there is nothing to delete.
+                Files.deleteIfExists(temporary);
+            } catch (IOException exception) {
+                // Best effort: leftover temporary files are deleted when the cache is loaded.
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Object source whose content is requested from S3 only when it is consumed. The metadata
+ * is known in advance (e.g. from a HEAD request), while the GET request is sent when the
+ * stream is subscribed: a stream which is never subscribed, e.g. because the payload is
+ * ignored downstream, never opens a connection, therefore no pooled connection can leak.
+ * Each subscription sends a new GET request, which should be constrained on the ETag of
+ * the metadata so that the content always matches the metadata.
+ */
+public class DeferredObjectSource implements ObjectSource {
+
+    private final ObjectMetadata metadata;
+    private final Opener opener;
+
+    public DeferredObjectSource(ObjectMetadata metadata, Opener opener) {
+        this.metadata = metadata;
+        this.opener = opener;
+    }
+
+    @Override
+    public ObjectMetadata metadata() {
+        return metadata;
+    }
+
+    @Override
+    public byte[] asByteArray() throws IOException {
+        return opener.open().asByteArray();
+    }
+
+    @Override
+    public Publisher<byte[]> asStream(int chunkSize) {
+        return Flux.defer(() -> {
+            try {
+                return opener.open().asStream(chunkSize);
+            } catch (IOException | SdkClientException exception) {
+                return Flux.error(exception);
+            }
+        });
+    }
+
+    @Override
+    public long writeTo(FileChannel channel) throws IOException {
+        return opener.open().writeTo(channel);
+    }
+
+    @FunctionalInterface
+    public interface Opener {
+
+        ObjectSource open() throws IOException;
+    }
+}
@@ -0,0 +1,53 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.reedelk.aws.s3.component.DownloadOutput;
+import com.reedelk.aws.s3.internal.cache.CacheKey;
+
+import java.util.*;
+
+/**
+ * Identifies the shape of a download: the object and everything in the request
+ * or in the output which changes the downloaded content. Only downloads with
+ * the same shape can share their result.
+ */
+public class DownloadKey {
+
+    private final CacheKey object;
+    private final DownloadOutput output;
+    private final List<Long> range;
+    private final List<String> matchingETags;
+    private final List<String> nonMatchingETags;
+    private final Date modifiedSince;
+    private final Date unmodifiedSince;
+
+    public DownloadKey(CacheKey object, DownloadOutput output, GetObjectRequest request) {
+        this.object = object;
+        this.output = output;
+        long[] range = request.getRange();
+        this.range = range == null ? Collections.emptyList() : Arrays.asList(range[0], range[1]);
+        this.matchingETags = new ArrayList<>(request.getMatchingETagConstraints());
+        this.nonMatchingETags = new ArrayList<>(request.getNonmatchingETagConstraints());
+        this.modifiedSince = request.getModifiedSinceConstraint();
+        this.unmodifiedSince = request.getUnmodifiedSinceConstraint();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DownloadKey that = (DownloadKey) o;
+        return Objects.equals(object, that.object) &&
+                output == that.output &&
+                Objects.equals(range, that.range) &&
+                Objects.equals(matchingETags, that.matchingETags) &&
+                Objects.equals(nonMatchingETags, that.nonMatchingETags) &&
+                Objects.equals(modifiedSince, that.modifiedSince) &&
+                Objects.equals(unmodifiedSince, that.unmodifiedSince);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(object, output, range, matchingETags, nonMatchingETags, modifiedSince, unmodifiedSince);
+    }
+}
@@ -0,0 +1,32 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+
+/**
+ * The metadata and the content of an object fully downloaded in memory.
+ */
+public class DownloadedObject {
+
+    private final ObjectMetadata metadata;
+    private final byte[] data;
+
+    public DownloadedObject(ObjectMetadata metadata, byte[] data) {
+        this.metadata = metadata;
+        this.data = data;
+    }
+
+    public ObjectMetadata metadata() {
+        return metadata;
+    }
+
+    public byte[] data() {
+        return data;
+    }
+
+    /**
+     * Returns a copy of this object which does not share any mutable state with it.
+     */
+    public DownloadedObject copy() {
+        return new DownloadedObject(metadata.clone(), data.clone());
+    }
+}
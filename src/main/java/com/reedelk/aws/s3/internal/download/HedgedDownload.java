@@ -0,0 +1,174 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Downloads objects with hedged requests: if the response to the GET request has not been
+ * received within the hedge delay, a second identical request is sent. The first response
+ * received is used, and the content of the other one is aborted without being read.
+ * The hedge delay is either fixed or a percentile of the latencies of the most recent requests,
+ * so that only the slowest requests are duplicated. The executor is expected to be bounded:
+ * when it rejects a request, the request is not hedged.
+ */
+public class HedgedDownload {
+
+    private static final int LATENCY_SAMPLES = 128;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final AmazonS3 s3;
+    private final ExecutorService executor;
+    private final long delayMillis;
+    private final Integer percentile;
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_SAMPLES);
+
+    /**
+     * @param delayMillis the hedge delay, used until enough latencies have been measured when a percentile is given.
+     * @param percentile  the percentile of the recent latencies used as hedge delay, or null to always use the fixed delay.
+     */
+    public HedgedDownload(AmazonS3 s3, ExecutorService executor, long delayMillis, Integer percentile) {
+        this.s3 = s3;
+        this.executor = executor;
+        this.delayMillis = delayMillis;
+        this.percentile = percentile;
+    }
+
+    public S3Object getObject(GetObjectRequest request) {
+        CompletableFuture<S3Object> primary;
+        try {
+            primary = submit(request);
+        } catch (RejectedExecutionException rejected) {
+            // All the threads are busy: the request is executed without hedging.
+            return s3.getObject(request);
+        }
+
+        try {
+            return primary.get(hedgeDelayMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException timeout) {
+            // The primary request is slow: a second identical request is sent.
+        } catch (InterruptedException exception) {
+            abortWhenDone(primary);
+            Thread.currentThread().interrupt();
+            throw new AbortedException("Hedged download interrupted", exception);
+        } catch (ExecutionException exception) {
+            throw unwrap(exception);
+        }
+
+        CompletableFuture<S3Object> first;
+        CompletableFuture<S3Object> hedge;
+        try {
+            hedge = submit((GetObjectRequest) request.clone());
+            first = firstSuccessful(primary, hedge);
+        } catch (RejectedExecutionException rejected) {
+            // All the threads are busy: the hedge is skipped and the primary request awaited.
+            hedge = null;
+            first = primary;
+        }
+        try {
+            return first.get();
+        } catch (InterruptedException exception) {
+            abortWhenDone(primary);
+            if (hedge != null) abortWhenDone(hedge);
+            Thread.currentThread().interrupt();
+            throw new AbortedException("Hedged download interrupted", exception);
+        } catch (ExecutionException exception) {
+            throw unwrap(exception);
+        }
+    }
+
+    private CompletableFuture<S3Object> submit(GetObjectRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            S3Object object = s3.getObject(request);
+            latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return object;
+        }, executor);
+    }
+
+    private long hedgeDelayMillis() {
+        if (percentile == null) return delayMillis;
+        long measured = latencies.percentile(percentile, MIN_LATENCY_SAMPLES);
+        return measured < 0 ? delayMillis : measured;
+    }
+
+    private static CompletableFuture<S3Object> firstSuccessful(CompletableFuture<S3Object> primary,
+                                                               CompletableFuture<S3Object> hedge) {
+        CompletableFuture<S3Object> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger(0);
+        BiConsumer<S3Object, Throwable> handler = (object, error) -> {
+            if (error == null) {
+                // The losing response is aborted: reading its content would waste bandwidth.
+                if (!first.complete(object)) abort(object);
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        };
+        primary.whenComplete(handler);
+        hedge.whenComplete(handler);
+        return first;
+    }
+
+    private static void abortWhenDone(CompletableFuture<S3Object> request) {
+        request.thenAccept(HedgedDownload::abort);
+    }
+
+    private static void abort(S3Object object) {
+        if (object == null) return;
+        object.getObjectContent().abort();
+        try {
+            object.close();
+        } catch (IOException exception) {
+            // Nothing to do, the content has been aborted.
+        }
+    }
+
+    private static SdkClientException unwrap(ExecutionException exception) {
+        Throwable cause = exception.getCause();
+        if (cause instanceof CompletionException && cause.getCause() != null) cause = cause.getCause();
+        if (cause instanceof SdkClientException) return (SdkClientException) cause;
+        return new SdkClientException(cause.getMessage(), cause);
+    }
+
+    /**
+     * Sliding window of the most recent request latencies.
+     */
+    static class LatencyWindow {
+
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long latencyMillis) {
+            samples[next] = latencyMillis;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) count++;
+        }
+
+        /**
+         * @return the given percentile of the recorded latencies or -1 if less than minSamples have been recorded.
+         */
+        long percentile(int percentile, int minSamples) {
+            long[] sorted;
+            synchronized (this) {
+                if (count < minSamples) return -1;
+                sorted = Arrays.copyOf(samples, count);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
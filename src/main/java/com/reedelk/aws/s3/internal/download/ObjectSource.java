@@ -0,0 +1,27 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import org.reactivestreams.Publisher;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * The content of an object fetched from S3, which can be consumed either
+ * fully buffered in memory, as a stream of chunks or written to a file.
+ */
+public interface ObjectSource {
+
+    ObjectMetadata metadata();
+
+    byte[] asByteArray() throws IOException;
+
+    Publisher<byte[]> asStream(int chunkSize);
+
+    /**
+     * Writes the content to the given file channel starting from position 0.
+     *
+     * @return the number of bytes written.
+     */
+    long writeTo(FileChannel channel) throws IOException;
+}
@@ -0,0 +1,62 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Downloads objects by splitting them into byte ranges fetched in parallel.
+ * The first range is always requested on the calling thread: its response
+ * carries the total size of the object (from the Content-Range header), therefore
+ * no additional HEAD request is needed. Objects fitting in the first range are
+ * returned as they are, without any further request.
+ */
+public class RangedDownload {
+
+    private static final int STATUS_RANGE_NOT_SATISFIABLE = 416;
+
+    private final AmazonS3 s3;
+    private final ExecutorService executor;
+    private final Scheduler scheduler;
+    private final long rangeSize;
+    private final int concurrency;
+
+    /**
+     * @param scheduler the scheduler of the given executor, used by the streamed downloads.
+     */
+    public RangedDownload(AmazonS3 s3, ExecutorService executor, Scheduler scheduler, long rangeSize, int concurrency) {
+        this.s3 = s3;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.rangeSize = rangeSize;
+        this.concurrency = concurrency;
+    }
+
+    public ObjectSource open(GetObjectRequest request) throws IOException {
+        GetObjectRequest firstRangeRequest = ((GetObjectRequest) request.clone()).withRange(0, rangeSize - 1);
+
+        S3Object firstRange;
+        try {
+            firstRange = s3.getObject(firstRangeRequest);
+        } catch (AmazonS3Exception exception) {
+            // Empty objects do not have any satisfiable range.
+            if (exception.getStatusCode() == STATUS_RANGE_NOT_SATISFIABLE) {
+                return SingleObjectSource.of(s3.getObject(request), request);
+            }
+            throw exception;
+        }
+
+        if (firstRange == null || firstRange.getObjectMetadata().getInstanceLength() <= rangeSize) {
+            return SingleObjectSource.of(firstRange, request);
+        }
+
+        long totalSize = firstRange.getObjectMetadata().getInstanceLength();
+        return new RangedObjectSource(s3, executor, scheduler, concurrency, request, firstRange, totalSize, rangeSize);
+    }
+}
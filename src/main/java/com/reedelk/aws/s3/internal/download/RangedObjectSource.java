@@ -0,0 +1,250 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Object source fetching the object content as byte ranges in parallel. All the ranges
+ * after the first one are requested with the ETag of the first response as matching
+ * constraint, so that an object replaced while being downloaded is detected rather
+ * than returned as a mix of the old and the new content. The content of each range in
+ * flight is tracked, so that a failed or cancelled download aborts all the connections
+ * still reading (including the first range, if it has not been read yet): cancelling the
+ * futures only interrupts the threads, which does not abort a blocking socket read.
+ */
+public class RangedObjectSource implements ObjectSource {
+
+    private final AmazonS3 s3;
+    private final ExecutorService executor;
+    private final Scheduler scheduler;
+    private final int concurrency;
+    private final GetObjectRequest request;
+    private final S3Object firstRange;
+    private final ObjectMetadata metadata;
+    private final long totalSize;
+    private final long rangeSize;
+    private final int rangeCount;
+    private final Set<S3ObjectInputStream> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile boolean aborted;
+
+    RangedObjectSource(AmazonS3 s3,
+                       ExecutorService executor,
+                       Scheduler scheduler,
+                       int concurrency,
+                       GetObjectRequest request,
+                       S3Object firstRange,
+                       long totalSize,
+                       long rangeSize) {
+        this.s3 = s3;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.concurrency = concurrency;
+        this.request = request;
+        this.firstRange = firstRange;
+        this.totalSize = totalSize;
+        this.rangeSize = rangeSize;
+        this.rangeCount = (int) ((totalSize + rangeSize - 1) / rangeSize);
+
+        // The metadata must describe the whole object, not just the first range. It is not
+        // cloned: the clone looks up the headers case sensitively, and the servers are free
+        // to send them in any case (e.g. 'Etag' instead of 'ETag').
+        this.metadata = firstRange.getObjectMetadata();
+        this.metadata.setContentLength(totalSize);
+        this.inFlight.add(firstRange.getObjectContent());
+    }
+
+    @Override
+    public ObjectMetadata metadata() {
+        return metadata;
+    }
+
+    /**
+     * Each range is written directly into its slice of the
+     * resulting array, therefore no reassembly copy is needed.
+     */
+    @Override
+    public byte[] asByteArray() throws IOException {
+        if (totalSize > Integer.MAX_VALUE - 8) {
+            abortAll();
+            throw new IOException("The object size (" + totalSize + " bytes) exceeds the maximum size of a byte array, " +
+                    "the object must be downloaded as a stream or to a file.");
+        }
+
+        byte[] data = new byte[(int) totalSize];
+        fetchRanges(range -> {
+            S3ObjectInputStream content = openRange(range);
+            try {
+                readFully(content, data, (int) start(range), (int) length(range));
+            } finally {
+                release(content);
+            }
+        });
+        return data;
+    }
+
+    /**
+     * Each range is written directly at its offset in the file: ranges
+     * are written in parallel, in the order they are received.
+     */
+    @Override
+    public long writeTo(FileChannel channel) throws IOException {
+        fetchRanges(range -> {
+            S3ObjectInputStream content = openRange(range);
+            try {
+                long written = SingleObjectSource.writeFully(content, channel, start(range));
+                if (written < length(range)) {
+                    throw new IOException("Premature end of range content, expected " + length(range) + " bytes, read " + written + " bytes.");
+                }
+            } finally {
+                release(content);
+            }
+        });
+        return totalSize;
+    }
+
+    private void fetchRanges(RangeTransfer transfer) throws IOException {
+        List<Future<Void>> ranges = new ArrayList<>(rangeCount);
+        for (int index = 0; index < rangeCount; index++) {
+            int range = index;
+            ranges.add(executor.submit(() -> {
+                transfer.apply(range);
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<Void> range : ranges) {
+                range.get();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            ranges.forEach(range -> range.cancel(true));
+            abortAll();
+            throw new IOException("Ranged download interrupted", exception);
+        } catch (ExecutionException exception) {
+            ranges.forEach(range -> range.cancel(true));
+            abortAll();
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Ranges are fetched in parallel (at most 'concurrency' at the same time) and emitted
+     * in order, one byte array per range. Therefore, at most 'concurrency' ranges per
+     * download are held in memory while waiting to be consumed. Since each range is emitted
+     * as a whole, the chunk size of the stream is the range size.
+     */
+    @Override
+    public Publisher<byte[]> asStream(int chunkSize) {
+        return Flux.range(0, rangeCount)
+                .flatMapSequential(range -> Mono.fromCallable(() -> {
+                    S3ObjectInputStream content = openRange(range);
+                    try {
+                        byte[] data = new byte[(int) length(range)];
+                        readFully(content, data, 0, data.length);
+                        return data;
+                    } finally {
+                        release(content);
+                    }
+                }).subscribeOn(scheduler), concurrency, 1)
+                .doOnCancel(this::abortAll)
+                .doOnError(error -> abortAll());
+    }
+
+    /**
+     * Aborts the connections of all the ranges still being read, and of the ranges opened
+     * afterwards. The first range is aborted as well if it has not been read yet.
+     */
+    private void abortAll() {
+        aborted = true;
+        inFlight.forEach(RangedObjectSource::abort);
+    }
+
+    private S3ObjectInputStream openRange(int range) throws IOException {
+        S3ObjectInputStream content = range == 0 ?
+                firstRange.getObjectContent() :
+                requestRange(range).getObjectContent();
+        inFlight.add(content);
+        if (aborted) {
+            // Opened while the download was being aborted.
+            abort(content);
+            throw new IOException("Ranged download aborted");
+        }
+        return content;
+    }
+
+    private void release(S3ObjectInputStream content) throws IOException {
+        inFlight.remove(content);
+        content.close();
+    }
+
+    private static void abort(S3ObjectInputStream content) {
+        content.abort();
+        try {
+            content.close();
+        } catch (IOException exception) {
+            // Nothing to do, the connection has been aborted.
+        }
+    }
+
+    private S3Object requestRange(int range) throws IOException {
+        // The clone is shallow: the constraints are replaced rather than added,
+        // since the list of constraints is shared by all the range requests.
+        GetObjectRequest rangeRequest = ((GetObjectRequest) request.clone())
+                .withRange(start(range), start(range) + length(range) - 1);
+        rangeRequest.setMatchingETagConstraints(Collections.singletonList(metadata.getETag()));
+
+        S3Object object = s3.getObject(rangeRequest);
+        if (object == null) {
+            // The SDK returns null when the constraints are not satisfied.
+            throw new IOException("The object has been modified while being downloaded (ETag " + metadata.getETag() + " does not match).");
+        }
+        return object;
+    }
+
+    @FunctionalInterface
+    private interface RangeTransfer {
+
+        void apply(int range) throws IOException;
+    }
+
+    private long start(int range) {
+        return range * rangeSize;
+    }
+
+    private long length(int range) {
+        return Math.min(rangeSize, totalSize - start(range));
+    }
+
+    private static void readFully(S3ObjectInputStream content, byte[] data, int offset, int length) throws IOException {
+        int position = offset;
+        int end = offset + length;
+        int read;
+        while (position < end && (read = content.read(data, position, end - position)) != -1) {
+            position += read;
+        }
+        if (position < end) {
+            throw new IOException("Premature end of range content, expected " + length + " bytes, read " + (position - offset) + " bytes.");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+
+/**
+ * Input stream over the content of an S3 object which survives dropped connections: when reading
+ * fails, the content is requested again with a ranged GET starting from the first byte not yet read.
+ * The content is requested only when it is first read, and all the requests are made with the ETag
+ * of the given metadata as matching constraint, so that an object replaced while being read is
+ * detected rather than returned as a mix of the old and the new content.
+ */
+public class ResumableObjectStream extends InputStream {
+
+    private final AmazonS3 s3;
+    private final GetObjectRequest request;
+    private final int maxResumes;
+    private final ObjectMetadata metadata;
+    private final long contentLength;
+
+    private S3ObjectInputStream content;
+    private long position;
+    private int resumes;
+
+    /**
+     * @param metadata the metadata of the object, as returned by a HEAD request.
+     */
+    public ResumableObjectStream(AmazonS3 s3, GetObjectRequest request, ObjectMetadata metadata, int maxResumes) {
+        this.s3 = s3;
+        this.request = request;
+        this.maxResumes = maxResumes;
+        this.metadata = metadata;
+        this.contentLength = metadata.getContentLength();
+    }
+
+    public ObjectMetadata metadata() {
+        return metadata;
+    }
+
+    /**
+     * @return the number of times the content has been requested again after a failure.
+     */
+    public int resumes() {
+        return resumes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        if (content == null) open();
+        while (true) {
+            try {
+                int read = content.read(buffer, offset, length);
+                if (read == -1 && position < contentLength) {
+                    throw new IOException("Premature end of content, expected " + contentLength + " bytes, read " + position + " bytes.");
+                }
+                if (read > 0) position += read;
+                return read;
+            } catch (AbortedException exception) {
+                // Aborted by close: not a failure of the connection.
+                throw exception;
+            } catch (IOException | SdkClientException exception) {
+                resume(exception);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (content == null) return;
+        if (position < contentLength) {
+            // Not fully consumed: aborting is cheaper than reading the remaining bytes.
+            content.abort();
+        }
+        content.close();
+    }
+
+    private void open() throws IOException {
+        GetObjectRequest firstRequest = (GetObjectRequest) request.clone();
+        firstRequest.setMatchingETagConstraints(Collections.singletonList(metadata.getETag()));
+        S3Object object = s3.getObject(firstRequest);
+        if (object == null) {
+            throw new IOException("The object has been modified since its metadata was read (ETag " + metadata.getETag() + " does not match).");
+        }
+        content = object.getObjectContent();
+    }
+
+    private void resume(Exception cause) throws IOException {
+        content.abort();
+        if (position >= contentLength) {
+            // All the content has been read: the failure is not a dropped connection (e.g. a checksum mismatch).
+            throw new IOException(cause.getMessage(), cause);
+        }
+        if (resumes >= maxResumes) {
+            throw new IOException("Reading the object content failed after " + resumes + " resumes at byte " + position + ": " + cause.getMessage(), cause);
+        }
+        resumes++;
+
+        GetObjectRequest resumeRequest = ((GetObjectRequest) request.clone())
+                .withRange(position, contentLength - 1);
+        resumeRequest.setMatchingETagConstraints(Collections.singletonList(metadata.getETag()));
+
+        S3Object object;
+        try {
+            object = s3.getObject(resumeRequest);
+        } catch (SdkClientException exception) {
+            exception.addSuppressed(cause);
+            throw new IOException("The object content could not be requested again from byte " + position + ": " + exception.getMessage(), exception);
+        }
+        if (object == null) {
+            // The SDK returns null when the constraints are not satisfied.
+            throw new IOException("The object has been modified while being read (ETag " + metadata.getETag() + " does not match).", cause);
+        }
+        content = object.getObjectContent();
+    }
+}
@@ -0,0 +1,195 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.internal.SdkFilterInputStream;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Object source backed by the content of a single S3 GET request.
+ */
+public class SingleObjectSource implements ObjectSource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final S3Object object;
+
+    public SingleObjectSource(S3Object object) {
+        this.object = object;
+    }
+
+    /**
+     * Creates the source of the response to the given request, failing if the response is null:
+     * the SDK returns null when the ETag constraints of the request are not satisfied.
+     */
+    public static SingleObjectSource of(S3Object object, GetObjectRequest request) throws IOException {
+        return new SingleObjectSource(requireMatching(object, request));
+    }
+
+    /**
+     * Returns the response to the given request, failing if the response is null.
+     */
+    public static S3Object requireMatching(S3Object object, GetObjectRequest request) throws IOException {
+        if (object == null) {
+            throw new IOException("The object has been modified since its metadata was read (ETag " +
+                    request.getMatchingETagConstraints() + " does not match).");
+        }
+        return object;
+    }
+
+    @Override
+    public ObjectMetadata metadata() {
+        return object.getObjectMetadata();
+    }
+
+    @Override
+    public byte[] asByteArray() throws IOException {
+        try (S3ObjectInputStream content = object.getObjectContent()) {
+            long contentLength = object.getObjectMetadata().getContentLength();
+            return readFully(content, contentLength);
+        }
+    }
+
+    /**
+     * The stream is lazy: a new chunk is read from the connection only when it is
+     * requested downstream, therefore at most one chunk per download is held in memory
+     * by this source. If the subscriber cancels before the end of the content is reached,
+     * the underlying HTTP connection is aborted instead of being drained. The content of
+     * the response can be consumed only once, and the connection is released only when the
+     * stream is consumed: components streaming a payload open the source when the stream
+     * is subscribed (see {@link DeferredObjectSource}).
+     */
+    @Override
+    public Publisher<byte[]> asStream(int chunkSize) {
+        return Flux.generate(
+                () -> new ChunkReader(object.getObjectContent(), chunkSize),
+                (reader, sink) -> {
+                    try {
+                        byte[] chunk = reader.next();
+                        if (chunk == null) sink.complete();
+                        else sink.next(chunk);
+                    } catch (IOException exception) {
+                        sink.error(exception);
+                    }
+                    return reader;
+                },
+                ChunkReader::close);
+    }
+
+    /**
+     * The content is copied from the connection to the file through a single buffer:
+     * the heap used does not depend on the size of the object.
+     */
+    @Override
+    public long writeTo(FileChannel channel) throws IOException {
+        try (S3ObjectInputStream content = object.getObjectContent()) {
+            long contentLength = object.getObjectMetadata().getContentLength();
+            long written = writeFully(content, channel, 0);
+            if (contentLength >= 0 && written < contentLength) {
+                throw new IOException("Premature end of content, expected " + contentLength + " bytes, read " + written + " bytes.");
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Writes the content to the channel at the given position, until the end of the content.
+     * Positional writes do not change the position of the channel, therefore
+     * different parts of the same file can be written concurrently.
+     *
+     * @return the number of bytes written.
+     */
+    static long writeFully(InputStream content, FileChannel channel, long position) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long written = 0;
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+            while (chunk.hasRemaining()) {
+                written += channel.write(chunk, position + written);
+            }
+        }
+        return written;
+    }
+
+    static byte[] readFully(InputStream content, long contentLength) throws IOException {
+        if (contentLength < 0 || contentLength > Integer.MAX_VALUE - 8) {
+            // Content length unknown: fall back to a growing buffer.
+            return readUnknownLength(content);
+        }
+
+        // The content length is known, therefore the data is read
+        // directly into an array of the exact size, without intermediate copies.
+        byte[] data = new byte[(int) contentLength];
+        int offset = 0;
+        int read;
+        while (offset < data.length && (read = content.read(data, offset, data.length - offset)) != -1) {
+            offset += read;
+        }
+        if (offset < data.length) {
+            throw new IOException("Premature end of content, expected " + data.length + " bytes, read " + offset + " bytes.");
+        }
+        return data;
+    }
+
+    private static byte[] readUnknownLength(InputStream content) throws IOException {
+        try (ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * Reads the content in chunks of the given size. Any SDK stream can be read,
+     * since they all support aborting the connection they are reading from.
+     */
+    public static class ChunkReader {
+
+        private final SdkFilterInputStream content;
+        private final int chunkSize;
+        private boolean completed;
+
+        public ChunkReader(SdkFilterInputStream content, int chunkSize) {
+            this.content = content;
+            this.chunkSize = chunkSize;
+        }
+
+        public byte[] next() throws IOException {
+            byte[] chunk = new byte[chunkSize];
+            int offset = 0;
+            int read;
+            while (offset < chunkSize && (read = content.read(chunk, offset, chunkSize - offset)) != -1) {
+                offset += read;
+            }
+            if (offset < chunkSize) completed = true;
+            if (offset == 0) return null;
+            return offset < chunkSize ? Arrays.copyOf(chunk, offset) : chunk;
+        }
+
+        public void close() {
+            if (!completed) {
+                // Not fully consumed: aborting is cheaper than reading the remaining bytes.
+                content.abort();
+            }
+            try {
+                content.close();
+            } catch (IOException exception) {
+                // Nothing to do, the stream has been fully consumed or aborted.
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.reedelk.aws.s3.internal.exception;
+
+import com.reedelk.runtime.api.exception.PlatformException;
+
+public class DeletePrefixException extends PlatformException {
+
+    public DeletePrefixException(String message) {
+        super(message);
+    }
+
+    public DeletePrefixException(String message, Throwable exception) {
+        super(message, exception);
+    }
+}
@@ -0,0 +1,14 @@
+package com.reedelk.aws.s3.internal.exception;
+
+import com.reedelk.runtime.api.exception.PlatformException;
+
+public class DownloadObjectsException extends PlatformException {
+
+    public DownloadObjectsException(String message) {
+        super(message);
+    }
+
+    public DownloadObjectsException(String message, Throwable exception) {
+        super(message, exception);
+    }
+}
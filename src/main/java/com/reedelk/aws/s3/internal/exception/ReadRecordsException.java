@@ -0,0 +1,14 @@
+package com.reedelk.aws.s3.internal.exception;
+
+import com.reedelk.runtime.api.exception.PlatformException;
+
+public class ReadRecordsException extends PlatformException {
+
+    public ReadRecordsException(String message) {
+        super(message);
+    }
+
+    public ReadRecordsException(String message, Throwable exception) {
+        super(message, exception);
+    }
+}
@@ -0,0 +1,14 @@
+package com.reedelk.aws.s3.internal.exception;
+
+import com.reedelk.runtime.api.exception.PlatformException;
+
+public class SelectObjectException extends PlatformException {
+
+    public SelectObjectException(String message) {
+        super(message);
+    }
+
+    public SelectObjectException(String message, Throwable exception) {
+        super(message, exception);
+    }
+}
@@ -0,0 +1,14 @@
+package com.reedelk.aws.s3.internal.exception;
+
+import com.reedelk.runtime.api.exception.PlatformException;
+
+public class UploadObjectsException extends PlatformException {
+
+    public UploadObjectsException(String message) {
+        super(message);
+    }
+
+    public UploadObjectsException(String message, Throwable exception) {
+        super(message, exception);
+    }
+}
@@ -0,0 +1,111 @@
+package com.reedelk.aws.s3.internal.list;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.reedelk.aws.s3.internal.exception.ListObjectsException;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.reedelk.aws.s3.internal.commons.Messages.ListObjects.LIST_ERROR;
+
+/**
+ * Lists all the pages of a ListObjectsV2 request by following the continuation tokens.
+ * Pages are produced lazily, only when requested downstream. If a prefetch executor
+ * is given, the next page is requested on the executor as soon as the current page is
+ * emitted, so that the S3 round trip overlaps with the consumption of the current page.
+ * At most two pages per listing are therefore held in memory.
+ */
+public class PagedListing {
+
+    private PagedListing() {
+    }
+
+    public static Flux<ListObjectsV2Result> pages(AmazonS3 s3, ListObjectsV2Request request, ExecutorService prefetchExecutor) {
+        return Flux.generate(
+                () -> new PageFetcher(s3, request, prefetchExecutor),
+                (fetcher, sink) -> {
+                    try {
+                        ListObjectsV2Result page = fetcher.next();
+                        if (page == null) sink.complete();
+                        else sink.next(page);
+                    } catch (SdkClientException exception) {
+                        String error = LIST_ERROR.format(request.getBucketName(), exception.getMessage());
+                        sink.error(new ListObjectsException(error, exception));
+                    }
+                    return fetcher;
+                },
+                PageFetcher::cancel);
+    }
+
+    static class PageFetcher {
+
+        private final AmazonS3 s3;
+        private final ListObjectsV2Request request;
+        private final ExecutorService prefetchExecutor;
+
+        private Future<ListObjectsV2Result> prefetched;
+        private String continuationToken;
+        private boolean completed;
+
+        PageFetcher(AmazonS3 s3, ListObjectsV2Request request, ExecutorService prefetchExecutor) {
+            this.s3 = s3;
+            this.request = request;
+            this.prefetchExecutor = prefetchExecutor;
+            this.continuationToken = request.getContinuationToken();
+        }
+
+        ListObjectsV2Result next() {
+            if (completed) return null;
+
+            ListObjectsV2Result page;
+            if (prefetched != null) {
+                page = await(prefetched);
+                prefetched = null;
+            } else {
+                page = fetch(continuationToken);
+            }
+
+            if (page.isTruncated()) {
+                continuationToken = page.getNextContinuationToken();
+                if (prefetchExecutor != null) {
+                    String token = continuationToken;
+                    prefetched = prefetchExecutor.submit(() -> fetch(token));
+                }
+            } else {
+                completed = true;
+            }
+            return page;
+        }
+
+        void cancel() {
+            completed = true;
+            if (prefetched != null) {
+                prefetched.cancel(true);
+            }
+        }
+
+        private ListObjectsV2Result fetch(String token) {
+            ListObjectsV2Request pageRequest = (ListObjectsV2Request) request.clone();
+            pageRequest.setContinuationToken(token);
+            return s3.listObjectsV2(pageRequest);
+        }
+
+        private static ListObjectsV2Result await(Future<ListObjectsV2Result> page) {
+            try {
+                return page.get();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new SdkClientException("Listing interrupted", exception);
+            } catch (ExecutionException exception) {
+                Throwable cause = exception.getCause();
+                if (cause instanceof SdkClientException) throw (SdkClientException) cause;
+                throw new SdkClientException(cause.getMessage(), cause);
+            }
+        }
+    }
+}
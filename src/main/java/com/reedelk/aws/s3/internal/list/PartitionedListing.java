@@ -0,0 +1,164 @@
+package com.reedelk.aws.s3.internal.list;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Lists a bucket by splitting the key space into prefix partitions which are listed concurrently.
+ * The partitions are discovered by listing the requested prefix using the given delimiter: as soon as
+ * each discovery page is available, the objects found directly under the requested prefix are emitted
+ * and its common prefixes are listed on the given executor, with at most 'concurrency' partitions
+ * listed at the same time. A prefix without common prefixes is therefore listed page by page, as a
+ * plain paged listing would do.
+ * <p>
+ * Partitions are split recursively to spread skewed prefixes: a partition whose first page is
+ * truncated is listed again using the delimiter, up to {@value #MAX_SPLIT_DEPTH} levels below
+ * the requested prefix. Deeper partitions are listed without the delimiter.
+ * <p>
+ * If ordered, the summaries are emitted in the same lexicographical order of a sequential listing,
+ * otherwise they are emitted as soon as each page of each partition is available.
+ */
+public class PartitionedListing {
+
+    private static final int PAGES_PREFETCH = 2;
+    private static final int MAX_SPLIT_DEPTH = 2;
+
+    private PartitionedListing() {
+    }
+
+    public static Flux<S3ObjectSummary> summaries(AmazonS3 s3,
+                                                  ListObjectsV2Request request,
+                                                  String delimiter,
+                                                  ExecutorService executor,
+                                                  int concurrency,
+                                                  boolean ordered) {
+
+        Listing listing = new Listing(s3, request, delimiter,
+                Schedulers.fromExecutorService(executor), concurrency, ordered);
+
+        // A continuation token of a listing without delimiter is not valid for the discovery listing.
+        ListObjectsV2Request discoveryRequest = ((ListObjectsV2Request) request.clone())
+                .withDelimiter(delimiter)
+                .withContinuationToken(null);
+
+        return listing.split(discoveryRequest, 0)
+                .concatMapIterable(page -> page, 1);
+    }
+
+    static class Listing {
+
+        private final AmazonS3 s3;
+        private final ListObjectsV2Request request;
+        private final String delimiter;
+        private final Scheduler scheduler;
+        private final int concurrency;
+        private final boolean ordered;
+
+        Listing(AmazonS3 s3, ListObjectsV2Request request, String delimiter, Scheduler scheduler, int concurrency, boolean ordered) {
+            this.s3 = s3;
+            this.request = request;
+            this.delimiter = delimiter;
+            this.scheduler = scheduler;
+            this.concurrency = concurrency;
+            this.ordered = ordered;
+        }
+
+        Flux<List<S3ObjectSummary>> split(ListObjectsV2Request discoveryRequest, int depth) {
+            Flux<Partition> partitions = PagedListing.pages(s3, discoveryRequest, null)
+                    .subscribeOn(scheduler)
+                    .concatMapIterable(page -> partitionsOf(page, depth + 1), 1);
+            return ordered ?
+                    partitions.flatMapSequential(partition -> partition.pages(this), concurrency, PAGES_PREFETCH) :
+                    partitions.flatMap(partition -> partition.pages(this), concurrency, PAGES_PREFETCH);
+        }
+
+        Flux<List<S3ObjectSummary>> list(String prefix, int depth) {
+            ListObjectsV2Request partitionRequest = ((ListObjectsV2Request) request.clone())
+                    .withPrefix(prefix)
+                    .withDelimiter(null)
+                    .withContinuationToken(null)
+                    .withStartAfter(null);
+
+            Flux<ListObjectsV2Result> pages = PagedListing.pages(s3, partitionRequest, null)
+                    .subscribeOn(scheduler);
+
+            if (depth >= MAX_SPLIT_DEPTH) {
+                return pages.map(ListObjectsV2Result::getObjectSummaries);
+            }
+
+            // The first page tells whether the partition is large enough to be split:
+            // if it is truncated, the partition is listed again using the delimiter.
+            return pages.take(1).concatMap(firstPage -> {
+                if (!firstPage.isTruncated()) {
+                    return Flux.just(firstPage.getObjectSummaries());
+                }
+                ListObjectsV2Request discoveryRequest = ((ListObjectsV2Request) partitionRequest.clone())
+                        .withDelimiter(delimiter);
+                return split(discoveryRequest, depth);
+            });
+        }
+
+        private static List<Partition> partitionsOf(ListObjectsV2Result page, int depth) {
+            // Objects directly under the listed prefix and common prefixes are returned by S3 in two
+            // distinct sorted lists: they are merged to preserve the order, grouping the objects found
+            // between two common prefixes in a single partition. Pages do not overlap, hence it is
+            // enough to merge them page by page.
+            List<Partition> partitions = new ArrayList<>();
+            List<S3ObjectSummary> objects = page.getObjectSummaries();
+            int from = 0;
+            for (String prefix : page.getCommonPrefixes()) {
+                int to = from;
+                while (to < objects.size() && objects.get(to).getKey().compareTo(prefix) < 0) to++;
+                if (to > from) partitions.add(new ObjectsPartition(objects.subList(from, to)));
+                partitions.add(new PrefixPartition(prefix, depth));
+                from = to;
+            }
+            if (from < objects.size()) partitions.add(new ObjectsPartition(objects.subList(from, objects.size())));
+            return partitions;
+        }
+    }
+
+    interface Partition {
+
+        Flux<List<S3ObjectSummary>> pages(Listing listing);
+    }
+
+    static class ObjectsPartition implements Partition {
+
+        private final List<S3ObjectSummary> summaries;
+
+        ObjectsPartition(List<S3ObjectSummary> summaries) {
+            this.summaries = summaries;
+        }
+
+        @Override
+        public Flux<List<S3ObjectSummary>> pages(Listing listing) {
+            return Flux.just(summaries);
+        }
+    }
+
+    static class PrefixPartition implements Partition {
+
+        private final String prefix;
+        private final int depth;
+
+        PrefixPartition(String prefix, int depth) {
+            this.prefix = prefix;
+            this.depth = depth;
+        }
+
+        @Override
+        public Flux<List<S3ObjectSummary>> pages(Listing listing) {
+            return listing.list(prefix, depth);
+        }
+    }
+}
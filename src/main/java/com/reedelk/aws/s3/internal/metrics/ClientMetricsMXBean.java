@@ -0,0 +1,14 @@
+package com.reedelk.aws.s3.internal.metrics;
+
+/**
+ * Management interface exposing the connection usage of a client. The SDK does not expose
+ * its connection pool, therefore the utilization is approximated with the number of requests in flight.
+ */
+public interface ClientMetricsMXBean {
+
+    int getInFlightRequests();
+
+    int getMaxConnections();
+
+    double getConnectionPoolUtilization();
+}
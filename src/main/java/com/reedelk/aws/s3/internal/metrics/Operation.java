@@ -0,0 +1,55 @@
+package com.reedelk.aws.s3.internal.metrics;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.services.s3.model.*;
+
+/**
+ * The operations for which metrics are recorded. Multipart upload requests
+ * (initiate, upload part, complete and abort) are recorded as uploads,
+ * while copy part requests are recorded as copies.
+ */
+enum Operation {
+
+    UPLOAD("upload"),
+    DOWNLOAD("download"),
+    LIST("list"),
+    COPY("copy"),
+    DELETE("delete"),
+    DELETE_MANY("deleteMany"),
+    OTHER("other");
+
+    private final String displayName;
+
+    Operation(String displayName) {
+        this.displayName = displayName;
+    }
+
+    String displayName() {
+        return displayName;
+    }
+
+    static Operation of(AmazonWebServiceRequest request) {
+        if (request instanceof GetObjectRequest ||
+                request instanceof GetObjectMetadataRequest ||
+                request instanceof SelectObjectContentRequest) {
+            return DOWNLOAD;
+        } else if (request instanceof PutObjectRequest ||
+                request instanceof InitiateMultipartUploadRequest ||
+                request instanceof UploadPartRequest ||
+                request instanceof CompleteMultipartUploadRequest ||
+                request instanceof AbortMultipartUploadRequest) {
+            return UPLOAD;
+        } else if (request instanceof ListObjectsV2Request ||
+                request instanceof ListObjectsRequest) {
+            return LIST;
+        } else if (request instanceof CopyObjectRequest ||
+                request instanceof CopyPartRequest) {
+            return COPY;
+        } else if (request instanceof DeleteObjectRequest) {
+            return DELETE;
+        } else if (request instanceof DeleteObjectsRequest) {
+            return DELETE_MANY;
+        }
+        return OTHER;
+    }
+}
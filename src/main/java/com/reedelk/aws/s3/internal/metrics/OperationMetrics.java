@@ -0,0 +1,121 @@
+package com.reedelk.aws.s3.internal.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+class OperationMetrics implements OperationMetricsMXBean {
+
+    private static final long[] LATENCY_BUCKETS = { 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder latencySum = new LongAdder();
+    private final LongAccumulator latencyMax = new LongAccumulator(Math::max, 0);
+    // The last bucket counts the latencies greater than the highest bound.
+    private final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BUCKETS.length + 1];
+    private final Map<String, LongAdder> errorsByCode = new ConcurrentHashMap<>();
+
+    OperationMetrics() {
+        for (int i = 0; i < latencyBuckets.length; i++) {
+            latencyBuckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long latencyMillis, int attempts, long requestBytes, long responseBytes) {
+        requests.increment();
+        if (attempts > 1) retries.add(attempts - 1);
+        if (requestBytes > 0) bytesOut.add(requestBytes);
+        if (responseBytes > 0) bytesIn.add(responseBytes);
+        latencySum.add(latencyMillis);
+        latencyMax.accumulate(latencyMillis);
+        latencyBuckets[bucketOf(latencyMillis)].increment();
+    }
+
+    void recordError(String errorCode) {
+        errors.increment();
+        errorsByCode.computeIfAbsent(errorCode, code -> new LongAdder()).increment();
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public double getLatencyMeanMillis() {
+        long count = requests.sum();
+        return count == 0 ? 0 : (double) latencySum.sum() / count;
+    }
+
+    @Override
+    public long getLatencyMaxMillis() {
+        return latencyMax.get();
+    }
+
+    @Override
+    public Map<String, Long> getLatencyHistogram() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        long cumulative = 0;
+        for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+            cumulative += latencyBuckets[i].sum();
+            histogram.put("le_" + LATENCY_BUCKETS[i], cumulative);
+        }
+        cumulative += latencyBuckets[LATENCY_BUCKETS.length].sum();
+        histogram.put("le_+Inf", cumulative);
+        return histogram;
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByCode() {
+        Map<String, Long> counts = new TreeMap<>();
+        errorsByCode.forEach((code, count) -> counts.put(code, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public void reset() {
+        requests.reset();
+        errors.reset();
+        retries.reset();
+        bytesIn.reset();
+        bytesOut.reset();
+        latencySum.reset();
+        latencyMax.reset();
+        for (LongAdder bucket : latencyBuckets) bucket.reset();
+        errorsByCode.clear();
+    }
+
+    private static int bucketOf(long latencyMillis) {
+        for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+            if (latencyMillis <= LATENCY_BUCKETS[i]) return i;
+        }
+        return LATENCY_BUCKETS.length;
+    }
+}
@@ -0,0 +1,40 @@
+package com.reedelk.aws.s3.internal.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing the metrics of the requests of a single operation.
+ * Latencies are measured from the start of the request until its response (or error)
+ * has been received, including retries and client side rate limiting waits, and excluding
+ * the time spent reading the response content.
+ */
+public interface OperationMetricsMXBean {
+
+    long getRequestCount();
+
+    long getErrorCount();
+
+    long getRetryCount();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    double getLatencyMeanMillis();
+
+    long getLatencyMaxMillis();
+
+    /**
+     * @return the cumulative count of requests with latency lower than or equal to
+     * each bucket upper bound in milliseconds (e.g. 'le_100'), including the '+Inf' bucket.
+     */
+    Map<String, Long> getLatencyHistogram();
+
+    /**
+     * @return the number of errors by AWS error code (e.g. 'SlowDown', 'NoSuchKey')
+     * or by exception type for client side errors.
+     */
+    Map<String, Long> getErrorsByCode();
+
+    void reset();
+}
@@ -0,0 +1,140 @@
+package com.reedelk.aws.s3.internal.metrics;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.http.HttpMethodName;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Records the metrics of all the requests executed by a client, by operation.
+ */
+public class RequestMetrics extends RequestHandler2 implements ClientMetricsMXBean {
+
+    private static final HandlerContextKey<RequestTiming> TIMING = new HandlerContextKey<>("RequestTiming");
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final int NOT_MODIFIED = 304;
+    private static final int PRECONDITION_FAILED = 412;
+
+    private final Map<Operation, OperationMetrics> operations = new EnumMap<>(Operation.class);
+    private final IntSupplier inFlightRequests;
+    private final int maxConnections;
+
+    public RequestMetrics(IntSupplier inFlightRequests, int maxConnections) {
+        this.inFlightRequests = inFlightRequests;
+        this.maxConnections = maxConnections;
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new OperationMetrics());
+        }
+    }
+
+    /**
+     * @return the metrics of each operation, by operation name.
+     */
+    public Map<String, OperationMetricsMXBean> operations() {
+        Map<String, OperationMetricsMXBean> byName = new LinkedHashMap<>();
+        operations.forEach((operation, metrics) -> byName.put(operation.displayName(), metrics));
+        return byName;
+    }
+
+    @Override
+    public void beforeRequest(Request<?> request) {
+        request.addHandlerContext(TIMING, new RequestTiming(System.nanoTime()));
+    }
+
+    @Override
+    public void beforeAttempt(HandlerBeforeAttemptContext context) {
+        RequestTiming timing = context.getRequest().getHandlerContext(TIMING);
+        if (timing != null) timing.attempts++;
+    }
+
+    @Override
+    public void afterResponse(Request<?> request, Response<?> response) {
+        RequestTiming timing = request.getHandlerContext(TIMING);
+        if (timing == null) return;
+        // The content length of a HEAD response is the one of the object, not of the response body:
+        // only the bodies of GET responses are counted.
+        long responseBytes = request.getHttpMethod() != HttpMethodName.GET ||
+                response == null || response.getHttpResponse() == null ? -1 :
+                parseLength(response.getHttpResponse().getHeaders().get(CONTENT_LENGTH));
+        metricsOf(request).record(timing.elapsedMillis(), timing.attempts, requestBytesOf(request), responseBytes);
+    }
+
+    @Override
+    public void afterError(Request<?> request, Response<?> response, Exception exception) {
+        RequestTiming timing = request.getHandlerContext(TIMING);
+        if (timing == null) return;
+        OperationMetrics metrics = metricsOf(request);
+        metrics.record(timing.elapsedMillis(), timing.attempts, requestBytesOf(request), -1);
+        if (isConditionNotMet(exception)) return;
+        String errorCode = exception instanceof AmazonServiceException ?
+                ((AmazonServiceException) exception).getErrorCode() :
+                exception.getClass().getSimpleName();
+        metrics.recordError(errorCode == null ? "Unknown" : errorCode);
+    }
+
+    @Override
+    public int getInFlightRequests() {
+        return inFlightRequests.getAsInt();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public double getConnectionPoolUtilization() {
+        return Math.min(1.0, (double) inFlightRequests.getAsInt() / maxConnections);
+    }
+
+    /**
+     * A 304 Not Modified or a 412 Precondition Failed is the expected outcome of a conditional
+     * request (e.g. a cache revalidation): the SDK reports it as an error, but it is not one.
+     */
+    private static boolean isConditionNotMet(Exception exception) {
+        if (!(exception instanceof AmazonServiceException)) return false;
+        int statusCode = ((AmazonServiceException) exception).getStatusCode();
+        return statusCode == NOT_MODIFIED || statusCode == PRECONDITION_FAILED;
+    }
+
+    private OperationMetrics metricsOf(Request<?> request) {
+        return operations.get(Operation.of(request.getOriginalRequest()));
+    }
+
+    private static long requestBytesOf(Request<?> request) {
+        return parseLength(request.getHeaders().get(CONTENT_LENGTH));
+    }
+
+    private static long parseLength(String contentLength) {
+        if (contentLength == null) return -1;
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    static class RequestTiming {
+
+        private final long start;
+        // Attempts of the same request are executed sequentially on the same thread.
+        private int attempts;
+
+        RequestTiming(long start) {
+            this.start = start;
+        }
+
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.reedelk.aws.s3.internal.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream reading a range of a file with positional reads: streams on different
+ * ranges of the same channel can be read concurrently, and the data is read from the
+ * file only while it is being consumed. Mark and reset are supported without any buffering,
+ * so that the SDK can retry a request by reading the range again from the file.
+ * Closing the stream does not close the channel, which is owned by the caller.
+ */
+public class FileRangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+    private long mark;
+
+    public FileRangeInputStream(FileChannel channel, long offset, long length) {
+        this.channel = channel;
+        this.end = offset + length;
+        this.position = offset;
+        this.mark = offset;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        if (position >= end) return -1;
+        int toRead = (int) Math.min(length, end - position);
+        int read = channel.read(ByteBuffer.wrap(buffer, offset, toRead), position);
+        if (read == -1) {
+            throw new IOException("Premature end of file at position " + position + ", expected " + (end - position) + " more bytes: the file has been truncated.");
+        }
+        position += read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, end - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(end - position, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        position = mark;
+    }
+}
@@ -0,0 +1,156 @@
+package com.reedelk.aws.s3.internal.multipart;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Executes an S3 multipart upload: the upload is initiated, all the parts are
+ * transferred in parallel on the given executor and the upload is then completed.
+ * If any of the parts fails, the parts not yet started are skipped, the parts in flight
+ * are awaited and only then the multipart upload is aborted: a part completing after the
+ * abort would otherwise be left on the bucket as an orphan part, still billed for storage.
+ */
+public class MultipartUpload {
+
+    private static final int MAX_PARTS = 10000;
+
+    private final AmazonS3 s3;
+    private final ExecutorService executor;
+
+    public MultipartUpload(AmazonS3 s3, ExecutorService executor) {
+        this.s3 = s3;
+        this.executor = executor;
+    }
+
+    public CompleteMultipartUploadResult execute(InitiateMultipartUploadRequest request,
+                                                 long totalSize,
+                                                 long partSize,
+                                                 PartTransfer transfer) {
+
+        InitiateMultipartUploadResult initiated = s3.initiateMultipartUpload(request);
+        String bucket = request.getBucketName();
+        String key = request.getKey();
+        String uploadId = initiated.getUploadId();
+
+        // S3 allows at most 10000 parts: the part size is increased if needed.
+        long effectivePartSize = Math.max(partSize, (totalSize + MAX_PARTS - 1) / MAX_PARTS);
+
+        List<Future<PartETag>> parts = new ArrayList<>();
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        try {
+            int partNumber = 1;
+            for (long offset = 0; offset < totalSize; offset += effectivePartSize, partNumber++) {
+                Part part = new Part(uploadId, partNumber, offset, Math.min(effectivePartSize, totalSize - offset));
+                parts.add(executor.submit(() -> aborted.get() ? null : transfer.apply(part)));
+            }
+
+            List<PartETag> partETags = new ArrayList<>(parts.size());
+            for (Future<PartETag> part : parts) {
+                partETags.add(part.get());
+            }
+
+            CompleteMultipartUploadRequest complete =
+                    new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags);
+            return s3.completeMultipartUpload(complete);
+
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            abort(bucket, key, uploadId, parts, aborted);
+            throw new AbortedException("Multipart upload interrupted", exception);
+
+        } catch (ExecutionException exception) {
+            abort(bucket, key, uploadId, parts, aborted);
+            Throwable cause = exception.getCause();
+            if (cause instanceof SdkClientException) throw (SdkClientException) cause;
+            throw new SdkClientException(cause.getMessage(), cause);
+
+        } catch (RuntimeException exception) {
+            // Also a RejectedExecutionException, when the executor is shut down while submitting the parts.
+            abort(bucket, key, uploadId, parts, aborted);
+            throw exception;
+        }
+    }
+
+    private void abort(String bucket, String key, String uploadId, List<Future<PartETag>> parts, AtomicBoolean aborted) {
+        // The parts are not cancelled: a cancelled future is done as soon as it is cancelled,
+        // while its part might still be uploading. The parts not yet started are skipped.
+        aborted.set(true);
+        awaitSettled(parts);
+        try {
+            s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+        } catch (SdkClientException exception) {
+            // Abort is best effort: the original cause of the
+            // failure is more relevant to the caller.
+        }
+    }
+
+    private static void awaitSettled(List<Future<PartETag>> parts) {
+        boolean interrupted = Thread.interrupted();
+        for (Future<PartETag> part : parts) {
+            while (true) {
+                try {
+                    part.get();
+                    break;
+                } catch (InterruptedException exception) {
+                    interrupted = true;
+                } catch (ExecutionException exception) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Transfers a single part of the multipart upload and returns its ETag.
+     */
+    @FunctionalInterface
+    public interface PartTransfer {
+
+        PartETag apply(Part part) throws Exception;
+    }
+
+    public static class Part {
+
+        private final String uploadId;
+        private final int partNumber;
+        private final long offset;
+        private final long size;
+
+        Part(String uploadId, int partNumber, long offset, long size) {
+            this.uploadId = uploadId;
+            this.partNumber = partNumber;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        public String uploadId() {
+            return uploadId;
+        }
+
+        public int partNumber() {
+            return partNumber;
+        }
+
+        public long offset() {
+            return offset;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public long lastByte() {
+            return offset + size - 1;
+        }
+    }
+}
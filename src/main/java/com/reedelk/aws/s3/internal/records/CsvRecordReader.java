@@ -0,0 +1,113 @@
+package com.reedelk.aws.s3.internal.records;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Reads CSV rows (RFC 4180): fields may be enclosed in double quotes, in which case they can
+ * contain the delimiter, line breaks and escaped double quotes (""). Empty lines are skipped.
+ * Each record is the list of the fields of a row or, if the first row is a header, a map from
+ * the column names to the fields.
+ */
+class CsvRecordReader implements RecordReader {
+
+    private static final char QUOTE = '"';
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final char delimiter;
+    private final boolean header;
+
+    private List<String> columns;
+    private int position;
+    private int limit;
+
+    CsvRecordReader(Reader reader, char delimiter, boolean header) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.header = header;
+    }
+
+    @Override
+    public Serializable next() throws IOException {
+        if (header && columns == null) {
+            columns = readRow();
+            if (columns == null) return null;
+        }
+
+        ArrayList<String> fields = readRow();
+        if (fields == null || columns == null) return fields;
+
+        LinkedHashMap<String, String> record = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            record.put(i < columns.size() ? columns.get(i) : "_" + (i + 1), fields.get(i));
+        }
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private ArrayList<String> readRow() throws IOException {
+        int c = read();
+        // Empty lines do not contain any record.
+        while (c == '\r' || c == '\n') c = read();
+        if (c == -1) return null;
+
+        ArrayList<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field at the end of the content.");
+                } else if (c == QUOTE) {
+                    if (peek() == QUOTE) {
+                        field.append(QUOTE);
+                        read();
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == QUOTE && field.length() == 0) {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r' && peek() == '\n') read();
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    // The content is read through an unsynchronized buffer, since it is read one character at a time.
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) position++;
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            int read = reader.read(buffer, 0, buffer.length);
+            if (read <= 0) return -1;
+            position = 0;
+            limit = read;
+        }
+        return buffer[position];
+    }
+}
@@ -0,0 +1,35 @@
+package com.reedelk.aws.s3.internal.records;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+
+/**
+ * Reads each line as a record. When blank lines are skipped (e.g. NDJSON), each record
+ * is a JSON document, which is returned as it is.
+ */
+class LineRecordReader implements RecordReader {
+
+    private final BufferedReader reader;
+    private final boolean skipBlankLines;
+
+    LineRecordReader(Reader reader, boolean skipBlankLines) {
+        this.reader = new BufferedReader(reader);
+        this.skipBlankLines = skipBlankLines;
+    }
+
+    @Override
+    public Serializable next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+        } while (line != null && skipBlankLines && line.trim().isEmpty());
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,114 @@
+package com.reedelk.aws.s3.internal.records;
+
+import com.reedelk.aws.s3.component.RecordCompression;
+import com.reedelk.aws.s3.component.RecordFormat;
+import com.reedelk.aws.s3.internal.type.RecordBatch;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Splits the content of an object into batches of records. The batches are produced lazily,
+ * only when requested downstream, and the content is decompressed and parsed while it is read:
+ * at most one batch is held in memory, whatever the size of the object.
+ */
+public class RecordBatches {
+
+    private static final int GZIP_MAGIC_FIRST = 0x1f;
+    private static final int GZIP_MAGIC_SECOND = 0x8b;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    // Batches grow as records are added: a large batch size does not preallocate a large array.
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    private RecordBatches() {
+    }
+
+    /**
+     * The content is opened for each subscription, and closed when the stream completes, fails or is cancelled.
+     */
+    public static Flux<RecordBatch> of(Supplier<InputStream> content, Settings settings, int batchSize) {
+        int initialCapacity = Math.min(batchSize, MAX_INITIAL_CAPACITY);
+        return Flux.generate(
+                () -> reader(content.get(), settings),
+                (reader, sink) -> {
+                    try {
+                        RecordBatch batch = new RecordBatch(initialCapacity);
+                        Serializable record;
+                        while (batch.size() < batchSize && (record = reader.next()) != null) {
+                            batch.add(record);
+                        }
+                        if (!batch.isEmpty()) sink.next(batch);
+                        if (batch.size() < batchSize) sink.complete();
+                    } catch (IOException exception) {
+                        sink.error(exception);
+                    }
+                    return reader;
+                },
+                RecordBatches::close);
+    }
+
+    private static RecordReader reader(InputStream content, Settings settings) throws IOException {
+        try {
+            Reader reader = new InputStreamReader(decompressed(content, settings.compression), settings.charset);
+            if (RecordFormat.CSV.equals(settings.format)) {
+                return new CsvRecordReader(reader, settings.delimiter, settings.header);
+            }
+            return new LineRecordReader(reader, RecordFormat.NDJSON.equals(settings.format));
+        } catch (IOException | RuntimeException exception) {
+            close(content);
+            throw exception;
+        }
+    }
+
+    private static InputStream decompressed(InputStream content, RecordCompression compression) throws IOException {
+        if (RecordCompression.GZIP.equals(compression)) {
+            return new GZIPInputStream(content, GZIP_BUFFER_SIZE);
+        }
+        if (RecordCompression.NONE.equals(compression)) {
+            return content;
+        }
+
+        // Auto: compressed content is detected from the GZIP magic number.
+        PushbackInputStream input = new PushbackInputStream(content, 2);
+        int first = input.read();
+        int second = first != -1 ? input.read() : -1;
+        if (second != -1) input.unread(second);
+        if (first != -1) input.unread(first);
+        return first == GZIP_MAGIC_FIRST && second == GZIP_MAGIC_SECOND ?
+                new GZIPInputStream(input, GZIP_BUFFER_SIZE) :
+                input;
+    }
+
+    private static void close(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception exception) {
+            // Nothing to do, the content has been fully read or aborted.
+        }
+    }
+
+    public static class Settings {
+
+        final RecordFormat format;
+        final RecordCompression compression;
+        final Charset charset;
+        final char delimiter;
+        final boolean header;
+
+        public Settings(RecordFormat format, RecordCompression compression, Charset charset, char delimiter, boolean header) {
+            this.format = format;
+            this.compression = compression;
+            this.charset = charset;
+            this.delimiter = delimiter;
+            this.header = header;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.reedelk.aws.s3.internal.records;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Reads the records of an object one at a time.
+ */
+public interface RecordReader extends Closeable {
+
+    /**
+     * @return the next record or null if the end of the content has been reached.
+     */
+    Serializable next() throws IOException;
+}
@@ -0,0 +1,93 @@
+package com.reedelk.aws.s3.internal.select;
+
+import com.amazonaws.services.s3.model.SelectObjectContentEvent;
+import com.amazonaws.services.s3.model.SelectObjectContentEventVisitor;
+import com.amazonaws.services.s3.model.SelectObjectContentResult;
+import com.amazonaws.services.s3.model.SelectRecordsInputStream;
+import com.amazonaws.services.s3.model.Stats;
+import com.reedelk.aws.s3.internal.download.SingleObjectSource.ChunkReader;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The records returned by an S3 Select request. The response is an event stream: the records
+ * events are concatenated into a single stream of bytes, while the stats event, sent by S3 after
+ * the last record, carries the number of bytes scanned, processed and returned by the request.
+ * If the response ends before the end event, reading the records fails rather than
+ * returning a truncated result. The request is sent only when the records are read.
+ */
+public class SelectedRecords {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Supplier<SelectObjectContentResult> request;
+    private Stats stats;
+
+    public SelectedRecords(Supplier<SelectObjectContentResult> request) {
+        this.request = request;
+    }
+
+    /**
+     * Returns the statistics of the request, once all the records have been read in memory.
+     */
+    public Optional<Stats> stats() {
+        return Optional.ofNullable(stats);
+    }
+
+    /**
+     * Sends the request and reads all the records in memory.
+     */
+    public byte[] asByteArray() throws IOException {
+        SelectObjectContentResult result = request.get();
+        try (SelectRecordsInputStream records = result.getPayload().getRecordsInputStream(new StatsVisitor(details -> stats = details));
+             ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = records.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * The stream is lazy: the request is sent when the stream is subscribed and records are read
+     * from the connection only when requested downstream. If the subscriber cancels before the end
+     * of the records, the underlying HTTP connection is aborted. Each subscription sends a new request.
+     */
+    public Publisher<byte[]> asStream(int chunkSize) {
+        return Flux.generate(
+                () -> new ChunkReader(request.get().getPayload().getRecordsInputStream(), chunkSize),
+                (reader, sink) -> {
+                    try {
+                        byte[] chunk = reader.next();
+                        if (chunk == null) sink.complete();
+                        else sink.next(chunk);
+                    } catch (IOException | RuntimeException exception) {
+                        sink.error(exception);
+                    }
+                    return reader;
+                },
+                ChunkReader::close);
+    }
+
+    private static class StatsVisitor extends SelectObjectContentEventVisitor {
+
+        private final Consumer<Stats> statsConsumer;
+
+        StatsVisitor(Consumer<Stats> statsConsumer) {
+            this.statsConsumer = statsConsumer;
+        }
+
+        @Override
+        public void visit(SelectObjectContentEvent.StatsEvent event) {
+            statsConsumer.accept(event.getDetails());
+        }
+    }
+}
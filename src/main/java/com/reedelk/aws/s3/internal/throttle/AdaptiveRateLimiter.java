@@ -0,0 +1,131 @@
+package com.reedelk.aws.s3.internal.throttle;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.Request;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.reedelk.aws.s3.internal.commons.RequestTarget;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Client side request rate limiter shared by all the components using the same client.
+ * S3 scales its request rate per key prefix, therefore each bucket and first key segment
+ * (e.g. 'my-bucket/logs/') has its own adaptive token bucket. Since the limiter is invoked
+ * before each attempt, retries of failed requests consume tokens as well and cannot amplify
+ * a SlowDown storm. At most 10000 partitions are tracked: idle partitions are removed
+ * periodically, and the least recently used partition is evicted beyond the limit.
+ */
+public class AdaptiveRateLimiter extends RequestHandler2 implements AdaptiveRateLimiterMXBean {
+
+    private static final HandlerContextKey<TokenBucket> TOKEN_BUCKET = new HandlerContextKey<>("TokenBucket");
+    private static final int STATUS_SLOW_DOWN = 503;
+    private static final int MAX_BUCKETS = 10000;
+    private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toNanos(5);
+    private static final long IDLE_SWEEP_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+    private static final double INCREASE_STEP_RATIO = 0.05;
+
+    private final double initialRate;
+    private final double maxRate;
+    // Access ordered: the eldest bucket is the least recently used one.
+    private final Map<String, TokenBucket> buckets = new LinkedHashMap<String, TokenBucket>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+            return size() > MAX_BUCKETS;
+        }
+    };
+    private long nextIdleSweep = System.nanoTime() + IDLE_SWEEP_INTERVAL;
+
+    private final LongAdder slowDowns = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public AdaptiveRateLimiter(double initialRate, double maxRate) {
+        this.initialRate = Math.min(initialRate, maxRate);
+        this.maxRate = maxRate;
+    }
+
+    @Override
+    public void beforeAttempt(HandlerBeforeAttemptContext context) {
+        Request<?> request = context.getRequest();
+        TokenBucket bucket = request.getHandlerContext(TOKEN_BUCKET);
+        if (bucket == null) {
+            RequestTarget target = RequestTarget.of(request.getOriginalRequest());
+            if (target == null) return;
+            bucket = bucketOf(target);
+            request.addHandlerContext(TOKEN_BUCKET, bucket);
+        }
+
+        long wait;
+        while ((wait = bucket.tryAcquire()) > 0) {
+            waitNanos.add(wait);
+            LockSupport.parkNanos(wait);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new AbortedException("Interrupted while waiting for the S3 request rate limiter");
+            }
+        }
+    }
+
+    @Override
+    public void afterAttempt(HandlerAfterAttemptContext context) {
+        TokenBucket bucket = context.getRequest().getHandlerContext(TOKEN_BUCKET);
+        if (bucket == null) return;
+
+        Exception exception = context.getException();
+        if (exception == null) {
+            bucket.onSuccess();
+        } else if (exception instanceof AmazonServiceException &&
+                ((AmazonServiceException) exception).getStatusCode() == STATUS_SLOW_DOWN) {
+            slowDowns.increment();
+            bucket.onSlowDown();
+        }
+    }
+
+    @Override
+    public Map<String, Double> getRequestRates() {
+        Map<String, Double> rates = new TreeMap<>();
+        synchronized (buckets) {
+            buckets.forEach((partition, bucket) -> rates.put(partition, bucket.rate()));
+        }
+        return rates;
+    }
+
+    @Override
+    public long getSlowDownCount() {
+        return slowDowns.sum();
+    }
+
+    @Override
+    public long getThrottledWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    // The bucket is looked up once per request: retries reuse it from the handler context.
+    private TokenBucket bucketOf(RequestTarget target) {
+        synchronized (buckets) {
+            long now = System.nanoTime();
+            if (now - nextIdleSweep >= 0) {
+                nextIdleSweep = now + IDLE_SWEEP_INTERVAL;
+                buckets.values().removeIf(bucket -> now - bucket.lastUsed() > IDLE_TIMEOUT);
+            }
+            return buckets.computeIfAbsent(partitionOf(target),
+                    partition -> new TokenBucket(initialRate, maxRate, Math.max(1, maxRate * INCREASE_STEP_RATIO)));
+        }
+    }
+
+    private static String partitionOf(RequestTarget target) {
+        String key = target.key();
+        int separator = key == null ? -1 : key.indexOf('/');
+        return separator < 0 ?
+                target.bucket() + "/" :
+                target.bucket() + "/" + key.substring(0, separator + 1);
+    }
+}
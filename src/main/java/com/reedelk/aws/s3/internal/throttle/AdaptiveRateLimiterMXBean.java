@@ -0,0 +1,18 @@
+package com.reedelk.aws.s3.internal.throttle;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing the state of an adaptive rate limiter.
+ */
+public interface AdaptiveRateLimiterMXBean {
+
+    /**
+     * @return the current request rate (requests per second) of each bucket prefix.
+     */
+    Map<String, Double> getRequestRates();
+
+    long getSlowDownCount();
+
+    long getThrottledWaitMillis();
+}
@@ -0,0 +1,86 @@
+package com.reedelk.aws.s3.internal.throttle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket whose refill rate is adjusted with an additive increase / multiplicative
+ * decrease policy: the rate grows by a fixed step for every second without SlowDown
+ * responses, and it is halved (at most once per second) when S3 responds with SlowDown.
+ */
+class TokenBucket {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double MIN_RATE = 1;
+
+    private final double maxRate;
+    private final double increaseStep;
+
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+    private long lastIncrease;
+    private long lastDecrease;
+    private volatile long lastUsed;
+
+    TokenBucket(double initialRate, double maxRate, double increaseStep) {
+        long now = System.nanoTime();
+        this.rate = initialRate;
+        this.maxRate = maxRate;
+        this.increaseStep = increaseStep;
+        // The bucket allows a burst of at most one second worth of requests.
+        this.tokens = initialRate;
+        this.lastRefill = now;
+        this.lastIncrease = now;
+        this.lastDecrease = now - ONE_SECOND;
+        this.lastUsed = now;
+    }
+
+    /**
+     * Takes a token, or returns the time in nanoseconds to wait before trying again.
+     */
+    synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        lastUsed = now;
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) ((1 - tokens) / rate * ONE_SECOND);
+    }
+
+    synchronized void onSuccess() {
+        long now = System.nanoTime();
+        if (now - lastIncrease >= ONE_SECOND && now - lastDecrease >= ONE_SECOND) {
+            refill(now);
+            rate = Math.min(maxRate, rate + increaseStep);
+            lastIncrease = now;
+        }
+    }
+
+    synchronized void onSlowDown() {
+        long now = System.nanoTime();
+        // Concurrent requests receive SlowDown together: they count as a single congestion event.
+        if (now - lastDecrease >= ONE_SECOND) {
+            refill(now);
+            rate = Math.max(MIN_RATE, rate * DECREASE_FACTOR);
+            tokens = Math.min(tokens, 0);
+            lastDecrease = now;
+            lastIncrease = now;
+        }
+    }
+
+    synchronized double rate() {
+        return rate;
+    }
+
+    long lastUsed() {
+        return lastUsed;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(rate, tokens + (now - lastRefill) * rate / ONE_SECOND);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,27 @@
+package com.reedelk.aws.s3.internal.type;
+
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+@Type(mapKeyType = String.class, mapValueType = Serializable.class)
+@TypeProperty(name = DeleteObjectError.KEY, type = String.class)
+@TypeProperty(name = DeleteObjectError.VERSION_ID, type = String.class)
+@TypeProperty(name = DeleteObjectError.CODE, type = String.class)
+@TypeProperty(name = DeleteObjectError.MESSAGE, type = String.class)
+public class DeleteObjectError extends HashMap<String, Serializable> {
+
+    static final String KEY = "key";
+    static final String VERSION_ID = "versionId";
+    static final String CODE = "code";
+    static final String MESSAGE = "message";
+
+    public DeleteObjectError(String key, String versionId, String code, String message) {
+        put(KEY, key);
+        put(VERSION_ID, versionId);
+        put(CODE, code);
+        put(MESSAGE, message);
+    }
+}
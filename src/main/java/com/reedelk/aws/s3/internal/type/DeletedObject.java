@@ -22,4 +22,8 @@ public class DeletedObject extends HashMap<String, Serializable> {
         put(MARKER_VERSION_ID, deletedObject.getDeleteMarkerVersionId());
         put(VERSION_ID, deletedObject.getVersionId());
     }
+
+    public DeletedObject(String key) {
+        put(KEY, key);
+    }
 }
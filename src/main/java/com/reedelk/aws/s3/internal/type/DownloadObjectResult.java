@@ -0,0 +1,57 @@
+package com.reedelk.aws.s3.internal.type;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+@Type(mapKeyType = String.class, mapValueType = Serializable.class)
+@TypeProperty(name = DownloadObjectResult.BUCKET, type = String.class)
+@TypeProperty(name = DownloadObjectResult.KEY, type = String.class)
+@TypeProperty(name = DownloadObjectResult.SUCCESS, type = boolean.class)
+@TypeProperty(name = DownloadObjectResult.DATA, type = byte[].class)
+@TypeProperty(name = DownloadObjectResult.ETAG, type = String.class)
+@TypeProperty(name = DownloadObjectResult.CONTENT_TYPE, type = String.class)
+@TypeProperty(name = DownloadObjectResult.CONTENT_LENGTH, type = long.class)
+@TypeProperty(name = DownloadObjectResult.ERROR_CODE, type = String.class)
+@TypeProperty(name = DownloadObjectResult.ERROR_MESSAGE, type = String.class)
+public class DownloadObjectResult extends HashMap<String, Serializable> {
+
+    static final String BUCKET = "bucket";
+    static final String KEY = "key";
+    static final String SUCCESS = "success";
+    static final String DATA = "data";
+    static final String ETAG = "eTag";
+    static final String CONTENT_TYPE = "contentType";
+    static final String CONTENT_LENGTH = "contentLength";
+    static final String ERROR_CODE = "errorCode";
+    static final String ERROR_MESSAGE = "errorMessage";
+
+    private DownloadObjectResult(String bucket, String key, boolean success) {
+        put(BUCKET, bucket);
+        put(KEY, key);
+        put(SUCCESS, success);
+    }
+
+    public static DownloadObjectResult success(String bucket, String key, ObjectMetadata metadata, byte[] data) {
+        DownloadObjectResult result = new DownloadObjectResult(bucket, key, true);
+        result.put(DATA, data);
+        result.put(ETAG, metadata.getETag());
+        result.put(CONTENT_TYPE, metadata.getContentType());
+        result.put(CONTENT_LENGTH, (long) data.length);
+        return result;
+    }
+
+    public static DownloadObjectResult error(String bucket, String key, String code, String message) {
+        DownloadObjectResult result = new DownloadObjectResult(bucket, key, false);
+        result.put(ERROR_CODE, code);
+        result.put(ERROR_MESSAGE, message);
+        return result;
+    }
+
+    public boolean isSuccess() {
+        return Boolean.TRUE.equals(get(SUCCESS));
+    }
+}
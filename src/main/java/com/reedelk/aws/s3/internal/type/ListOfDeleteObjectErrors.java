@@ -0,0 +1,16 @@
+package com.reedelk.aws.s3.internal.type;
+
+import com.reedelk.runtime.api.annotation.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Type(listItemType = DeleteObjectError.class)
+public class ListOfDeleteObjectErrors extends ArrayList<DeleteObjectError> {
+
+    public ListOfDeleteObjectErrors(List<DeleteObjectError> errors) {
+        if (errors != null) {
+            addAll(errors);
+        }
+    }
+}
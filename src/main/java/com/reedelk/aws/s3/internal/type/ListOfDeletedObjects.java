@@ -9,6 +9,9 @@ import java.util.List;
 @Type(listItemType = DeletedObject.class)
 public class ListOfDeletedObjects extends ArrayList<DeletedObject> {
 
+    public ListOfDeletedObjects() {
+    }
+
     public ListOfDeletedObjects(List<DeleteObjectsResult.DeletedObject> deletedObjects) {
         if (deletedObjects != null) {
             deletedObjects.stream().map(DeletedObject::new).forEach(this::add);
@@ -0,0 +1,16 @@
+package com.reedelk.aws.s3.internal.type;
+
+import com.reedelk.runtime.api.annotation.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Type(listItemType = DownloadObjectResult.class)
+public class ListOfDownloadObjectResults extends ArrayList<DownloadObjectResult> {
+
+    public ListOfDownloadObjectResults(List<DownloadObjectResult> results) {
+        if (results != null) {
+            addAll(results);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.reedelk.aws.s3.internal.type;
+
+import com.reedelk.runtime.api.annotation.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Type(listItemType = UploadObjectResult.class)
+public class ListOfUploadObjectResults extends ArrayList<UploadObjectResult> {
+
+    public ListOfUploadObjectResults(List<UploadObjectResult> results) {
+        if (results != null) {
+            addAll(results);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.reedelk.aws.s3.internal.type;
+
+import com.reedelk.runtime.api.annotation.Type;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * A batch of consecutive records read from an object. Each record is a string (a line
+ * or a JSON document), a list of fields or, for CSV with a header, a map from the column
+ * names to the fields.
+ */
+@Type(listItemType = Serializable.class)
+public class RecordBatch extends ArrayList<Serializable> {
+
+    public RecordBatch(int capacity) {
+        super(capacity);
+    }
+}
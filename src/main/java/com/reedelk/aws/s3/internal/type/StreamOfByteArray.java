@@ -0,0 +1,12 @@
+package com.reedelk.aws.s3.internal.type;
+
+import com.reedelk.runtime.api.annotation.Type;
+import org.reactivestreams.Publisher;
+
+/**
+ * The content of an object emitted as a stream of byte array chunks.
+ * It only describes the payload of the components with a 'Stream' output.
+ */
+@Type(displayName = "Stream of byte[]", listItemType = byte[].class)
+public abstract class StreamOfByteArray implements Publisher<byte[]> {
+}
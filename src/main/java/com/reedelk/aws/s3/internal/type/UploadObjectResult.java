@@ -0,0 +1,54 @@
+package com.reedelk.aws.s3.internal.type;
+
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+@Type(mapKeyType = String.class, mapValueType = Serializable.class)
+@TypeProperty(name = UploadObjectResult.BUCKET, type = String.class)
+@TypeProperty(name = UploadObjectResult.KEY, type = String.class)
+@TypeProperty(name = UploadObjectResult.SUCCESS, type = boolean.class)
+@TypeProperty(name = UploadObjectResult.ETAG, type = String.class)
+@TypeProperty(name = UploadObjectResult.VERSION_ID, type = String.class)
+@TypeProperty(name = UploadObjectResult.CONTENT_LENGTH, type = long.class)
+@TypeProperty(name = UploadObjectResult.ERROR_CODE, type = String.class)
+@TypeProperty(name = UploadObjectResult.ERROR_MESSAGE, type = String.class)
+public class UploadObjectResult extends HashMap<String, Serializable> {
+
+    static final String BUCKET = "bucket";
+    static final String KEY = "key";
+    static final String SUCCESS = "success";
+    static final String ETAG = "eTag";
+    static final String VERSION_ID = "versionId";
+    static final String CONTENT_LENGTH = "contentLength";
+    static final String ERROR_CODE = "errorCode";
+    static final String ERROR_MESSAGE = "errorMessage";
+
+    private UploadObjectResult(String bucket, String key, boolean success) {
+        put(BUCKET, bucket);
+        put(KEY, key);
+        put(SUCCESS, success);
+    }
+
+    public static UploadObjectResult success(String bucket, String key, PutObjectResult putResult, long contentLength) {
+        UploadObjectResult result = new UploadObjectResult(bucket, key, true);
+        result.put(ETAG, putResult.getETag());
+        result.put(VERSION_ID, putResult.getVersionId());
+        result.put(CONTENT_LENGTH, contentLength);
+        return result;
+    }
+
+    public static UploadObjectResult error(String bucket, String key, String code, String message) {
+        UploadObjectResult result = new UploadObjectResult(bucket, key, false);
+        result.put(ERROR_CODE, code);
+        result.put(ERROR_MESSAGE, message);
+        return result;
+    }
+
+    public boolean isSuccess() {
+        return Boolean.TRUE.equals(get(SUCCESS));
+    }
+}
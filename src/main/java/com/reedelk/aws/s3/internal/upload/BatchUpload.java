@@ -0,0 +1,65 @@
+package com.reedelk.aws.s3.internal.upload;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.reedelk.aws.s3.internal.commons.BatchExecution;
+import com.reedelk.aws.s3.internal.type.UploadObjectResult;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+/**
+ * Uploads many objects concurrently, so that the round trip latency of each PUT request
+ * is overlapped with the others. Failures never abort the whole upload: each object is
+ * returned, in the order of the given objects, either with its ETag or with the error
+ * code and message of its failure.
+ */
+public class BatchUpload {
+
+    private static final String CLIENT_ERROR_CODE = "ClientError";
+
+    private final AmazonS3 s3;
+    private final BatchExecution uploads;
+
+    public BatchUpload(AmazonS3 s3, BatchExecution uploads) {
+        this.s3 = s3;
+        this.uploads = uploads;
+    }
+
+    public List<UploadObjectResult> upload(String bucket, List<ObjectContent> objects) throws InterruptedException {
+        return uploads.execute(objects, object -> upload(bucket, object));
+    }
+
+    private UploadObjectResult upload(String bucket, ObjectContent object) {
+        // The content length is set so that the SDK does not
+        // buffer the content to compute it before sending it.
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(object.contentType);
+        metadata.setContentLength(object.data.length);
+        try {
+            PutObjectResult result = s3.putObject(bucket, object.key, new ByteArrayInputStream(object.data), metadata);
+            return UploadObjectResult.success(bucket, object.key, result, object.data.length);
+
+        } catch (AmazonServiceException exception) {
+            return UploadObjectResult.error(bucket, object.key, exception.getErrorCode(), exception.getErrorMessage());
+        } catch (SdkClientException exception) {
+            return UploadObjectResult.error(bucket, object.key, CLIENT_ERROR_CODE, exception.getMessage());
+        }
+    }
+
+    public static class ObjectContent {
+
+        private final String key;
+        private final byte[] data;
+        private final String contentType;
+
+        public ObjectContent(String key, byte[] data, String contentType) {
+            this.key = key;
+            this.data = data;
+            this.contentType = contentType;
+        }
+    }
+}
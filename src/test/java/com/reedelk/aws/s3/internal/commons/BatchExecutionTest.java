@@ -0,0 +1,152 @@
+package com.reedelk.aws.s3.internal.commons;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchExecutionTest {
+
+    private static final int CONCURRENCY = 4;
+
+    private ExecutorService executor;
+    private BatchExecution batches;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        batches = new BatchExecution(executor, CONCURRENCY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldReturnResultsInTaskOrder() throws InterruptedException {
+        // Given
+        List<Integer> items = rangeOf(100);
+
+        // When
+        List<Integer> results = batches.execute(items, item -> {
+            // Later tasks complete first.
+            sleep(100 - item);
+            return item * 2;
+        });
+
+        // Then
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 2, results.get(i));
+        }
+    }
+
+    @Test
+    void shouldNotRunMoreTasksThanConcurrency() throws InterruptedException {
+        // Given
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // When
+        batches.execute(rangeOf(50), item -> {
+            int current = running.incrementAndGet();
+            maxRunning.accumulateAndGet(current, Math::max);
+            sleep(5);
+            running.decrementAndGet();
+            return item;
+        });
+
+        // Then
+        assertTrue(maxRunning.get() <= CONCURRENCY);
+    }
+
+    @Test
+    void shouldExecuteSingleTaskOnCallingThread() throws InterruptedException {
+        // Given
+        Thread caller = Thread.currentThread();
+
+        // When
+        List<Thread> threads = batches.execute(Collections.singletonList(1), item -> Thread.currentThread());
+
+        // Then
+        assertSame(caller, threads.get(0));
+    }
+
+    @Test
+    void shouldFailAndStopSubmittingTasksWhenTaskFails() {
+        // Given
+        AtomicInteger started = new AtomicInteger();
+        IllegalStateException failure = new IllegalStateException("Batch 5 failed");
+
+        // When
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () ->
+                batches.execute(rangeOf(1000), item -> {
+                    started.incrementAndGet();
+                    if (item == 5) throw failure;
+                    sleep(10);
+                    return item;
+                }));
+
+        // Then
+        assertSame(failure, thrown);
+        assertTrue(started.get() < 1000);
+    }
+
+    @Test
+    void shouldCancelRunningTasksWhenTaskFails() throws InterruptedException {
+        // Given
+        CountDownLatch blockedStarted = new CountDownLatch(CONCURRENCY - 1);
+        CountDownLatch interrupted = new CountDownLatch(CONCURRENCY - 1);
+
+        // When
+        assertThrows(IllegalStateException.class, () ->
+                batches.execute(rangeOf(CONCURRENCY), item -> {
+                    if (item == 0) {
+                        await(blockedStarted);
+                        throw new IllegalStateException("First batch failed");
+                    }
+                    blockedStarted.countDown();
+                    try {
+                        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    } catch (InterruptedException exception) {
+                        interrupted.countDown();
+                    }
+                    return item;
+                }));
+
+        // Then
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    private static List<Integer> rangeOf(int size) {
+        List<Integer> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) items.add(i);
+        return items;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.reedelk.aws.s3.internal.commons;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void shouldExecuteConcurrentCallsForSameKeyOnce() throws Exception {
+        // Given
+        SingleFlight<String, List<String>> singleFlight = new SingleFlight<>(ArrayList::new);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> waiter = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // When
+            Future<List<String>> first = executor.submit(() -> singleFlight.execute("key", () -> {
+                executions.incrementAndGet();
+                await(release);
+                List<String> value = new ArrayList<>();
+                value.add("result");
+                return value;
+            }));
+            awaitExecutions(executions, 1);
+            Future<List<String>> second = executor.submit(() -> {
+                waiter.set(Thread.currentThread());
+                return singleFlight.execute("key", () -> {
+                    executions.incrementAndGet();
+                    return new ArrayList<>();
+                });
+            });
+            // The second caller must be waiting for the first call before it completes.
+            awaitWaiting(waiter);
+            release.countDown();
+
+            // Then
+            List<String> firstResult = first.get(5, TimeUnit.SECONDS);
+            List<String> secondResult = second.get(5, TimeUnit.SECONDS);
+            assertEquals(1, executions.get());
+            assertEquals(firstResult, secondResult);
+            // Each waiting caller receives its own copy of the result.
+            assertNotSame(firstResult, secondResult);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldShareErrorWithWaitingCallers() throws Exception {
+        // Given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(value -> value);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        IOException failure = new IOException("Connection reset");
+        AtomicReference<Thread> waiter = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // When
+            Future<String> first = executor.submit(() -> singleFlight.execute("key", () -> {
+                executions.incrementAndGet();
+                await(release);
+                throw failure;
+            }));
+            awaitExecutions(executions, 1);
+            Future<String> second = executor.submit(() -> {
+                waiter.set(Thread.currentThread());
+                return singleFlight.execute("key", () -> {
+                    executions.incrementAndGet();
+                    return "unexpected";
+                });
+            });
+            awaitWaiting(waiter);
+            release.countDown();
+
+            // Then
+            Exception firstError = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+            Exception secondError = assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+            assertSame(failure, firstError.getCause());
+            assertSame(failure, secondError.getCause());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldNotRetainCompletedResults() throws IOException {
+        // Given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(value -> value);
+        AtomicInteger executions = new AtomicInteger();
+
+        // When
+        int first = singleFlight.execute("key", executions::incrementAndGet);
+        int second = singleFlight.execute("key", executions::incrementAndGet);
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(2, second);
+    }
+
+    @Test
+    void shouldNotRetainFailedCalls() throws IOException {
+        // Given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(value -> value);
+
+        // When
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("Failed");
+        }));
+        String result = singleFlight.execute("key", () -> "result");
+
+        // Then
+        assertEquals("result", result);
+    }
+
+    @Test
+    void shouldExecuteCallsForDifferentKeysIndependently() throws Exception {
+        // Given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(value -> value);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // When
+            Future<String> blocked = executor.submit(() -> singleFlight.execute("key-1", () -> {
+                executions.incrementAndGet();
+                await(release);
+                return "first";
+            }));
+            awaitExecutions(executions, 1);
+            String other = singleFlight.execute("key-2", () -> "second");
+            release.countDown();
+
+            // Then
+            assertEquals("second", other);
+            assertEquals("first", blocked.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitExecutions(AtomicInteger executions, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (executions.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void awaitWaiting(AtomicReference<Thread> waiter) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!isWaiting(waiter.get()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static boolean isWaiting(Thread thread) {
+        return thread != null && thread.getState() == Thread.State.WAITING;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.reedelk.aws.s3.internal.download;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResumableObjectStreamTest {
+
+    private static final String BUCKET = "my-bucket";
+    private static final String KEY = "my-key";
+    private static final String ETAG = "etag-1";
+
+    @Test
+    void shouldNotRequestContentUntilFirstRead() throws IOException {
+        // Given
+        FakeS3 s3 = new FakeS3(contentOf(100), ETAG);
+        ResumableObjectStream stream = new ResumableObjectStream(s3.client(), new GetObjectRequest(BUCKET, KEY), metadataOf(100), 3);
+
+        // When
+        stream.close();
+
+        // Then
+        assertTrue(s3.requests.isEmpty());
+    }
+
+    @Test
+    void shouldReadContentWithMatchingETag() throws IOException {
+        // Given
+        byte[] content = contentOf(100);
+        FakeS3 s3 = new FakeS3(content, ETAG);
+        ResumableObjectStream stream = new ResumableObjectStream(s3.client(), new GetObjectRequest(BUCKET, KEY), metadataOf(100), 3);
+
+        // When
+        byte[] read = readAll(stream);
+
+        // Then
+        assertArrayEquals(content, read);
+        assertEquals(1, s3.requests.size());
+        assertTrue(s3.requests.get(0).getMatchingETagConstraints().contains(ETAG));
+        assertEquals(0, stream.resumes());
+    }
+
+    @Test
+    void shouldResumeFromFirstUnreadByteAfterDroppedConnection() throws IOException {
+        // Given
+        byte[] content = contentOf(100);
+        FakeS3 s3 = new FakeS3(content, ETAG);
+        s3.dropAfter = 40;
+        ResumableObjectStream stream = new ResumableObjectStream(s3.client(), new GetObjectRequest(BUCKET, KEY), metadataOf(100), 3);
+
+        // When
+        byte[] read = readAll(stream);
+
+        // Then
+        assertArrayEquals(content, read);
+        assertEquals(1, stream.resumes());
+        assertEquals(2, s3.requests.size());
+        assertNull(s3.requests.get(0).getRange());
+        assertArrayEquals(new long[]{40, 99}, s3.requests.get(1).getRange());
+        assertTrue(s3.requests.get(1).getMatchingETagConstraints().contains(ETAG));
+    }
+
+    @Test
+    void shouldFailWhenObjectModifiedWhileBeingRead() throws IOException {
+        // Given
+        FakeS3 s3 = new FakeS3(contentOf(100), ETAG);
+        s3.dropAfter = 40;
+        ResumableObjectStream stream = new ResumableObjectStream(s3.client(), new GetObjectRequest(BUCKET, KEY), metadataOf(100), 3);
+        byte[] buffer = new byte[40];
+        assertEquals(40, stream.read(buffer, 0, 40));
+
+        // When
+        s3.eTag = "etag-2";
+
+        // Then
+        IOException thrown = assertThrows(IOException.class, () -> readAll(stream));
+        assertTrue(thrown.getMessage().contains("modified while being read"));
+    }
+
+    @Test
+    void shouldFailWhenObjectModifiedBeforeFirstRead() {
+        // Given
+        FakeS3 s3 = new FakeS3(contentOf(100), "etag-2");
+        ResumableObjectStream stream = new ResumableObjectStream(s3.client(), new GetObjectRequest(BUCKET, KEY), metadataOf(100), 3);
+
+        // Expect
+        IOException thrown = assertThrows(IOException.class, () -> readAll(stream));
+        assertTrue(thrown.getMessage().contains("modified since its metadata was read"));
+    }
+
+    @Test
+    void shouldFailAfterMaxResumes() {
+        // Given
+        FakeS3 s3 = new FakeS3(contentOf(100), ETAG);
+        s3.dropAfter = 10;
+        s3.dropEveryRequest = true;
+        ResumableObjectStream stream = new ResumableObjectStream(s3.client(), new GetObjectRequest(BUCKET, KEY), metadataOf(100), 2);
+
+        // Expect
+        IOException thrown = assertThrows(IOException.class, () -> readAll(stream));
+        assertTrue(thrown.getMessage().contains("after 2 resumes at byte 30"));
+        assertEquals(3, s3.requests.size());
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        try (InputStream input = stream) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    private static byte[] contentOf(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) content[i] = (byte) i;
+        return content;
+    }
+
+    private static ObjectMetadata metadataOf(long contentLength) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(contentLength);
+        metadata.setHeader("ETag", ETAG);
+        return metadata;
+    }
+
+    /**
+     * AmazonS3 serving a single object: like S3, it returns no object when the matching
+     * ETag constraint is not satisfied and it honours the requested range.
+     */
+    static class FakeS3 {
+
+        final List<GetObjectRequest> requests = new ArrayList<>();
+        final byte[] content;
+        volatile String eTag;
+        int dropAfter = -1;
+        boolean dropEveryRequest;
+
+        FakeS3(byte[] content, String eTag) {
+            this.content = content;
+            this.eTag = eTag;
+        }
+
+        AmazonS3 client() {
+            return (AmazonS3) Proxy.newProxyInstance(AmazonS3.class.getClassLoader(), new Class<?>[]{AmazonS3.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("getObject") && args.length == 1 && args[0] instanceof GetObjectRequest) {
+                            return getObject((GetObjectRequest) args[0]);
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private S3Object getObject(GetObjectRequest request) {
+            requests.add(request);
+            List<String> matching = request.getMatchingETagConstraints();
+            if (!matching.isEmpty() && !matching.contains(eTag)) return null;
+
+            long[] range = request.getRange();
+            int start = range == null ? 0 : (int) range[0];
+            int end = range == null ? content.length : (int) range[1] + 1;
+            InputStream data = new ByteArrayInputStream(content, start, end - start);
+            if (dropAfter >= 0 && (dropEveryRequest || requests.size() == 1)) {
+                data = new DroppingInputStream(data, dropAfter);
+            }
+
+            S3Object object = new S3Object();
+            object.setBucketName(request.getBucketName());
+            object.setKey(request.getKey());
+            object.setObjectContent(new S3ObjectInputStream(data, new HttpGet()));
+            return object;
+        }
+    }
+
+    /**
+     * Fails as a dropped connection once the given number of bytes has been read.
+     */
+    static class DroppingInputStream extends InputStream {
+
+        private final InputStream delegate;
+        private int remaining;
+
+        DroppingInputStream(InputStream delegate, int dropAfter) {
+            this.delegate = delegate;
+            this.remaining = dropAfter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining == 0) throw new IOException("Connection reset");
+            int read = delegate.read(buffer, offset, Math.min(length, remaining));
+            if (read > 0) remaining -= read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.reedelk.aws.s3.internal.records;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void shouldReadFieldsSeparatedByDelimiter() throws IOException {
+        // Given
+        CsvRecordReader reader = readerOf("a,b,c\n1,2,3\n", false);
+
+        // Expect
+        assertEquals(Arrays.asList("a", "b", "c"), reader.next());
+        assertEquals(Arrays.asList("1", "2", "3"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void shouldReadQuotedFieldContainingDelimiter() throws IOException {
+        // Given
+        CsvRecordReader reader = readerOf("\"Rome, Italy\",1\n", false);
+
+        // Expect
+        assertEquals(Arrays.asList("Rome, Italy", "1"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void shouldReadQuotedFieldContainingLineBreaks() throws IOException {
+        // Given
+        CsvRecordReader reader = readerOf("\"first line\r\nsecond line\",2\n3,4", false);
+
+        // Expect
+        assertEquals(Arrays.asList("first line\r\nsecond line", "2"), reader.next());
+        assertEquals(Arrays.asList("3", "4"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void shouldUnescapeDoubledQuotes() throws IOException {
+        // Given
+        CsvRecordReader reader = readerOf("\"say \"\"hello\"\"\",\"\"\n", false);
+
+        // Expect
+        assertEquals(Arrays.asList("say \"hello\"", ""), reader.next());
+    }
+
+    @Test
+    void shouldReadCustomDelimiter() throws IOException {
+        // Given
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("a;b,c;\n"), ';', false);
+
+        // Expect
+        assertEquals(Arrays.asList("a", "b,c", ""), reader.next());
+    }
+
+    @Test
+    void shouldSkipEmptyLines() throws IOException {
+        // Given
+        CsvRecordReader reader = readerOf("\r\n\na,b\r\n\r\n\nc,d\r\n\n", false);
+
+        // Expect
+        assertEquals(Arrays.asList("a", "b"), reader.next());
+        assertEquals(Arrays.asList("c", "d"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void shouldMapFieldsToHeaderColumns() throws IOException {
+        // Given
+        CsvRecordReader reader = readerOf("id,\"full, name\"\n1,\"Doe, John\"\n2,Jane,extra\n", true);
+
+        // When
+        Object first = reader.next();
+        Object second = reader.next();
+
+        // Then
+        Map<String, String> expectedFirst = new LinkedHashMap<>();
+        expectedFirst.put("id", "1");
+        expectedFirst.put("full, name", "Doe, John");
+        assertEquals(expectedFirst, first);
+
+        // Fields without a column are named after their position.
+        Map<String, String> expectedSecond = new LinkedHashMap<>();
+        expectedSecond.put("id", "2");
+        expectedSecond.put("full, name", "Jane");
+        expectedSecond.put("_3", "extra");
+        assertEquals(expectedSecond, second);
+
+        assertNull(reader.next());
+    }
+
+    @Test
+    void shouldReturnNoRecordsWhenOnlyHeader() throws IOException {
+        // Given
+        CsvRecordReader reader = readerOf("id,name\n", true);
+
+        // Expect
+        assertNull(reader.next());
+    }
+
+    @Test
+    void shouldReadRowsLargerThanBuffer() throws IOException {
+        // Given
+        char[] large = new char[20000];
+        Arrays.fill(large, 'x');
+        String field = new String(large);
+        CsvRecordReader reader = readerOf("\"" + field + "\"," + field + "\n", false);
+
+        // Expect
+        assertEquals(Arrays.asList(field, field), reader.next());
+    }
+
+    @Test
+    void shouldFailOnUnterminatedQuotedField() throws IOException {
+        // Given
+        CsvRecordReader reader = readerOf("1,\"never closed\n2,3\n", false);
+
+        // Expect
+        IOException thrown = assertThrows(IOException.class, reader::next);
+        assertTrue(thrown.getMessage().contains("Unterminated quoted field"));
+    }
+
+    private static CsvRecordReader readerOf(String content, boolean header) {
+        return new CsvRecordReader(new StringReader(content), ',', header);
+    }
+}
@@ -0,0 +1,112 @@
+package com.reedelk.aws.s3.internal.throttle;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveRateLimiterTest {
+
+    private static final double DELTA = 0.0001;
+
+    @Test
+    void shouldTrackRatePerBucketAndFirstKeySegment() {
+        // Given
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(50, 100);
+
+        // When
+        attempt(limiter, "bucket-a", "logs/2020/file.log", null);
+        attempt(limiter, "bucket-a", "logs/2021/file.log", null);
+        attempt(limiter, "bucket-a", "images/photo.png", null);
+        attempt(limiter, "bucket-b", "root-file", null);
+
+        // Then
+        Map<String, Double> rates = limiter.getRequestRates();
+        assertEquals(3, rates.size());
+        assertTrue(rates.containsKey("bucket-a/logs/"));
+        assertTrue(rates.containsKey("bucket-a/images/"));
+        assertTrue(rates.containsKey("bucket-b/"));
+    }
+
+    @Test
+    void shouldDecreaseOnlyRateOfPartitionSlowedDown() {
+        // Given
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(50, 100);
+        attempt(limiter, "bucket", "other/file", null);
+
+        // When
+        attempt(limiter, "bucket", "logs/file", slowDown());
+
+        // Then
+        Map<String, Double> rates = limiter.getRequestRates();
+        assertEquals(25, rates.get("bucket/logs/"), DELTA);
+        assertEquals(50, rates.get("bucket/other/"), DELTA);
+        assertEquals(1, limiter.getSlowDownCount());
+    }
+
+    @Test
+    void shouldNotDecreaseRateOnOtherErrors() {
+        // Given
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(50, 100);
+        AmazonServiceException notFound = new AmazonServiceException("Not Found");
+        notFound.setStatusCode(404);
+
+        // When
+        attempt(limiter, "bucket", "logs/file", notFound);
+
+        // Then
+        assertEquals(50, limiter.getRequestRates().get("bucket/logs/"), DELTA);
+        assertEquals(0, limiter.getSlowDownCount());
+    }
+
+    @Test
+    void shouldIncreaseRateAfterOneSecondOfSuccessfulRequests() throws InterruptedException {
+        // Given
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(50, 100);
+        attempt(limiter, "bucket", "logs/file", null);
+        Thread.sleep(1100);
+
+        // When
+        attempt(limiter, "bucket", "logs/file", null);
+
+        // Then: the increase step is 5% of the max rate.
+        assertEquals(55, limiter.getRequestRates().get("bucket/logs/"), DELTA);
+    }
+
+    @Test
+    void shouldStartFromMaxRateWhenInitialRateIsHigher() {
+        // Given
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(500, 100);
+
+        // When
+        attempt(limiter, "bucket", "logs/file", null);
+
+        // Then
+        assertEquals(100, limiter.getRequestRates().get("bucket/logs/"), DELTA);
+    }
+
+    private static void attempt(AdaptiveRateLimiter limiter, String bucket, String key, Exception exception) {
+        Request<?> request = new DefaultRequest<>(new GetObjectRequest(bucket, key), "Amazon S3");
+        limiter.beforeAttempt(HandlerBeforeAttemptContext.builder()
+                .withRequest(request)
+                .build());
+        limiter.afterAttempt(HandlerAfterAttemptContext.builder()
+                .withRequest(request)
+                .withException(exception)
+                .build());
+    }
+
+    private static AmazonServiceException slowDown() {
+        AmazonServiceException exception = new AmazonServiceException("Please reduce your request rate.");
+        exception.setStatusCode(503);
+        exception.setErrorCode("SlowDown");
+        return exception;
+    }
+}
@@ -0,0 +1,106 @@
+package com.reedelk.aws.s3.internal.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final double DELTA = 0.0001;
+
+    @Test
+    void shouldAllowBurstOfInitialRate() {
+        // Given
+        TokenBucket bucket = new TokenBucket(3, 100, 5);
+
+        // Expect
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    void shouldHalveRateOnSlowDown() {
+        // Given
+        TokenBucket bucket = new TokenBucket(40, 100, 5);
+
+        // When
+        bucket.onSlowDown();
+
+        // Then
+        assertEquals(20, bucket.rate(), DELTA);
+        // The tokens left are dropped: the next request waits.
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    void shouldCountConcurrentSlowDownsAsSingleEvent() {
+        // Given
+        TokenBucket bucket = new TokenBucket(40, 100, 5);
+
+        // When
+        bucket.onSlowDown();
+        bucket.onSlowDown();
+        bucket.onSlowDown();
+
+        // Then
+        assertEquals(20, bucket.rate(), DELTA);
+    }
+
+    @Test
+    void shouldNotDecreaseRateBelowMinimum() {
+        // Given
+        TokenBucket bucket = new TokenBucket(1.5, 100, 5);
+
+        // When
+        bucket.onSlowDown();
+
+        // Then
+        assertEquals(1, bucket.rate(), DELTA);
+    }
+
+    @Test
+    void shouldIncreaseRateByStepAfterOneSecondWithoutSlowDown() throws InterruptedException {
+        // Given
+        TokenBucket bucket = new TokenBucket(10, 100, 5);
+
+        // When
+        bucket.onSuccess();
+        double beforeOneSecond = bucket.rate();
+        Thread.sleep(1100);
+        bucket.onSuccess();
+        bucket.onSuccess();
+
+        // Then
+        assertEquals(10, beforeOneSecond, DELTA);
+        assertEquals(15, bucket.rate(), DELTA);
+    }
+
+    @Test
+    void shouldNotIncreaseRateRightAfterSlowDown() throws InterruptedException {
+        // Given
+        TokenBucket bucket = new TokenBucket(10, 100, 5);
+        Thread.sleep(1100);
+
+        // When
+        bucket.onSlowDown();
+        bucket.onSuccess();
+
+        // Then
+        assertEquals(5, bucket.rate(), DELTA);
+    }
+
+    @Test
+    void shouldNotIncreaseRateAboveMaximum() throws InterruptedException {
+        // Given
+        TokenBucket bucket = new TokenBucket(98, 100, 5);
+        Thread.sleep(1100);
+
+        // When
+        bucket.onSuccess();
+
+        // Then
+        assertEquals(100, bucket.rate(), DELTA);
+    }
+}